@@ -1,10 +1,26 @@
 package com.techyourchance.multithreading;
 
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig.WorkerMode;
+import com.techyourchance.multithreading.common.execution.ExecutionMode;
+
 public class DefaultConfiguration {
 
+    public static final WorkerMode DEFAULT_WORKER_MODE = WorkerMode.TASK_PER_MESSAGE;
     public static final int DEFAULT_NUM_OF_MESSAGES = 1000;
     public static final int DEFAULT_BLOCKING_QUEUE_SIZE = 5;
+    public static final int DEFAULT_NUM_OF_PRODUCERS = 4;
+    public static final int DEFAULT_NUM_OF_CONSUMERS = 4;
     public static final int DEFAULT_PRODUCER_DELAY_MS = 0;
+    public static final int DEFAULT_PAYLOAD_SIZE = 1;
+    public static final int DEFAULT_WARMUP_ITERATIONS = 0;
+    public static final boolean DEFAULT_COLLECT_QUEUE_STATISTICS = false;
+    public static final boolean DEFAULT_COLLECT_THREAD_POOL_METRICS = true;
+    public static final boolean DEFAULT_TRACE_TASKS = false;
+    public static final int DEFAULT_TRACE_BUFFER_SIZE = 8192;
+    public static final int DEFAULT_BLOCKING_DISPATCHER_PARALLELISM = 64;
+    public static final int DEFAULT_CPU_DISPATCHER_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_LOOPER_STALL_THRESHOLD_MS = 500;
+    public static final ExecutionMode DEFAULT_EXECUTION_MODE = ExecutionMode.VIRTUAL_THREAD_PER_TASK;
 
     public static final int DEFAULT_FACTORIAL_TIMEOUT_MS = 1000;
 
@@ -17,11 +17,14 @@ import com.techyourchance.multithreading.common.dependencyinjection.Presentation
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity implements
         FragmentContainerWrapper,
         ToolbarManipulator {
 
+    private static final long EXECUTION_SERVICE_DRAIN_TIMEOUT_MS = 2000;
+
     private PresentationCompositionRoot mPresentationCompositionRoot;
     private ScreensNavigator mScreensNavigator;
 
@@ -38,6 +41,8 @@ public class MainActivity extends AppCompatActivity implements
                 ((MyApplication)getApplication()).getApplicationCompositionRoot()
         );
 
+        mPresentationCompositionRoot.acquireExecutionService();
+
         mScreensNavigator = mPresentationCompositionRoot.getScreensNavigator();
 
         mBtnBack = findViewById(R.id.btn_back);
@@ -57,6 +62,16 @@ public class MainActivity extends AppCompatActivity implements
         reduceChoreographerSkippedFramesWarningThreshold();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // when the user left, let in-flight work complete, but don't keep threads alive; the
+        // service stays up across configuration changes and while other activities use it
+        mPresentationCompositionRoot.releaseExecutionService(
+                isFinishing(), EXECUTION_SERVICE_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS
+        );
+    }
+
     private void reduceChoreographerSkippedFramesWarningThreshold() {
         Field field = null;
         try {
@@ -1,10 +1,12 @@
 package com.techyourchance.multithreading;
 
 import android.app.Application;
+import android.os.Looper;
+import android.util.Log;
 
 import com.techyourchance.multithreading.common.dependencyinjection.ApplicationCompositionRoot;
-
-import static kotlinx.coroutines.DispatchersKt.IO_PARALLELISM_PROPERTY_NAME;
+import com.techyourchance.multithreading.common.looper.CustomMessage;
+import com.techyourchance.multithreading.common.looper.LooperWatchdog;
 
 public class MyApplication extends Application {
 
@@ -18,6 +20,27 @@ public class MyApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
-        System.setProperty(IO_PARALLELISM_PROPERTY_NAME, String.valueOf(Integer.MAX_VALUE));
+        CustomMessage.setLeakDetectionEnabled(BuildConfig.DEBUG);
+        if (BuildConfig.DEBUG) {
+            CustomMessage.setLeakReporter(
+                    allocationSite -> Log.w("CustomMessage", "message leaked", allocationSite)
+            );
+            watchMainLooper();
+        }
+    }
+
+    private void watchMainLooper() {
+        LooperWatchdog looperWatchdog = mApplicationCompositionRoot.getLooperWatchdog();
+        LooperWatchdog.Monitor monitor = looperWatchdog.watch("main");
+        // the main looper logs ">>>>> Dispatching to ..." before and "<<<<< Finished to ..." after
+        // each message; the former also names the handler and the callback
+        Looper.getMainLooper().setMessageLogging(line -> {
+            if (line.startsWith(">>>>>")) {
+                monitor.onDispatchStarted(line);
+            } else if (line.startsWith("<<<<<")) {
+                monitor.onDispatchFinished();
+            }
+        });
+        looperWatchdog.start(mApplicationCompositionRoot.getThreadPerTaskExecutor());
     }
 }
@@ -1,21 +1,78 @@
 package com.techyourchance.multithreading.common;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
 
 public abstract class BaseObservable<LISTENER_CLASS> {
 
+    /**
+     * An event that can be delivered to a listener
+     */
+    public interface Event<LISTENER_CLASS> {
+        void dispatchTo(LISTENER_CLASS listener);
+    }
+
+    /**
+     * Delivers events on the thread that notifies, without any hand-off
+     */
+    public static final Executor DIRECT_EXECUTOR = Runnable::run;
+
     private final Object MONITOR = new Object();
 
-    private final Set<LISTENER_CLASS> mListeners = new HashSet<>();
+    private final Object CONFLATION_LOCK = new Object();
+
+    private final Runnable mDispatchPendingEvents = this::dispatchPendingEvents;
+
+    // copy-on-write: replaced (under MONITOR) on every registration change and never mutated,
+    // so notifications read it without locking or copying
+    private volatile ListenersSnapshot<LISTENER_CLASS> mListeners = new ListenersSnapshot<>(
+            new Object[0], new Executor[0]
+    );
+
+    // conflation state, guarded by CONFLATION_LOCK; the map is null while conflation is disabled
+    private Map<Object, Event<LISTENER_CLASS>> mPendingEvents;
+    private Handler mConflationHandler;
+    private long mConflationIntervalMs;
+    private long mLastDispatchUptimeMs;
+    private boolean mDispatchScheduled;
+    private long mNumOfCoalescedEvents;
 
 
+    /**
+     * Register the listener for events delivered on the thread that notifies
+     */
     public void registerListener(LISTENER_CLASS listener) {
+        registerListener(listener, DIRECT_EXECUTOR);
+    }
+
+    /**
+     * Register the listener for events delivered with {@link #notifyListeners(Event)} on the given
+     * executor (e.g. a UI thread executor, or {@link #DIRECT_EXECUTOR} to avoid thread hops).
+     * Registering an already registered listener has no effect.
+     */
+    public void registerListener(LISTENER_CLASS listener, Executor executor) {
         synchronized (MONITOR) {
-            boolean hadNoListeners = mListeners.size() == 0;
-            mListeners.add(listener);
-            if (hadNoListeners && mListeners.size() == 1) {
+            ListenersSnapshot<LISTENER_CLASS> listeners = mListeners;
+            if (listeners.contains(listener)) {
+                return;
+            }
+            int size = listeners.size();
+            Object[] newListeners = new Object[size + 1];
+            Executor[] newExecutors = new Executor[size + 1];
+            for (int i = 0; i < size; i++) {
+                newListeners[i] = listeners.get(i);
+                newExecutors[i] = listeners.getExecutor(i);
+            }
+            newListeners[size] = listener;
+            newExecutors[size] = executor;
+            mListeners = new ListenersSnapshot<>(newListeners, newExecutors);
+            if (size == 0) {
                 onFirstListenerRegistered();
             }
         }
@@ -23,17 +80,122 @@ public abstract class BaseObservable<LISTENER_CLASS> {
 
     public void unregisterListener(LISTENER_CLASS listener) {
         synchronized (MONITOR) {
-            boolean hadOneListener = mListeners.size() == 1;
-            mListeners.remove(listener);
-            if (hadOneListener && mListeners.size() == 0) {
+            ListenersSnapshot<LISTENER_CLASS> listeners = mListeners;
+            int index = listeners.indexOf(listener);
+            if (index == -1) {
+                return;
+            }
+            int size = listeners.size();
+            Object[] newListeners = new Object[size - 1];
+            Executor[] newExecutors = new Executor[size - 1];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (i != index) {
+                    newListeners[j] = listeners.get(i);
+                    newExecutors[j] = listeners.getExecutor(i);
+                    j++;
+                }
+            }
+            mListeners = new ListenersSnapshot<>(newListeners, newExecutors);
+            if (size == 1) {
                 onLastListenerUnregistered();
             }
         }
     }
 
-    protected Set<LISTENER_CLASS> getListeners() {
-        synchronized (MONITOR) {
-            return Collections.unmodifiableSet(new HashSet<>(mListeners));
+    /**
+     * Deliver the event to each registered listener on the executor it was registered with.
+     * Direct delivery doesn't allocate. A listener unregistered before its executor runs the
+     * delivery doesn't receive the event.
+     */
+    protected void notifyListeners(Event<LISTENER_CLASS> event) {
+        ListenersSnapshot<LISTENER_CLASS> listeners = mListeners;
+        for (int i = 0; i < listeners.size(); i++) {
+            LISTENER_CLASS listener = listeners.get(i);
+            Executor executor = listeners.getExecutor(i);
+            if (executor == DIRECT_EXECUTOR) {
+                event.dispatchTo(listener);
+            } else {
+                executor.execute(() -> {
+                    if (mListeners.contains(listener)) {
+                        event.dispatchTo(listener);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Opt into conflated dispatch of events posted with {@link #postConflated(Object, Event)}:
+     * pending events are delivered from the handler's thread at most once per interval (e.g. 16ms
+     * for once per frame), and only the latest pending event of each type is delivered.
+     * Resets the number of coalesced events.
+     */
+    protected void enableConflation(Handler handler, long intervalMs) {
+        synchronized (CONFLATION_LOCK) {
+            mConflationHandler = handler;
+            mConflationIntervalMs = intervalMs;
+            if (mPendingEvents == null) {
+                mPendingEvents = new LinkedHashMap<>();
+            }
+            mNumOfCoalescedEvents = 0;
+        }
+    }
+
+    /**
+     * Post the event for delivery to all the listeners. If an event of the same type is still
+     * pending, it's replaced (i.e. coalesced) and never delivered.<br>
+     * Events of different types are delivered in the order of their first pending post.
+     *
+     * @throws IllegalStateException if {@link #enableConflation(Handler, long)} wasn't called
+     */
+    protected void postConflated(Object eventType, Event<LISTENER_CLASS> event) {
+        synchronized (CONFLATION_LOCK) {
+            if (mPendingEvents == null) {
+                throw new IllegalStateException("conflation hasn't been enabled");
+            }
+            if (mPendingEvents.put(eventType, event) != null) {
+                mNumOfCoalescedEvents++;
+            }
+            if (!mDispatchScheduled) {
+                mDispatchScheduled = true;
+                mConflationHandler.postAtTime(
+                        mDispatchPendingEvents,
+                        Math.max(SystemClock.uptimeMillis(), mLastDispatchUptimeMs + mConflationIntervalMs)
+                );
+            }
+        }
+    }
+
+    /**
+     * @return number of events that were replaced by later events of the same type before
+     *         they had been delivered
+     */
+    public long getNumOfCoalescedEvents() {
+        synchronized (CONFLATION_LOCK) {
+            return mNumOfCoalescedEvents;
+        }
+    }
+
+    /**
+     * Start counting coalesced events from zero, e.g. at the start of each measured run
+     */
+    public void resetNumOfCoalescedEvents() {
+        synchronized (CONFLATION_LOCK) {
+            mNumOfCoalescedEvents = 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatchPendingEvents() {
+        Object[] events;
+        synchronized (CONFLATION_LOCK) {
+            events = mPendingEvents.values().toArray();
+            mPendingEvents.clear();
+            mDispatchScheduled = false;
+            mLastDispatchUptimeMs = SystemClock.uptimeMillis();
+        }
+        for (Object event : events) {
+            notifyListeners((Event<LISTENER_CLASS>) event);
         }
     }
 
@@ -45,4 +207,48 @@ public abstract class BaseObservable<LISTENER_CLASS> {
 
     }
 
+    private static class ListenersSnapshot<LISTENER_CLASS> extends AbstractList<LISTENER_CLASS>
+            implements RandomAccess {
+
+        private final Object[] mListeners;
+        private final Executor[] mExecutors;
+
+        private ListenersSnapshot(Object[] listeners, Executor[] executors) {
+            mListeners = listeners;
+            mExecutors = executors;
+        }
+
+        private Executor getExecutor(int index) {
+            return mExecutors[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public LISTENER_CLASS get(int index) {
+            return (LISTENER_CLASS) mListeners[index];
+        }
+
+        @Override
+        public int size() {
+            return mListeners.length;
+        }
+
+        // indexed loops, because the inherited implementations allocate an iterator
+
+        @Override
+        public boolean contains(Object listener) {
+            return indexOf(listener) != -1;
+        }
+
+        @Override
+        public int indexOf(Object listener) {
+            for (int i = 0; i < mListeners.length; i++) {
+                if (listener == null ? mListeners[i] == null : listener.equals(mListeners[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
 }
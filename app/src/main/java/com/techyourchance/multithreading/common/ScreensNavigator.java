@@ -2,6 +2,7 @@ package com.techyourchance.multithreading.common;
 
 import com.techyourchance.fragmenthelper.FragmentHelper;
 import com.techyourchance.multithreading.demonstrations.atomicity.AtomicityDemonstrationFragment;
+import com.techyourchance.multithreading.demonstrations.bestjavaimplementation.DesignWithBestJavaImplementationDemonstrationFragment;
 import com.techyourchance.multithreading.demonstrations.customhandler.CustomHandlerDemonstrationFragment;
 import com.techyourchance.multithreading.demonstrations.designasynctask.DesignWithAsyncTaskDemonstrationFragment;
 import com.techyourchance.multithreading.demonstrations.designcoroutines.DesignWithCoroutinesDemonstrationFragment;
@@ -127,4 +128,8 @@ public class ScreensNavigator {
     public void toExercise10Screen() {
         mFragmentHelper.replaceFragment(Exercise10Fragment.Companion.newInstance());
     }
+
+    public void toDesignWithBestJavaImplementationDemonstration() {
+        mFragmentHelper.replaceFragment(DesignWithBestJavaImplementationDemonstrationFragment.newInstance());
+    }
 }
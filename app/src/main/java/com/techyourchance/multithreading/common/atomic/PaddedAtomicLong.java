@@ -0,0 +1,72 @@
+package com.techyourchance.multithreading.common.atomic;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+class PaddedAtomicLongLhsPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class PaddedAtomicLongValue extends PaddedAtomicLongLhsPadding {
+    protected volatile long value;
+}
+
+class PaddedAtomicLongRhsPadding extends PaddedAtomicLongValue {
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * Subset of {@link java.util.concurrent.atomic.AtomicLong} whose value is padded on both sides
+ * with 56 bytes, so that values written by different threads never share a 64-byte cache line
+ * (what {@code @Contended} does on JVMs that support it). Use it for hot values that different
+ * threads write, e.g. queue positions and per-thread counters; for anything else, the extra
+ * 112 bytes aren't worth it.
+ * <p>
+ * The padding relies on the runtime laying out the fields of a superclass before the fields of
+ * its subclasses, which both HotSpot and ART do.
+ */
+public class PaddedAtomicLong extends PaddedAtomicLongRhsPadding {
+
+    private static final AtomicLongFieldUpdater<PaddedAtomicLongValue> VALUE_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(PaddedAtomicLongValue.class, "value");
+
+    public PaddedAtomicLong() {
+        this(0);
+    }
+
+    public PaddedAtomicLong(long initialValue) {
+        VALUE_UPDATER.lazySet(this, initialValue);
+    }
+
+    public long get() {
+        return value;
+    }
+
+    public void set(long newValue) {
+        value = newValue;
+    }
+
+    /**
+     * Ordered write: the value becomes visible to other threads after all preceding writes,
+     * but without the cost of a full volatile write.
+     */
+    public void lazySet(long newValue) {
+        VALUE_UPDATER.lazySet(this, newValue);
+    }
+
+    public boolean compareAndSet(long expectedValue, long newValue) {
+        return VALUE_UPDATER.compareAndSet(this, expectedValue, newValue);
+    }
+
+    public long incrementAndGet() {
+        return VALUE_UPDATER.incrementAndGet(this);
+    }
+
+    public long addAndGet(long delta) {
+        return VALUE_UPDATER.addAndGet(this, delta);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
@@ -0,0 +1,244 @@
+package com.techyourchance.multithreading.common.benchmark;
+
+import com.techyourchance.multithreading.DefaultConfiguration;
+import com.techyourchance.multithreading.common.execution.ExecutionMode;
+
+/**
+ * Parameters of a producer-consumer benchmark run. Immutable; use {@link Builder} to create
+ * instances, or {@link #newBuilder()} to derive a modified copy.
+ */
+public class BenchmarkConfig {
+
+    /**
+     * How the producer and consumer sides of the benchmark are spread across threads.
+     */
+    public enum WorkerMode {
+        /**
+         * Start a new producer and a new consumer task for each message.
+         */
+        TASK_PER_MESSAGE,
+        /**
+         * Start {@link #getNumOfProducers()} producers and {@link #getNumOfConsumers()} consumers
+         * which loop over their share of the messages.
+         */
+        FIXED_WORKERS
+    }
+
+    private final WorkerMode mWorkerMode;
+    private final int mNumOfMessages;
+    private final int mBlockingQueueCapacity;
+    private final int mNumOfProducers;
+    private final int mNumOfConsumers;
+    private final int mProducerDelayMs;
+    private final int mPayloadSize;
+    private final int mWarmupIterations;
+    private final boolean mCollectQueueStatistics;
+    private final ExecutionMode mExecutionMode;
+
+    private BenchmarkConfig(Builder builder) {
+        mWorkerMode = builder.mWorkerMode;
+        mNumOfMessages = builder.mNumOfMessages;
+        mBlockingQueueCapacity = builder.mBlockingQueueCapacity;
+        mNumOfProducers = builder.mNumOfProducers;
+        mNumOfConsumers = builder.mNumOfConsumers;
+        mProducerDelayMs = builder.mProducerDelayMs;
+        mPayloadSize = builder.mPayloadSize;
+        mWarmupIterations = builder.mWarmupIterations;
+        mCollectQueueStatistics = builder.mCollectQueueStatistics;
+        mExecutionMode = builder.mExecutionMode;
+    }
+
+    public static BenchmarkConfig defaultConfig() {
+        return new Builder().build();
+    }
+
+    /**
+     * Designs that can't run with dedicated producers and consumers ignore this parameter.
+     */
+    public WorkerMode getWorkerMode() {
+        return mWorkerMode;
+    }
+
+    public int getNumOfMessages() {
+        return mNumOfMessages;
+    }
+
+    public int getBlockingQueueCapacity() {
+        return mBlockingQueueCapacity;
+    }
+
+    /**
+     * Number of producer workers in designs that have dedicated producers. Designs that start
+     * a new producer per message ignore this parameter.
+     */
+    public int getNumOfProducers() {
+        return mNumOfProducers;
+    }
+
+    /**
+     * Number of consumer workers in designs that have dedicated consumers. Designs that start
+     * a new consumer per message ignore this parameter.
+     */
+    public int getNumOfConsumers() {
+        return mNumOfConsumers;
+    }
+
+    public int getProducerDelayMs() {
+        return mProducerDelayMs;
+    }
+
+    /**
+     * Number of ints each message consists of. Queue-based designs transfer each message as this
+     * many queue elements.
+     */
+    public int getPayloadSize() {
+        return mPayloadSize;
+    }
+
+    /**
+     * Number of unmeasured runs executed before the measured one.
+     */
+    public int getWarmupIterations() {
+        return mWarmupIterations;
+    }
+
+    public boolean isCollectQueueStatistics() {
+        return mCollectQueueStatistics;
+    }
+
+    /**
+     * Kind of threads used by designs that start a new thread for each task. Other designs ignore
+     * this parameter.
+     */
+    public ExecutionMode getExecutionMode() {
+        return mExecutionMode;
+    }
+
+    public Builder newBuilder() {
+        return new Builder(this);
+    }
+
+    @Override
+    public String toString() {
+        return "mode: " + mWorkerMode
+                + ", messages: " + mNumOfMessages
+                + ", capacity: " + mBlockingQueueCapacity
+                + ", producers: " + mNumOfProducers
+                + ", consumers: " + mNumOfConsumers
+                + ", delay: " + mProducerDelayMs + "ms"
+                + ", payload: " + mPayloadSize
+                + ", warmup: " + mWarmupIterations
+                + ", execution: " + mExecutionMode;
+    }
+
+    public static class Builder {
+
+        private WorkerMode mWorkerMode = DefaultConfiguration.DEFAULT_WORKER_MODE;
+        private int mNumOfMessages = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES;
+        private int mBlockingQueueCapacity = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE;
+        private int mNumOfProducers = DefaultConfiguration.DEFAULT_NUM_OF_PRODUCERS;
+        private int mNumOfConsumers = DefaultConfiguration.DEFAULT_NUM_OF_CONSUMERS;
+        private int mProducerDelayMs = DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS;
+        private int mPayloadSize = DefaultConfiguration.DEFAULT_PAYLOAD_SIZE;
+        private int mWarmupIterations = DefaultConfiguration.DEFAULT_WARMUP_ITERATIONS;
+        private boolean mCollectQueueStatistics = DefaultConfiguration.DEFAULT_COLLECT_QUEUE_STATISTICS;
+        private ExecutionMode mExecutionMode = DefaultConfiguration.DEFAULT_EXECUTION_MODE;
+
+        public Builder() {
+        }
+
+        private Builder(BenchmarkConfig config) {
+            mWorkerMode = config.mWorkerMode;
+            mNumOfMessages = config.mNumOfMessages;
+            mBlockingQueueCapacity = config.mBlockingQueueCapacity;
+            mNumOfProducers = config.mNumOfProducers;
+            mNumOfConsumers = config.mNumOfConsumers;
+            mProducerDelayMs = config.mProducerDelayMs;
+            mPayloadSize = config.mPayloadSize;
+            mWarmupIterations = config.mWarmupIterations;
+            mCollectQueueStatistics = config.mCollectQueueStatistics;
+            mExecutionMode = config.mExecutionMode;
+        }
+
+        public Builder setWorkerMode(WorkerMode workerMode) {
+            if (workerMode == null) {
+                throw new IllegalArgumentException("null worker mode");
+            }
+            mWorkerMode = workerMode;
+            return this;
+        }
+
+        public Builder setNumOfMessages(int numOfMessages) {
+            mNumOfMessages = requirePositive(numOfMessages, "number of messages");
+            return this;
+        }
+
+        public Builder setBlockingQueueCapacity(int blockingQueueCapacity) {
+            mBlockingQueueCapacity = requirePositive(blockingQueueCapacity, "blocking queue capacity");
+            return this;
+        }
+
+        /**
+         * With {@link WorkerMode#FIXED_WORKERS}, the producers, the consumers and the benchmark's
+         * driver task all block at the same time, so the executor must be able to run
+         * 1 + producers + consumers tasks concurrently; designs reject configs that don't fit.
+         */
+        public Builder setNumOfProducers(int numOfProducers) {
+            mNumOfProducers = requirePositive(numOfProducers, "number of producers");
+            return this;
+        }
+
+        /**
+         * See {@link #setNumOfProducers(int)} for the limit on the total number of workers.
+         */
+        public Builder setNumOfConsumers(int numOfConsumers) {
+            mNumOfConsumers = requirePositive(numOfConsumers, "number of consumers");
+            return this;
+        }
+
+        public Builder setProducerDelayMs(int producerDelayMs) {
+            if (producerDelayMs < 0) {
+                throw new IllegalArgumentException("negative producer delay");
+            }
+            mProducerDelayMs = producerDelayMs;
+            return this;
+        }
+
+        public Builder setPayloadSize(int payloadSize) {
+            mPayloadSize = requirePositive(payloadSize, "payload size");
+            return this;
+        }
+
+        public Builder setWarmupIterations(int warmupIterations) {
+            if (warmupIterations < 0) {
+                throw new IllegalArgumentException("negative number of warmup iterations");
+            }
+            mWarmupIterations = warmupIterations;
+            return this;
+        }
+
+        public Builder setCollectQueueStatistics(boolean collectQueueStatistics) {
+            mCollectQueueStatistics = collectQueueStatistics;
+            return this;
+        }
+
+        public Builder setExecutionMode(ExecutionMode executionMode) {
+            if (executionMode == null) {
+                throw new IllegalArgumentException("null execution mode");
+            }
+            mExecutionMode = executionMode;
+            return this;
+        }
+
+        public BenchmarkConfig build() {
+            return new BenchmarkConfig(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
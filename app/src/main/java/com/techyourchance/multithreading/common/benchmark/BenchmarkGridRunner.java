@@ -0,0 +1,127 @@
+package com.techyourchance.multithreading.common.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.WorkerThread;
+
+/**
+ * Executes a benchmark for every combination of the configured parameter values (a parameter
+ * grid) and collects the results into {@link BenchmarkTable}. Parameters that weren't set keep
+ * the value from the base configuration.
+ */
+public class BenchmarkGridRunner<RESULT extends BenchmarkResult> {
+
+    public interface Benchmark<RESULT extends BenchmarkResult> {
+        /**
+         * Execute the benchmark with the given configuration, including its warmup iterations,
+         * and return the result of the measured run.
+         *
+         * @return the result; never null
+         * @throws InterruptedException if the benchmark was interrupted
+         */
+        @WorkerThread
+        RESULT run(BenchmarkConfig config) throws InterruptedException;
+    }
+
+    private final Benchmark<RESULT> mBenchmark;
+    private final BenchmarkConfig mBaseConfig;
+
+    private int[] mNumsOfMessages;
+    private int[] mBlockingQueueCapacities;
+    private int[] mNumsOfProducers;
+    private int[] mNumsOfConsumers;
+    private int[] mProducerDelaysMs;
+    private int[] mPayloadSizes;
+
+    public BenchmarkGridRunner(Benchmark<RESULT> benchmark, BenchmarkConfig baseConfig) {
+        mBenchmark = benchmark;
+        mBaseConfig = baseConfig;
+        mNumsOfMessages = new int[] {baseConfig.getNumOfMessages()};
+        mBlockingQueueCapacities = new int[] {baseConfig.getBlockingQueueCapacity()};
+        mNumsOfProducers = new int[] {baseConfig.getNumOfProducers()};
+        mNumsOfConsumers = new int[] {baseConfig.getNumOfConsumers()};
+        mProducerDelaysMs = new int[] {baseConfig.getProducerDelayMs()};
+        mPayloadSizes = new int[] {baseConfig.getPayloadSize()};
+    }
+
+    public BenchmarkGridRunner<RESULT> sweepNumOfMessages(int... values) {
+        mNumsOfMessages = requireNonEmpty(values);
+        return this;
+    }
+
+    public BenchmarkGridRunner<RESULT> sweepBlockingQueueCapacity(int... values) {
+        mBlockingQueueCapacities = requireNonEmpty(values);
+        return this;
+    }
+
+    public BenchmarkGridRunner<RESULT> sweepNumOfProducers(int... values) {
+        mNumsOfProducers = requireNonEmpty(values);
+        return this;
+    }
+
+    public BenchmarkGridRunner<RESULT> sweepNumOfConsumers(int... values) {
+        mNumsOfConsumers = requireNonEmpty(values);
+        return this;
+    }
+
+    public BenchmarkGridRunner<RESULT> sweepProducerDelayMs(int... values) {
+        mProducerDelaysMs = requireNonEmpty(values);
+        return this;
+    }
+
+    public BenchmarkGridRunner<RESULT> sweepPayloadSize(int... values) {
+        mPayloadSizes = requireNonEmpty(values);
+        return this;
+    }
+
+    public List<BenchmarkConfig> getConfigs() {
+        List<BenchmarkConfig> configs = new ArrayList<>();
+        for (int numOfMessages : mNumsOfMessages) {
+            for (int capacity : mBlockingQueueCapacities) {
+                for (int numOfProducers : mNumsOfProducers) {
+                    for (int numOfConsumers : mNumsOfConsumers) {
+                        for (int producerDelayMs : mProducerDelaysMs) {
+                            for (int payloadSize : mPayloadSizes) {
+                                configs.add(mBaseConfig.newBuilder()
+                                        .setNumOfMessages(numOfMessages)
+                                        .setBlockingQueueCapacity(capacity)
+                                        .setNumOfProducers(numOfProducers)
+                                        .setNumOfConsumers(numOfConsumers)
+                                        .setProducerDelayMs(producerDelayMs)
+                                        .setPayloadSize(payloadSize)
+                                        .build());
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Run the benchmark for all the configurations in the grid, one after another.
+     *
+     * @throws IllegalStateException if the benchmark returns no result
+     */
+    @WorkerThread
+    public BenchmarkTable run() throws InterruptedException {
+        BenchmarkTable table = new BenchmarkTable();
+        for (BenchmarkConfig config : getConfigs()) {
+            RESULT result = mBenchmark.run(config);
+            if (result == null) {
+                throw new IllegalStateException("benchmark returned no result for: " + config);
+            }
+            table.addRow(config, result);
+        }
+        return table;
+    }
+
+    private static int[] requireNonEmpty(int[] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("at least one value required");
+        }
+        return values.clone();
+    }
+}
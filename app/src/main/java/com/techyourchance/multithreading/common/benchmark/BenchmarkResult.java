@@ -0,0 +1,14 @@
+package com.techyourchance.multithreading.common.benchmark;
+
+/**
+ * The part of a producer-consumer benchmark result that is common to all the designs.
+ */
+public interface BenchmarkResult {
+
+    /**
+     * @return execution time of the measured run in milliseconds
+     */
+    long getExecutionTime();
+
+    int getNumOfReceivedMessages();
+}
@@ -0,0 +1,121 @@
+package com.techyourchance.multithreading.common.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of {@link BenchmarkGridRunner}: one row per executed configuration.
+ */
+public class BenchmarkTable {
+
+    private static final String[] COLUMNS = {
+            "mode", "messages", "capacity", "producers", "consumers", "delay_ms", "payload", "warmup",
+            "time_ms", "received", "msgs_per_sec"
+    };
+
+    public static class Row {
+        private final BenchmarkConfig mConfig;
+        private final BenchmarkResult mResult;
+
+        private Row(BenchmarkConfig config, BenchmarkResult result) {
+            mConfig = config;
+            mResult = result;
+        }
+
+        public BenchmarkConfig getConfig() {
+            return mConfig;
+        }
+
+        public BenchmarkResult getResult() {
+            return mResult;
+        }
+
+        public long getMessagesPerSecond() {
+            long executionTime = Math.max(mResult.getExecutionTime(), 1);
+            return mResult.getNumOfReceivedMessages() * 1000L / executionTime;
+        }
+
+        private String[] toCells() {
+            return new String[] {
+                    String.valueOf(mConfig.getWorkerMode()),
+                    String.valueOf(mConfig.getNumOfMessages()),
+                    String.valueOf(mConfig.getBlockingQueueCapacity()),
+                    String.valueOf(mConfig.getNumOfProducers()),
+                    String.valueOf(mConfig.getNumOfConsumers()),
+                    String.valueOf(mConfig.getProducerDelayMs()),
+                    String.valueOf(mConfig.getPayloadSize()),
+                    String.valueOf(mConfig.getWarmupIterations()),
+                    String.valueOf(mResult.getExecutionTime()),
+                    String.valueOf(mResult.getNumOfReceivedMessages()),
+                    String.valueOf(getMessagesPerSecond())
+            };
+        }
+    }
+
+    private final List<Row> mRows = new ArrayList<>();
+
+    void addRow(BenchmarkConfig config, BenchmarkResult result) {
+        if (config == null || result == null) {
+            throw new NullPointerException("config and result are required");
+        }
+        mRows.add(new Row(config, result));
+    }
+
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(mRows);
+    }
+
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder();
+        appendCsvLine(sb, COLUMNS);
+        for (Row row : mRows) {
+            appendCsvLine(sb, row.toCells());
+        }
+        return sb.toString();
+    }
+
+    private static void appendCsvLine(StringBuilder sb, String[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(cells[i]);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * @return the table as aligned plain text
+     */
+    @Override
+    public String toString() {
+        List<String[]> lines = new ArrayList<>();
+        lines.add(COLUMNS);
+        for (Row row : mRows) {
+            lines.add(row.toCells());
+        }
+
+        int[] widths = new int[COLUMNS.length];
+        for (String[] line : lines) {
+            for (int i = 0; i < line.length; i++) {
+                widths[i] = Math.max(widths[i], line[i].length());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String[] line : lines) {
+            for (int i = 0; i < line.length; i++) {
+                if (i > 0) {
+                    sb.append("  ");
+                }
+                for (int pad = line[i].length(); pad < widths[i]; pad++) {
+                    sb.append(' ');
+                }
+                sb.append(line[i]);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.techyourchance.multithreading.common.benchmark;
+
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Base result of the producer-consumer benchmarks that pass messages through a blocking queue.
+ * Designs extend it with their own measurements.
+ */
+public class QueueBenchmarkResult implements BenchmarkResult {
+
+    private final long mExecutionTime;
+    private final int mNumOfReceivedMessages;
+    private final @Nullable QueueStatistics.Snapshot mQueueStatistics;
+
+    public QueueBenchmarkResult(long executionTime,
+                                int numOfReceivedMessages,
+                                @Nullable QueueStatistics.Snapshot queueStatistics) {
+        mExecutionTime = executionTime;
+        mNumOfReceivedMessages = numOfReceivedMessages;
+        mQueueStatistics = queueStatistics;
+    }
+
+    @Override
+    public long getExecutionTime() {
+        return mExecutionTime;
+    }
+
+    @Override
+    public int getNumOfReceivedMessages() {
+        return mNumOfReceivedMessages;
+    }
+
+    /**
+     * @return statistics of the blocking queue, or null if they weren't collected
+     */
+    @Nullable
+    public QueueStatistics.Snapshot getQueueStatistics() {
+        return mQueueStatistics;
+    }
+}
@@ -0,0 +1,536 @@
+package com.techyourchance.multithreading.common.blockingqueue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Base class of bounded, array-backed blocking queues. Takes care of locking, waiting and
+ * circular indexing, while subclasses provide the storage. This lets primitive-specialized
+ * subclasses keep their elements in primitive arrays and avoid boxing on their primitive API.
+ * <p>
+ * Implements the full {@link BlockingQueue} contract, so it can back e.g. ThreadPoolExecutor.
+ * <p>
+ * Optionally collects {@link QueueStatistics}; see {@link #enableStatistics()}.
+ */
+public abstract class BoundedBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    protected final ReentrantLock mLock;
+    private final Condition mNotEmpty;
+    private final Condition mNotFull;
+
+    private final int mCapacity;
+
+    private int mTakeIndex = 0;
+    private int mPutIndex = 0;
+    private int mCount = 0;
+
+    private QueueStatistics mStatistics; // guarded by mLock
+
+    protected BoundedBlockingQueue(int capacity, boolean fair) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        mCapacity = capacity;
+        mLock = new ReentrantLock(fair);
+        mNotEmpty = mLock.newCondition();
+        mNotFull = mLock.newCondition();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // storage hooks; always called with the lock held
+
+    protected abstract void storeElement(int index, E element);
+
+    protected abstract E loadElement(int index);
+
+    /**
+     * Release the element at the given index (e.g. null out object reference).
+     */
+    protected abstract void clearElement(int index);
+
+    protected abstract void moveElement(int fromIndex, int toIndex);
+
+    protected abstract boolean elementEquals(int index, Object o);
+
+    // ---------------------------------------------------------------------------------------------
+    // slots management for subclasses; lock must be held
+
+    /**
+     * Wait while the queue is full.
+     */
+    protected final void awaitNotFull() throws InterruptedException {
+        if (mCount == mCapacity) {
+            long startNanos = mStatistics != null ? System.nanoTime() : 0;
+            do {
+                mNotFull.await();
+            } while (mCount == mCapacity);
+            if (mStatistics != null) {
+                mStatistics.onPutBlocked(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /**
+     * Wait while the queue is full, but no longer than the specified time.
+     *
+     * @return false if the waiting time elapsed and the queue is still full
+     */
+    protected final boolean awaitNotFull(long nanos) throws InterruptedException {
+        if (mCount == mCapacity) {
+            long startNanos = mStatistics != null ? System.nanoTime() : 0;
+            do {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = mNotFull.awaitNanos(nanos);
+            } while (mCount == mCapacity);
+            if (mStatistics != null) {
+                mStatistics.onPutBlocked(System.nanoTime() - startNanos);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wait while the queue is empty.
+     */
+    protected final void awaitNotEmpty() throws InterruptedException {
+        if (mCount == 0) {
+            long startNanos = mStatistics != null ? System.nanoTime() : 0;
+            do {
+                mNotEmpty.await();
+            } while (mCount == 0);
+            if (mStatistics != null) {
+                mStatistics.onTakeBlocked(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /**
+     * Wait while the queue is empty, but no longer than the specified time.
+     *
+     * @return false if the waiting time elapsed and the queue is still empty
+     */
+    protected final boolean awaitNotEmpty(long nanos) throws InterruptedException {
+        if (mCount == 0) {
+            long startNanos = mStatistics != null ? System.nanoTime() : 0;
+            do {
+                if (nanos <= 0L) {
+                    return false;
+                }
+                nanos = mNotEmpty.awaitNanos(nanos);
+            } while (mCount == 0);
+            if (mStatistics != null) {
+                mStatistics.onTakeBlocked(System.nanoTime() - startNanos);
+            }
+        }
+        return true;
+    }
+
+    protected final boolean isFullLocked() {
+        return mCount == mCapacity;
+    }
+
+    protected final boolean isEmptyLocked() {
+        return mCount == 0;
+    }
+
+    /**
+     * Claim the tail slot for a new element. The queue must not be full.
+     *
+     * @return index of the slot the caller must store the new element into
+     */
+    protected final int enqueueIndex() {
+        int index = mPutIndex;
+        if (++mPutIndex == mCapacity) {
+            mPutIndex = 0;
+        }
+        mCount++;
+        if (mStatistics != null) {
+            mStatistics.onPut(mCount);
+        }
+        mNotEmpty.signal();
+        return index;
+    }
+
+    /**
+     * Release the head slot. The queue must not be empty.
+     *
+     * @return index of the slot the caller must load the head element from (and then clear)
+     */
+    protected final int dequeueIndex() {
+        int index = mTakeIndex;
+        if (++mTakeIndex == mCapacity) {
+            mTakeIndex = 0;
+        }
+        mCount--;
+        if (mStatistics != null) {
+            mStatistics.onTake(mCount);
+        }
+        mNotFull.signal();
+        return index;
+    }
+
+    protected final int headIndex() {
+        return mTakeIndex;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // statistics
+
+    /**
+     * Start collecting {@link QueueStatistics}. Statistics are disabled by default, in which case
+     * the only overhead is a null check per operation.
+     */
+    public void enableStatistics() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            if (mStatistics == null) {
+                mStatistics = new QueueStatistics(mCapacity);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void resetStatistics() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            if (mStatistics != null) {
+                mStatistics.reset();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return snapshot of the collected statistics, or null if statistics weren't enabled
+     */
+    public QueueStatistics.Snapshot getStatisticsSnapshot() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            return mStatistics == null ? null : mStatistics.getSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // BlockingQueue
+
+    /**
+     * Inserts the specified element into this queue, waiting if necessary
+     * for space to become available.
+     *
+     * @param e the element to add
+     */
+    @Override
+    public void put(E e) throws InterruptedException {
+        checkNotNull(e);
+        final ReentrantLock lock = mLock;
+        lock.lockInterruptibly();
+        try {
+            awaitNotFull();
+            storeElement(enqueueIndex(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        checkNotNull(e);
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            if (isFullLocked()) {
+                return false;
+            }
+            storeElement(enqueueIndex(), e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(e);
+        final ReentrantLock lock = mLock;
+        lock.lockInterruptibly();
+        try {
+            if (!awaitNotFull(unit.toNanos(timeout))) {
+                return false;
+            }
+            storeElement(enqueueIndex(), e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if necessary
+     * until an element becomes available.
+     *
+     * @return the head of this queue
+     */
+    @Override
+    public E take() throws InterruptedException {
+        final ReentrantLock lock = mLock;
+        lock.lockInterruptibly();
+        try {
+            awaitNotEmpty();
+            return dequeueElement();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            return isEmptyLocked() ? null : dequeueElement();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        final ReentrantLock lock = mLock;
+        lock.lockInterruptibly();
+        try {
+            if (!awaitNotEmpty(unit.toNanos(timeout))) {
+                return null;
+            }
+            return dequeueElement();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            return isEmptyLocked() ? null : loadElement(mTakeIndex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            return mCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return mCapacity;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            return mCapacity - mCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            for (int i = 0, index = mTakeIndex; i < mCount; i++, index = nextIndex(index)) {
+                if (elementEquals(index, o)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            for (int i = 0, index = mTakeIndex; i < mCount; i++, index = nextIndex(index)) {
+                if (elementEquals(index, o)) {
+                    removeAt(index);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            while (!isEmptyLocked()) {
+                clearElement(dequeueIndex());
+            }
+            mNotFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkNotNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException("can't drain queue into itself");
+        }
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && !isEmptyLocked()) {
+                c.add(dequeueElement());
+                drained++;
+            }
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            Object[] result = new Object[mCount];
+            for (int i = 0, index = mTakeIndex; i < mCount; i++, index = nextIndex(index)) {
+                result[i] = loadElement(index);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a weakly consistent iterator over a snapshot of this queue.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new SnapshotIterator(toArray());
+    }
+
+    private E dequeueElement() {
+        int index = dequeueIndex();
+        E element = loadElement(index);
+        clearElement(index);
+        return element;
+    }
+
+    private void removeAt(int removeIndex) {
+        if (removeIndex == mTakeIndex) {
+            clearElement(dequeueIndex());
+            return;
+        }
+        // shift the subsequent elements one slot towards the head
+        int index = removeIndex;
+        while (true) {
+            int next = nextIndex(index);
+            if (next != mPutIndex) {
+                moveElement(next, index);
+                index = next;
+            } else {
+                clearElement(index);
+                mPutIndex = index;
+                break;
+            }
+        }
+        mCount--;
+        mNotFull.signal();
+    }
+
+    private int nextIndex(int index) {
+        return ++index == mCapacity ? 0 : index;
+    }
+
+    private static void checkNotNull(Object o) {
+        if (o == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    private class SnapshotIterator implements Iterator<E> {
+
+        private final Object[] mSnapshot;
+        private int mCursor = 0;
+        private int mLastReturned = -1;
+
+        private SnapshotIterator(Object[] snapshot) {
+            mSnapshot = snapshot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return mCursor < mSnapshot.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            mLastReturned = mCursor++;
+            return (E) mSnapshot[mLastReturned];
+        }
+
+        @Override
+        public void remove() {
+            if (mLastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            BoundedBlockingQueue.this.remove(mSnapshot[mLastReturned]);
+            mLastReturned = -1;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.techyourchance.multithreading.common.blockingqueue;
+
+/**
+ * Bounded blocking queue of objects.
+ */
+public class MyBlockingQueue<E> extends BoundedBlockingQueue<E> {
+
+    private final Object[] mElements;
+
+    public MyBlockingQueue(int capacity) {
+        this(capacity, false);
+    }
+
+    public MyBlockingQueue(int capacity, boolean fair) {
+        super(capacity, fair);
+        mElements = new Object[capacity];
+    }
+
+    @Override
+    protected void storeElement(int index, E element) {
+        mElements[index] = element;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected E loadElement(int index) {
+        return (E) mElements[index];
+    }
+
+    @Override
+    protected void clearElement(int index) {
+        mElements[index] = null;
+    }
+
+    @Override
+    protected void moveElement(int fromIndex, int toIndex) {
+        mElements[toIndex] = mElements[fromIndex];
+    }
+
+    @Override
+    protected boolean elementEquals(int index, Object o) {
+        return o.equals(mElements[index]);
+    }
+}
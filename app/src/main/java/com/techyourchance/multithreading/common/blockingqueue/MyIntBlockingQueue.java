@@ -0,0 +1,80 @@
+package com.techyourchance.multithreading.common.blockingqueue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded blocking queue of int values. Elements are stored in int[], and putInt()/takeInt()
+ * don't box. The methods inherited from BlockingQueue remain usable, but box the elements.
+ */
+public class MyIntBlockingQueue extends PrimitiveBlockingQueue<Integer> {
+
+    private final int[] mElements;
+
+    public MyIntBlockingQueue(int capacity) {
+        this(capacity, false);
+    }
+
+    public MyIntBlockingQueue(int capacity, boolean fair) {
+        super(capacity, fair);
+        mElements = new int[capacity];
+    }
+
+    /**
+     * Inserts the specified element into this queue, waiting if necessary
+     * for space to become available.
+     *
+     * @param number the element to add
+     */
+    public void putInt(int number) throws InterruptedException {
+        putValue(number);
+    }
+
+    /**
+     * Inserts the specified element into this queue if it is possible to do so immediately.
+     *
+     * @return false if the queue is full
+     */
+    public boolean offerInt(int number) {
+        return offerValue(number);
+    }
+
+    /**
+     * Inserts the specified element into this queue, waiting up to the specified time
+     * for space to become available.
+     *
+     * @return false if the waiting time elapsed before space became available
+     */
+    public boolean offerInt(int number, long timeout, TimeUnit unit) throws InterruptedException {
+        return offerValue(number, timeout, unit);
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if necessary
+     * until an element becomes available.
+     *
+     * @return the head of this queue
+     */
+    public int takeInt() throws InterruptedException {
+        return (int) takeValue();
+    }
+
+    @Override
+    protected void storeValue(int index, long value) {
+        mElements[index] = (int) value;
+    }
+
+    @Override
+    protected long loadValue(int index) {
+        return mElements[index];
+    }
+
+    @Override
+    protected Integer box(long value) {
+        return (int) value;
+    }
+
+    @Override
+    protected long unbox(Integer element) {
+        return element;
+    }
+}
@@ -0,0 +1,80 @@
+package com.techyourchance.multithreading.common.blockingqueue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded blocking queue of long values. Elements are stored in long[], and putLong()/takeLong()
+ * don't box. The methods inherited from BlockingQueue remain usable, but box the elements.
+ */
+public class MyLongBlockingQueue extends PrimitiveBlockingQueue<Long> {
+
+    private final long[] mElements;
+
+    public MyLongBlockingQueue(int capacity) {
+        this(capacity, false);
+    }
+
+    public MyLongBlockingQueue(int capacity, boolean fair) {
+        super(capacity, fair);
+        mElements = new long[capacity];
+    }
+
+    /**
+     * Inserts the specified element into this queue, waiting if necessary
+     * for space to become available.
+     *
+     * @param number the element to add
+     */
+    public void putLong(long number) throws InterruptedException {
+        putValue(number);
+    }
+
+    /**
+     * Inserts the specified element into this queue if it is possible to do so immediately.
+     *
+     * @return false if the queue is full
+     */
+    public boolean offerLong(long number) {
+        return offerValue(number);
+    }
+
+    /**
+     * Inserts the specified element into this queue, waiting up to the specified time
+     * for space to become available.
+     *
+     * @return false if the waiting time elapsed before space became available
+     */
+    public boolean offerLong(long number, long timeout, TimeUnit unit) throws InterruptedException {
+        return offerValue(number, timeout, unit);
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if necessary
+     * until an element becomes available.
+     *
+     * @return the head of this queue
+     */
+    public long takeLong() throws InterruptedException {
+        return takeValue();
+    }
+
+    @Override
+    protected void storeValue(int index, long value) {
+        mElements[index] = value;
+    }
+
+    @Override
+    protected long loadValue(int index) {
+        return mElements[index];
+    }
+
+    @Override
+    protected Long box(long value) {
+        return value;
+    }
+
+    @Override
+    protected long unbox(Long element) {
+        return element;
+    }
+}
@@ -0,0 +1,129 @@
+package com.techyourchance.multithreading.common.blockingqueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Base class of bounded blocking queues that store primitive values. Implements the blocking
+ * operations once, on long values, so that subclasses only provide access to their primitive
+ * array slots and expose typed wrappers (e.g. putInt()/takeInt()) that don't box.
+ * <p>
+ * The methods inherited from BlockingQueue remain usable, but box the elements.
+ */
+public abstract class PrimitiveBlockingQueue<E> extends BoundedBlockingQueue<E> {
+
+    protected PrimitiveBlockingQueue(int capacity, boolean fair) {
+        super(capacity, fair);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // primitive storage hooks; always called with the lock held
+
+    protected abstract void storeValue(int index, long value);
+
+    protected abstract long loadValue(int index);
+
+    protected abstract E box(long value);
+
+    protected abstract long unbox(E element);
+
+    // ---------------------------------------------------------------------------------------------
+    // blocking operations on primitive values
+
+    /**
+     * Inserts the specified value into this queue, waiting if necessary
+     * for space to become available.
+     */
+    protected final void putValue(long value) throws InterruptedException {
+        final ReentrantLock lock = mLock;
+        lock.lockInterruptibly();
+        try {
+            awaitNotFull();
+            storeValue(enqueueIndex(), value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the specified value into this queue if it is possible to do so immediately.
+     *
+     * @return false if the queue is full
+     */
+    protected final boolean offerValue(long value) {
+        final ReentrantLock lock = mLock;
+        lock.lock();
+        try {
+            if (isFullLocked()) {
+                return false;
+            }
+            storeValue(enqueueIndex(), value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the specified value into this queue, waiting up to the specified time
+     * for space to become available.
+     *
+     * @return false if the waiting time elapsed before space became available
+     */
+    protected final boolean offerValue(long value, long timeout, TimeUnit unit) throws InterruptedException {
+        final ReentrantLock lock = mLock;
+        lock.lockInterruptibly();
+        try {
+            if (!awaitNotFull(unit.toNanos(timeout))) {
+                return false;
+            }
+            storeValue(enqueueIndex(), value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if necessary
+     * until an element becomes available.
+     */
+    protected final long takeValue() throws InterruptedException {
+        final ReentrantLock lock = mLock;
+        lock.lockInterruptibly();
+        try {
+            awaitNotEmpty();
+            return loadValue(dequeueIndex());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // BoundedBlockingQueue storage hooks, implemented on top of the primitive ones
+
+    @Override
+    protected final void storeElement(int index, E element) {
+        storeValue(index, unbox(element));
+    }
+
+    @Override
+    protected final E loadElement(int index) {
+        return box(loadValue(index));
+    }
+
+    @Override
+    protected final void clearElement(int index) {
+        // primitives don't retain references
+    }
+
+    @Override
+    protected final void moveElement(int fromIndex, int toIndex) {
+        storeValue(toIndex, loadValue(fromIndex));
+    }
+
+    @Override
+    protected final boolean elementEquals(int index, Object o) {
+        return loadElement(index).equals(o);
+    }
+}
@@ -0,0 +1,165 @@
+package com.techyourchance.multithreading.common.blockingqueue;
+
+import com.techyourchance.multithreading.common.metrics.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters and histograms of {@link BoundedBlockingQueue} operations. All the recording methods
+ * are called by the queue with its lock held; wait times are measured only when a put or a take
+ * actually blocks, so the fast path costs a couple of increments.
+ */
+public class QueueStatistics {
+
+    private static final int MAX_NUM_OF_OCCUPANCY_BUCKETS = 64;
+
+    private final Histogram mPutWaitTimeNanos = new Histogram();
+    private final Histogram mTakeWaitTimeNanos = new Histogram();
+
+    private final long[] mOccupancySamples;
+
+    private long mNumOfPuts;
+    private long mNumOfTakes;
+    private long mNumOfBlockedPuts;
+    private long mNumOfBlockedTakes;
+
+    QueueStatistics(int capacity) {
+        mOccupancySamples = new long[Math.min(capacity + 1, MAX_NUM_OF_OCCUPANCY_BUCKETS)];
+    }
+
+    void onPutBlocked(long waitTimeNanos) {
+        mNumOfBlockedPuts++;
+        mPutWaitTimeNanos.record(waitTimeNanos);
+    }
+
+    void onTakeBlocked(long waitTimeNanos) {
+        mNumOfBlockedTakes++;
+        mTakeWaitTimeNanos.record(waitTimeNanos);
+    }
+
+    void onPut(int sizeAfterPut) {
+        mNumOfPuts++;
+        sampleOccupancy(sizeAfterPut);
+    }
+
+    void onTake(int sizeAfterTake) {
+        mNumOfTakes++;
+        sampleOccupancy(sizeAfterTake);
+    }
+
+    private void sampleOccupancy(int size) {
+        mOccupancySamples[Math.min(size, mOccupancySamples.length - 1)]++;
+    }
+
+    void reset() {
+        mPutWaitTimeNanos.reset();
+        mTakeWaitTimeNanos.reset();
+        for (int i = 0; i < mOccupancySamples.length; i++) {
+            mOccupancySamples[i] = 0;
+        }
+        mNumOfPuts = 0;
+        mNumOfTakes = 0;
+        mNumOfBlockedPuts = 0;
+        mNumOfBlockedTakes = 0;
+    }
+
+    Snapshot getSnapshot() {
+        return new Snapshot(
+                mNumOfPuts,
+                mNumOfTakes,
+                mNumOfBlockedPuts,
+                mNumOfBlockedTakes,
+                mPutWaitTimeNanos.getSnapshot(),
+                mTakeWaitTimeNanos.getSnapshot(),
+                mOccupancySamples.clone()
+        );
+    }
+
+    public static class Snapshot {
+
+        private final long mNumOfPuts;
+        private final long mNumOfTakes;
+        private final long mNumOfBlockedPuts;
+        private final long mNumOfBlockedTakes;
+        private final Histogram.Snapshot mPutWaitTimeNanos;
+        private final Histogram.Snapshot mTakeWaitTimeNanos;
+        private final long[] mOccupancySamples;
+
+        private Snapshot(long numOfPuts,
+                         long numOfTakes,
+                         long numOfBlockedPuts,
+                         long numOfBlockedTakes,
+                         Histogram.Snapshot putWaitTimeNanos,
+                         Histogram.Snapshot takeWaitTimeNanos,
+                         long[] occupancySamples) {
+            mNumOfPuts = numOfPuts;
+            mNumOfTakes = numOfTakes;
+            mNumOfBlockedPuts = numOfBlockedPuts;
+            mNumOfBlockedTakes = numOfBlockedTakes;
+            mPutWaitTimeNanos = putWaitTimeNanos;
+            mTakeWaitTimeNanos = takeWaitTimeNanos;
+            mOccupancySamples = occupancySamples;
+        }
+
+        public long getNumOfPuts() {
+            return mNumOfPuts;
+        }
+
+        public long getNumOfTakes() {
+            return mNumOfTakes;
+        }
+
+        public long getNumOfBlockedPuts() {
+            return mNumOfBlockedPuts;
+        }
+
+        public long getNumOfBlockedTakes() {
+            return mNumOfBlockedTakes;
+        }
+
+        /**
+         * Time puts spent waiting for the queue to become non-full (blocked puts only).
+         */
+        public Histogram.Snapshot getPutWaitTimeNanos() {
+            return mPutWaitTimeNanos;
+        }
+
+        /**
+         * Time takes spent waiting for the queue to become non-empty (blocked takes only).
+         */
+        public Histogram.Snapshot getTakeWaitTimeNanos() {
+            return mTakeWaitTimeNanos;
+        }
+
+        /**
+         * Queue size sampled after each put and take: element i holds the number of samples
+         * with size i; the last element also aggregates all the larger sizes.
+         */
+        public long[] getOccupancySamples() {
+            return mOccupancySamples.clone();
+        }
+
+        public double getMeanOccupancy() {
+            long numOfSamples = 0;
+            long sum = 0;
+            for (int i = 0; i < mOccupancySamples.length; i++) {
+                numOfSamples += mOccupancySamples[i];
+                sum += i * mOccupancySamples[i];
+            }
+            return numOfSamples == 0 ? 0 : (double) sum / numOfSamples;
+        }
+
+        @Override
+        public String toString() {
+            return "Blocked puts: " + mNumOfBlockedPuts + "/" + mNumOfPuts
+                    + " (avg wait " + toMicros(mPutWaitTimeNanos.getMean()) + "us)\n"
+                    + "Blocked takes: " + mNumOfBlockedTakes + "/" + mNumOfTakes
+                    + " (avg wait " + toMicros(mTakeWaitTimeNanos.getMean()) + "us)\n"
+                    + "Avg occupancy: " + Math.round(getMeanOccupancy() * 100) / 100d;
+        }
+
+        private static long toMicros(double nanos) {
+            return TimeUnit.NANOSECONDS.toMicros((long) nanos);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.techyourchance.multithreading.common.counter;
+
+import com.techyourchance.multithreading.common.atomic.PaddedAtomicLong;
+
+class AtomicCounter implements Counter {
+
+    private final PaddedAtomicLong mCount = new PaddedAtomicLong();
+
+    @Override
+    public void increment() {
+        mCount.incrementAndGet();
+    }
+
+    @Override
+    public long get() {
+        return mCount.get();
+    }
+
+    @Override
+    public void reset() {
+        mCount.set(0);
+    }
+}
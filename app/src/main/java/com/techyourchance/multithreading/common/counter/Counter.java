@@ -0,0 +1,21 @@
+package com.techyourchance.multithreading.common.counter;
+
+/**
+ * Counter that many threads increment concurrently. See {@link CounterType} for the available
+ * implementations and their trade-offs.
+ */
+public interface Counter {
+
+    void increment();
+
+    /**
+     * @return the current count; while other threads increment, the count is not necessarily
+     *         a value that the counter held at any single instant
+     */
+    long get();
+
+    /**
+     * Must not be called while other threads increment.
+     */
+    void reset();
+}
@@ -0,0 +1,22 @@
+package com.techyourchance.multithreading.common.counter;
+
+public enum CounterType {
+    /**
+     * Read-modify-write of a volatile field: cheap, but not atomic, so increments get lost.
+     */
+    VOLATILE,
+    /**
+     * A long guarded by a lock: correct, but contending threads block on the lock.
+     */
+    SYNCHRONIZED,
+    /**
+     * A single atomically incremented long: correct and lock-free, but all the threads contend
+     * on the same cache line.
+     */
+    ATOMIC,
+    /**
+     * LongAdder-style cells that threads increment independently and that are summed on read:
+     * increments scale with the number of threads at the cost of slower reads.
+     */
+    STRIPED
+}
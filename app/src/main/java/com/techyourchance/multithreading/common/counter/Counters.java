@@ -0,0 +1,21 @@
+package com.techyourchance.multithreading.common.counter;
+
+public class Counters {
+
+    private Counters() {}
+
+    public static Counter newCounter(CounterType counterType) {
+        switch (counterType) {
+            case VOLATILE:
+                return new VolatileCounter();
+            case SYNCHRONIZED:
+                return new SynchronizedCounter();
+            case ATOMIC:
+                return new AtomicCounter();
+            case STRIPED:
+                return new StripedCounter();
+            default:
+                throw new IllegalArgumentException("unsupported counter type: " + counterType);
+        }
+    }
+}
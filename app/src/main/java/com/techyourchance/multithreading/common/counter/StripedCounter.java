@@ -0,0 +1,84 @@
+package com.techyourchance.multithreading.common.counter;
+
+import com.techyourchance.multithreading.common.atomic.PaddedAtomicLong;
+import com.techyourchance.multithreading.common.math.MathUtils;
+
+/**
+ * Simplified {@code java.util.concurrent.atomic.LongAdder} (which isn't available before API 24):
+ * each thread increments one of several padded cells, picked by a per-thread probe. When the CAS on
+ * the cell fails because another thread got there first, the thread moves to a different cell for
+ * its subsequent increments, so contending threads spread over the cells. Unlike LongAdder, the
+ * number of cells is fixed up front.
+ */
+class StripedCounter implements Counter {
+
+    private static final ThreadLocal<int[]> sProbe = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            // an array, so that the probe can be updated without another ThreadLocal lookup
+            return new int[] {mix((int) Thread.currentThread().getId())};
+        }
+    };
+
+    private final PaddedAtomicLong[] mCells;
+    private final int mCellIndexMask;
+
+    StripedCounter() {
+        // twice the cores, so that threads rarely keep colliding after they've moved
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    StripedCounter(int numOfCells) {
+        mCells = new PaddedAtomicLong[MathUtils.ceilToPowerOfTwo(numOfCells)];
+        for (int i = 0; i < mCells.length; i++) {
+            mCells[i] = new PaddedAtomicLong();
+        }
+        mCellIndexMask = mCells.length - 1;
+    }
+
+    @Override
+    public void increment() {
+        int[] probe = sProbe.get();
+        PaddedAtomicLong cell = mCells[probe[0] & mCellIndexMask];
+        long count = cell.get();
+        if (!cell.compareAndSet(count, count + 1)) {
+            probe[0] = advanceProbe(probe[0]);
+            cell.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long get() {
+        long sum = 0;
+        for (PaddedAtomicLong cell : mCells) {
+            sum += cell.get();
+        }
+        return sum;
+    }
+
+    @Override
+    public void reset() {
+        for (PaddedAtomicLong cell : mCells) {
+            cell.set(0);
+        }
+    }
+
+    private static int mix(int seed) {
+        // MurmurHash3 finalizer: consecutive thread IDs map to unrelated cells
+        seed ^= seed >>> 16;
+        seed *= 0x85ebca6b;
+        seed ^= seed >>> 13;
+        seed *= 0xc2b2ae35;
+        seed ^= seed >>> 16;
+        // xorshift gets stuck at zero
+        return seed == 0 ? 1 : seed;
+    }
+
+    private static int advanceProbe(int probe) {
+        // xorshift, as in LongAdder
+        probe ^= probe << 13;
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        return probe;
+    }
+}
@@ -0,0 +1,30 @@
+package com.techyourchance.multithreading.common.counter;
+
+class SynchronizedCounter implements Counter {
+
+    private final Object LOCK = new Object();
+
+    // guarded by LOCK, which provides both the atomicity and the visibility
+    private long mCount;
+
+    @Override
+    public void increment() {
+        synchronized (LOCK) {
+            mCount++;
+        }
+    }
+
+    @Override
+    public long get() {
+        synchronized (LOCK) {
+            return mCount;
+        }
+    }
+
+    @Override
+    public void reset() {
+        synchronized (LOCK) {
+            mCount = 0;
+        }
+    }
+}
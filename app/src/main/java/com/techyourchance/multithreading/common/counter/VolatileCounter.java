@@ -0,0 +1,27 @@
+package com.techyourchance.multithreading.common.counter;
+
+import com.techyourchance.multithreading.common.atomic.PaddedAtomicLong;
+
+/**
+ * Deliberately broken: volatile guarantees visibility, but not atomicity of read-modify-write, so
+ * concurrent increments overwrite each other. Kept as the baseline of the atomicity demonstration.
+ */
+class VolatileCounter implements Counter {
+
+    private final PaddedAtomicLong mCount = new PaddedAtomicLong();
+
+    @Override
+    public void increment() {
+        mCount.set(mCount.get() + 1);
+    }
+
+    @Override
+    public long get() {
+        return mCount.get();
+    }
+
+    @Override
+    public void reset() {
+        mCount.set(0);
+    }
+}
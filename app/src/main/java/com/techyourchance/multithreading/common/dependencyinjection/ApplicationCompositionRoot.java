@@ -6,43 +6,182 @@ import android.util.Log;
 
 import com.techyourchance.fragmenthelper.FragmentContainerWrapper;
 import com.techyourchance.fragmenthelper.FragmentHelper;
+import com.techyourchance.multithreading.DefaultConfiguration;
 import com.techyourchance.multithreading.common.ScreensNavigator;
 import com.techyourchance.multithreading.common.ToolbarManipulator;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.execution.CoroutineDispatchers;
+import com.techyourchance.multithreading.common.execution.ExecutionMode;
+import com.techyourchance.multithreading.common.execution.ExecutionService;
+import com.techyourchance.multithreading.common.execution.InstrumentedThreadPoolExecutor;
+import com.techyourchance.multithreading.common.execution.PriorityExecutor;
+import com.techyourchance.multithreading.common.execution.TaskExecutors;
+import com.techyourchance.multithreading.common.execution.ThreadPoolConfig;
+import com.techyourchance.multithreading.common.execution.ThreadPoolFactory;
+import com.techyourchance.multithreading.common.looper.LooperWatchdog;
+import com.techyourchance.multithreading.common.tracing.TaskTracer;
 
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import androidx.fragment.app.FragmentActivity;
 
 public class ApplicationCompositionRoot {
 
-    private ThreadPoolExecutor mThreadPoolExecutor;
-
-    public ThreadPoolExecutor getThreadPool() {
-        if (mThreadPoolExecutor == null) {
-            mThreadPoolExecutor = new ThreadPoolExecutor(
-                    10,
-                    Integer.MAX_VALUE,
-                    10,
-                    TimeUnit.SECONDS,
-                    new SynchronousQueue<>(),
-                    new ThreadFactory() {
-                        @Override
-                        public Thread newThread(Runnable r) {
-                            Log.d("ThreadFactory",
-                                  String.format("size %s, active count %s, queue remaining %s",
-                                                mThreadPoolExecutor.getPoolSize(),
-                                                mThreadPoolExecutor.getActiveCount(),
-                                                mThreadPoolExecutor.getQueue().remainingCapacity()
-                                  )
-                            );
-                            return new Thread(r);
-                        }
-                    }
-            );
+    private final BenchmarkConfig mBenchmarkConfig = BenchmarkConfig.defaultConfig();
+
+    private final ThreadPoolFactory mThreadPoolFactory;
+
+    private final TaskTracer mTaskTracer = newTaskTracer();
+
+    private final LooperWatchdog mLooperWatchdog = new LooperWatchdog(
+            DefaultConfiguration.DEFAULT_LOOPER_STALL_THRESHOLD_MS,
+            stallReport -> Log.w("LooperWatchdog", stallReport.toString(), stallReport.toThrowable())
+    );
+
+    private final CoroutineDispatchers mCoroutineDispatchers = new CoroutineDispatchers(
+            DefaultConfiguration.DEFAULT_BLOCKING_DISPATCHER_PARALLELISM,
+            DefaultConfiguration.DEFAULT_CPU_DISPATCHER_PARALLELISM,
+            DefaultConfiguration.DEFAULT_COLLECT_THREAD_POOL_METRICS
+    );
+
+    private final Object LOCK = new Object();
+
+    // volatile is required for double-checked locking: without it, other threads could see a
+    // non-null reference to a service whose construction isn't visible to them yet
+    private volatile ExecutionService mExecutionService;
+
+    // guarded by LOCK
+    private int mNumOfExecutionServiceUsers;
+
+    // guarded by LOCK; created on demand, because the mode can be changed at runtime
+    private final Map<ExecutionMode, Executor> mThreadPerTaskExecutors =
+            new EnumMap<>(ExecutionMode.class);
+
+    public ApplicationCompositionRoot() {
+        this(new ThreadPoolFactory(ThreadPoolConfig.defaultConfig()));
+    }
+
+    /**
+     * @param threadPoolFactory creates the pools of the execution service; tests pass one that
+     *                          counts the created pools
+     */
+    ApplicationCompositionRoot(ThreadPoolFactory threadPoolFactory) {
+        mThreadPoolFactory = threadPoolFactory;
+    }
+
+    public BenchmarkConfig getBenchmarkConfig() {
+        return mBenchmarkConfig;
+    }
+
+    public TaskTracer getTaskTracer() {
+        return mTaskTracer;
+    }
+
+    /**
+     * @return watchdog that reports stalled loopers to logcat; it samples only once started
+     */
+    public LooperWatchdog getLooperWatchdog() {
+        return mLooperWatchdog;
+    }
+
+    public CoroutineDispatchers getCoroutineDispatchers() {
+        return mCoroutineDispatchers;
+    }
+
+    /**
+     * @return thread-per-task executor of the execution mode in the default benchmark config
+     */
+    public Executor getThreadPerTaskExecutor() {
+        return getThreadPerTaskExecutor(mBenchmarkConfig.getExecutionMode());
+    }
+
+    public Executor getThreadPerTaskExecutor(ExecutionMode executionMode) {
+        synchronized (LOCK) {
+            Executor executor = mThreadPerTaskExecutors.get(executionMode);
+            if (executor == null) {
+                executor = TaskExecutors.newThreadPerTaskExecutor(executionMode);
+                mThreadPerTaskExecutors.put(executionMode, executor);
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * @return the service that owns the thread pools. After the last user released the service
+     *         with shutdown, this is the shut down service until a new user acquires it, so that
+     *         late callers see rejections instead of silently getting a different service.
+     */
+    public ExecutionService getExecutionService() {
+        ExecutionService executionService = mExecutionService;
+        if (executionService == null) {
+            synchronized (LOCK) {
+                executionService = mExecutionService;
+                if (executionService == null) {
+                    executionService = new ExecutionService(mThreadPoolFactory);
+                    mExecutionService = executionService;
+                }
+            }
         }
-        return mThreadPoolExecutor;
+        return executionService;
+    }
+
+    /**
+     * Register a user (e.g. an activity) of the execution service. If the service was shut down
+     * after its previous users had left, the next call to {@link #getExecutionService()} creates
+     * a new one.
+     */
+    public void acquireExecutionService() {
+        synchronized (LOCK) {
+            mNumOfExecutionServiceUsers++;
+            if (mExecutionService != null && mExecutionService.isShutdown()) {
+                mExecutionService = null;
+            }
+        }
+    }
+
+    /**
+     * Unregister a user of the execution service.
+     *
+     * @param shutdownIfUnused if true and no other user holds the service, shut it down: the
+     *                         submitted tasks may drain for up to the given timeout. Users that
+     *                         leave only temporarily (e.g. on configuration change) pass false.
+     */
+    public void releaseExecutionService(boolean shutdownIfUnused, long drainTimeout, TimeUnit unit) {
+        ExecutionService executionServiceToShutdown = null;
+        synchronized (LOCK) {
+            if (mNumOfExecutionServiceUsers == 0) {
+                throw new IllegalStateException("execution service released more times than acquired");
+            }
+            mNumOfExecutionServiceUsers--;
+            if (shutdownIfUnused && mNumOfExecutionServiceUsers == 0) {
+                executionServiceToShutdown = mExecutionService;
+            }
+        }
+        if (executionServiceToShutdown != null) {
+            executionServiceToShutdown.shutdown(drainTimeout, unit);
+        }
+    }
+
+    /**
+     * @return executor for tasks that might block; submitters can tag tasks with a priority
+     */
+    public PriorityExecutor getThreadPool() {
+        return getExecutionService().getPriorityExecutor();
+    }
+
+    /**
+     * @return pool for CPU-bound tasks that don't block
+     */
+    public InstrumentedThreadPoolExecutor getCpuThreadPool() {
+        return getExecutionService().getCpuThreadPool();
+    }
+
+    private static TaskTracer newTaskTracer() {
+        TaskTracer taskTracer = new TaskTracer(DefaultConfiguration.DEFAULT_TRACE_BUFFER_SIZE);
+        taskTracer.setEnabled(DefaultConfiguration.DEFAULT_TRACE_TASKS);
+        return taskTracer;
     }
 }
@@ -2,16 +2,21 @@ package com.techyourchance.multithreading.common.dependencyinjection;
 
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 
 import com.techyourchance.fragmenthelper.FragmentContainerWrapper;
 import com.techyourchance.fragmenthelper.FragmentHelper;
 import com.techyourchance.multithreading.common.ToolbarManipulator;
 import com.techyourchance.multithreading.common.ScreensNavigator;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.execution.CoroutineDispatchers;
+import com.techyourchance.multithreading.common.execution.ExecutionMode;
+import com.techyourchance.multithreading.common.execution.ExecutionService;
+import com.techyourchance.multithreading.common.execution.InstrumentedThreadPoolExecutor;
+import com.techyourchance.multithreading.common.execution.PriorityExecutor;
+import com.techyourchance.multithreading.common.looper.LooperWatchdog;
+import com.techyourchance.multithreading.common.tracing.TaskTracer;
 
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import androidx.fragment.app.FragmentActivity;
@@ -46,7 +51,54 @@ public class PresentationCompositionRoot {
         return new Handler(Looper.getMainLooper());
     }
 
-    public ThreadPoolExecutor getThreadPool() {
+    /**
+     * @return executor that runs tasks on the UI thread
+     */
+    public Executor getUiExecutor() {
+        return getUiHandler()::post;
+    }
+
+    public TaskTracer getTaskTracer() {
+        return mApplicationCompositionRoot.getTaskTracer();
+    }
+
+    public ExecutionService getExecutionService() {
+        return mApplicationCompositionRoot.getExecutionService();
+    }
+
+    public void acquireExecutionService() {
+        mApplicationCompositionRoot.acquireExecutionService();
+    }
+
+    public void releaseExecutionService(boolean shutdownIfUnused, long drainTimeout, TimeUnit unit) {
+        mApplicationCompositionRoot.releaseExecutionService(shutdownIfUnused, drainTimeout, unit);
+    }
+
+    public PriorityExecutor getThreadPool() {
         return mApplicationCompositionRoot.getThreadPool();
     }
+
+    public InstrumentedThreadPoolExecutor getCpuThreadPool() {
+        return mApplicationCompositionRoot.getCpuThreadPool();
+    }
+
+    public LooperWatchdog getLooperWatchdog() {
+        return mApplicationCompositionRoot.getLooperWatchdog();
+    }
+
+    public CoroutineDispatchers getCoroutineDispatchers() {
+        return mApplicationCompositionRoot.getCoroutineDispatchers();
+    }
+
+    public Executor getThreadPerTaskExecutor() {
+        return mApplicationCompositionRoot.getThreadPerTaskExecutor();
+    }
+
+    public Executor getThreadPerTaskExecutor(ExecutionMode executionMode) {
+        return mApplicationCompositionRoot.getThreadPerTaskExecutor(executionMode);
+    }
+
+    public BenchmarkConfig getBenchmarkConfig() {
+        return mApplicationCompositionRoot.getBenchmarkConfig();
+    }
 }
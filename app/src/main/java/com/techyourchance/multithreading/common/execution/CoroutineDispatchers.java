@@ -0,0 +1,100 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import kotlinx.coroutines.CoroutineDispatcher;
+import kotlinx.coroutines.ExecutorsKt;
+
+/**
+ * Named, bounded coroutine dispatchers backed by instrumented thread pools: one for coroutines
+ * that block (e.g. hand-offs through blocking queues) and one for CPU work. Unlike
+ * {@code Dispatchers.IO} with unlimited parallelism, a blocking workload can't create more
+ * threads than configured; coroutines that don't get a thread wait in the pool's queue.
+ * <p>
+ * The queues are unbounded because a dispatcher must never reject a continuation. Note that
+ * coroutines that block while waiting for other coroutines dispatched to the same bounded
+ * dispatcher can deadlock if these never get a thread.
+ */
+public class CoroutineDispatchers {
+
+    /**
+     * Pass as blocking parallelism to get a dispatcher that starts a thread whenever all its
+     * threads are busy, like {@code Dispatchers.IO} with unlimited parallelism.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private static final long KEEP_ALIVE_TIME_MS = 10000;
+
+    private final InstrumentedThreadPoolExecutor mBlockingThreadPool;
+    private final InstrumentedThreadPoolExecutor mCpuThreadPool;
+    private final CoroutineDispatcher mBlockingDispatcher;
+    private final CoroutineDispatcher mCpuDispatcher;
+
+    public CoroutineDispatchers(int blockingParallelism, int cpuParallelism, boolean collectMetrics) {
+        mBlockingThreadPool = newThreadPool("coroutines-blocking-", blockingParallelism, collectMetrics);
+        mCpuThreadPool = newThreadPool("coroutines-cpu-", cpuParallelism, collectMetrics);
+        mBlockingDispatcher = ExecutorsKt.from(mBlockingThreadPool);
+        mCpuDispatcher = ExecutorsKt.from(mCpuThreadPool);
+    }
+
+    /**
+     * @return dispatcher for coroutines that block their thread
+     */
+    public CoroutineDispatcher getBlockingDispatcher() {
+        return mBlockingDispatcher;
+    }
+
+    /**
+     * @return dispatcher for coroutines that keep the CPU busy or suspend, but never block
+     */
+    public CoroutineDispatcher getCpuDispatcher() {
+        return mCpuDispatcher;
+    }
+
+    public InstrumentedThreadPoolExecutor getBlockingThreadPool() {
+        return mBlockingThreadPool;
+    }
+
+    public InstrumentedThreadPoolExecutor getCpuThreadPool() {
+        return mCpuThreadPool;
+    }
+
+    /**
+     * Let the already dispatched coroutines complete and release the threads.
+     */
+    public void shutdown() {
+        mBlockingThreadPool.shutdown();
+        mCpuThreadPool.shutdown();
+    }
+
+    private static InstrumentedThreadPoolExecutor newThreadPool(String threadNamePrefix,
+                                                                int parallelism,
+                                                                boolean collectMetrics) {
+        int corePoolSize;
+        BlockingQueue<Runnable> queue;
+        if (parallelism == UNBOUNDED) {
+            corePoolSize = 0;
+            queue = new SynchronousQueue<>();
+        } else {
+            // core size equals max size: with an unbounded queue the pool never grows above core
+            corePoolSize = parallelism;
+            queue = new LinkedBlockingQueue<>();
+        }
+        InstrumentedThreadPoolExecutor threadPoolExecutor = new InstrumentedThreadPoolExecutor(
+                corePoolSize,
+                parallelism,
+                KEEP_ALIVE_TIME_MS,
+                TimeUnit.MILLISECONDS,
+                queue,
+                new NamedThreadFactory(threadNamePrefix),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        threadPoolExecutor.allowCoreThreadTimeOut(corePoolSize > 0);
+        threadPoolExecutor.setMetricsEnabled(collectMetrics);
+        return threadPoolExecutor;
+    }
+}
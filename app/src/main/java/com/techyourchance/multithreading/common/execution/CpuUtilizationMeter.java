@@ -0,0 +1,60 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures which fraction of the available cores was busy executing code of this process during
+ * a time interval. When tasks run on virtual threads, this is the utilization of the carrier
+ * threads (the default scheduler uses one carrier per core).
+ */
+public class CpuUtilizationMeter {
+
+    public static final double UNKNOWN = -1;
+
+    private long mStartCpuTimeNanos;
+    private long mStartWallTimeNanos;
+
+    public void start() {
+        mStartCpuTimeNanos = getProcessCpuTimeNanos();
+        mStartWallTimeNanos = System.nanoTime();
+    }
+
+    /**
+     * @return utilization in range [0, 1] since the last call to {@link #start()}, or
+     *         {@link #UNKNOWN} if process CPU time can't be read in this runtime
+     */
+    public double stop() {
+        long cpuTimeNanos = getProcessCpuTimeNanos();
+        long wallTimeNanos = System.nanoTime() - mStartWallTimeNanos;
+        if (cpuTimeNanos < 0 || mStartCpuTimeNanos < 0 || wallTimeNanos <= 0) {
+            return UNKNOWN;
+        }
+        int numOfCores = Runtime.getRuntime().availableProcessors();
+        double utilization = (double) (cpuTimeNanos - mStartCpuTimeNanos) / wallTimeNanos / numOfCores;
+        return Math.min(1, Math.max(0, utilization));
+    }
+
+    /**
+     * @return CPU time consumed by this process so far, or -1 if unavailable
+     */
+    private static long getProcessCpuTimeNanos() {
+        // JVM: com.sun.management.OperatingSystemMXBean#getProcessCpuTime (not available on Android)
+        try {
+            Class<?> managementFactory = Class.forName("java.lang.management.ManagementFactory");
+            Object osBean = managementFactory.getMethod("getOperatingSystemMXBean").invoke(null);
+            Class<?> sunOsBean = Class.forName("com.sun.management.OperatingSystemMXBean");
+            if (sunOsBean.isInstance(osBean)) {
+                Method getProcessCpuTime = sunOsBean.getMethod("getProcessCpuTime");
+                return (Long) getProcessCpuTime.invoke(osBean);
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // fall through to Android
+        }
+        // Android
+        try {
+            return android.os.Process.getElapsedCpuTime() * 1_000_000L;
+        } catch (LinkageError | RuntimeException e) {
+            return -1;
+        }
+    }
+}
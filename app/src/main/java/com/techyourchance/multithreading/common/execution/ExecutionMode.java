@@ -0,0 +1,13 @@
+package com.techyourchance.multithreading.common.execution;
+
+/**
+ * Kind of threads that execute the tasks of a thread-per-task executor.
+ */
+public enum ExecutionMode {
+    PLATFORM_THREAD_PER_TASK,
+    /**
+     * Requires a JVM with virtual threads (JDK 21+). Falls back to
+     * {@link #PLATFORM_THREAD_PER_TASK} when virtual threads aren't available (e.g. on Android).
+     */
+    VIRTUAL_THREAD_PER_TASK
+}
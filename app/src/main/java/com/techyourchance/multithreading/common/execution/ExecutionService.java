@@ -0,0 +1,130 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.WorkerThread;
+
+/**
+ * Owns the application's thread pools. Pool threads outlive screens, so navigating in and out
+ * of screens reuses warm threads instead of starting new ones.
+ * <p>
+ * Once shut down, an instance can't be restarted. The composition root creates a new one only
+ * when a new user acquires the service after the previous one was shut down.
+ */
+public class ExecutionService implements Executor {
+
+    private final InstrumentedThreadPoolExecutor mIoThreadPool;
+    private final InstrumentedThreadPoolExecutor mCpuThreadPool;
+    private final PriorityExecutor mPriorityExecutor;
+
+    public ExecutionService(ThreadPoolFactory threadPoolFactory) {
+        mIoThreadPool = threadPoolFactory.newIoThreadPool();
+        mCpuThreadPool = threadPoolFactory.newCpuThreadPool();
+        mPriorityExecutor = threadPoolFactory.newPriorityExecutor(mIoThreadPool);
+    }
+
+    /**
+     * @return executor that schedules tasks onto the I/O pool according to their priority
+     */
+    public PriorityExecutor getPriorityExecutor() {
+        return mPriorityExecutor;
+    }
+
+    /**
+     * @return pool for tasks that block
+     */
+    public InstrumentedThreadPoolExecutor getIoThreadPool() {
+        return mIoThreadPool;
+    }
+
+    /**
+     * @return pool for CPU-bound tasks that don't block
+     */
+    public InstrumentedThreadPoolExecutor getCpuThreadPool() {
+        return mCpuThreadPool;
+    }
+
+    /**
+     * Execute a background task that might block with {@link TaskPriority#NORMAL} priority.
+     * The task goes through {@link #getPriorityExecutor()}, so it counts against the limits of
+     * its class like any other task. Long-running tasks (e.g. looper loops) hold a pool thread and
+     * a slot of their class until they return.
+     */
+    @Override
+    public void execute(Runnable command) {
+        mPriorityExecutor.execute(command);
+    }
+
+    public boolean isShutdown() {
+        return mPriorityExecutor.isShutdown()
+                || mIoThreadPool.isShutdown()
+                || mCpuThreadPool.isShutdown();
+    }
+
+    /**
+     * Stop accepting new tasks and let the already submitted ones, including the ones still
+     * queued in {@link #getPriorityExecutor()}, drain in the background. Tasks still running
+     * after the drain timeout are interrupted.
+     * This method doesn't block.
+     */
+    public void shutdown(final long drainTimeout, final TimeUnit unit) {
+        mPriorityExecutor.shutdown();
+        mCpuThreadPool.shutdown();
+        Thread shutdownThread = new Thread(() -> {
+            try {
+                shutdownAndAwaitTermination(drainTimeout, unit);
+            } catch (InterruptedException e) {
+                shutdownNow();
+            }
+        }, "execution-service-shutdown");
+        shutdownThread.setDaemon(true);
+        shutdownThread.start();
+    }
+
+    /**
+     * Stop accepting new tasks, wait up to the drain timeout for the already submitted ones to
+     * complete, then interrupt the remaining ones.
+     * <p>
+     * The I/O pool is shut down only once the priority executor has dispatched all its queued
+     * tasks and they have completed; shutting it down earlier would reject them.
+     *
+     * @return true if all the tasks completed within the drain timeout
+     */
+    @WorkerThread
+    public boolean shutdownAndAwaitTermination(long drainTimeout, TimeUnit unit)
+            throws InterruptedException {
+        mPriorityExecutor.shutdown();
+        mCpuThreadPool.shutdown();
+
+        long deadlineNanos = System.nanoTime() + unit.toNanos(drainTimeout);
+        boolean drained = mPriorityExecutor.awaitTermination(
+                deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS
+        );
+        mIoThreadPool.shutdown();
+        drained = drained && mIoThreadPool.awaitTermination(
+                deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS
+        ) && mCpuThreadPool.awaitTermination(
+                deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS
+        );
+
+        if (!drained) {
+            shutdownNow();
+        }
+        return drained;
+    }
+
+    /**
+     * Interrupt all running tasks and discard the queued ones.
+     *
+     * @return the tasks that never started; the ones that had already reached a pool's queue
+     *         might be wrapped (see {@link InstrumentedThreadPoolExecutor})
+     */
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = mPriorityExecutor.shutdownNow();
+        tasks.addAll(mIoThreadPool.shutdownNow());
+        tasks.addAll(mCpuThreadPool.shutdownNow());
+        return tasks;
+    }
+}
@@ -0,0 +1,275 @@
+package com.techyourchance.multithreading.common.execution;
+
+import com.techyourchance.multithreading.common.metrics.Histogram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ThreadPoolExecutor} that records submitted, completed, failed and rejected tasks, time
+ * spent by tasks in the queue and their execution time.
+ * <p>
+ * While metrics are disabled, tasks are handed to the pool as-is and the only overhead is a
+ * volatile read per submission. While enabled, each task is wrapped, so {@link #getQueue()}
+ * contains wrappers rather than the submitted tasks.
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final AtomicLong mNumOfSubmittedTasks = new AtomicLong(0);
+    private final AtomicLong mNumOfCompletedTasks = new AtomicLong(0);
+    private final AtomicLong mNumOfFailedTasks = new AtomicLong(0);
+    private final AtomicLong mNumOfRejectedTasks = new AtomicLong(0);
+    private final AtomicLong mNumOfCreatedThreads = new AtomicLong(0);
+
+    private final Histogram mQueueWaitTimeNanos = new Histogram();
+    private final Histogram mExecutionTimeNanos = new Histogram();
+
+    private volatile boolean mMetricsEnabled;
+
+    public InstrumentedThreadPoolExecutor(int corePoolSize,
+                                          int maximumPoolSize,
+                                          long keepAliveTime,
+                                          TimeUnit unit,
+                                          BlockingQueue<Runnable> workQueue,
+                                          ThreadFactory threadFactory,
+                                          RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+        // the super constructor doesn't allow access to this instance, hence the setters
+        setThreadFactory(new CountingThreadFactory(threadFactory));
+        setRejectedExecutionHandler(new CountingRejectedExecutionHandler(handler));
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        mMetricsEnabled = metricsEnabled;
+    }
+
+    public boolean isMetricsEnabled() {
+        return mMetricsEnabled;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!mMetricsEnabled) {
+            super.execute(command);
+            return;
+        }
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        mNumOfSubmittedTasks.incrementAndGet();
+        super.execute(new TimedTask(command, System.nanoTime()));
+    }
+
+    public void resetMetrics() {
+        mNumOfSubmittedTasks.set(0);
+        mNumOfCompletedTasks.set(0);
+        mNumOfFailedTasks.set(0);
+        mNumOfRejectedTasks.set(0);
+        mQueueWaitTimeNanos.reset();
+        mExecutionTimeNanos.reset();
+    }
+
+    public Snapshot getMetricsSnapshot() {
+        return new Snapshot(
+                mNumOfSubmittedTasks.get(),
+                mNumOfCompletedTasks.get(),
+                mNumOfFailedTasks.get(),
+                mNumOfRejectedTasks.get(),
+                mNumOfCreatedThreads.get(),
+                getPoolSize(),
+                getLargestPoolSize(),
+                getActiveCount(),
+                getQueue().size(),
+                mQueueWaitTimeNanos.getSnapshot(),
+                mExecutionTimeNanos.getSnapshot()
+        );
+    }
+
+    private class TimedTask implements Runnable {
+
+        private final Runnable mTask;
+        private final long mSubmitTimeNanos;
+
+        private TimedTask(Runnable task, long submitTimeNanos) {
+            mTask = task;
+            mSubmitTimeNanos = submitTimeNanos;
+        }
+
+        @Override
+        public void run() {
+            long startTimeNanos = System.nanoTime();
+            mQueueWaitTimeNanos.record(startTimeNanos - mSubmitTimeNanos);
+            boolean failed = true;
+            try {
+                mTask.run();
+                failed = false;
+            } finally {
+                mExecutionTimeNanos.record(System.nanoTime() - startTimeNanos);
+                if (failed) {
+                    mNumOfFailedTasks.incrementAndGet();
+                } else {
+                    mNumOfCompletedTasks.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private class CountingThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory mDelegate;
+
+        private CountingThreadFactory(ThreadFactory delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            mNumOfCreatedThreads.incrementAndGet();
+            return mDelegate.newThread(r);
+        }
+    }
+
+    private class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+        private final RejectedExecutionHandler mDelegate;
+
+        private CountingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (mMetricsEnabled) {
+                mNumOfRejectedTasks.incrementAndGet();
+            }
+            mDelegate.rejectedExecution(r, executor);
+        }
+    }
+
+    public static class Snapshot {
+
+        private final long mNumOfSubmittedTasks;
+        private final long mNumOfCompletedTasks;
+        private final long mNumOfFailedTasks;
+        private final long mNumOfRejectedTasks;
+        private final long mNumOfCreatedThreads;
+        private final int mPoolSize;
+        private final int mPeakPoolSize;
+        private final int mActiveCount;
+        private final int mQueueSize;
+        private final Histogram.Snapshot mQueueWaitTimeNanos;
+        private final Histogram.Snapshot mExecutionTimeNanos;
+
+        private Snapshot(long numOfSubmittedTasks,
+                         long numOfCompletedTasks,
+                         long numOfFailedTasks,
+                         long numOfRejectedTasks,
+                         long numOfCreatedThreads,
+                         int poolSize,
+                         int peakPoolSize,
+                         int activeCount,
+                         int queueSize,
+                         Histogram.Snapshot queueWaitTimeNanos,
+                         Histogram.Snapshot executionTimeNanos) {
+            mNumOfSubmittedTasks = numOfSubmittedTasks;
+            mNumOfCompletedTasks = numOfCompletedTasks;
+            mNumOfFailedTasks = numOfFailedTasks;
+            mNumOfRejectedTasks = numOfRejectedTasks;
+            mNumOfCreatedThreads = numOfCreatedThreads;
+            mPoolSize = poolSize;
+            mPeakPoolSize = peakPoolSize;
+            mActiveCount = activeCount;
+            mQueueSize = queueSize;
+            mQueueWaitTimeNanos = queueWaitTimeNanos;
+            mExecutionTimeNanos = executionTimeNanos;
+        }
+
+        public long getNumOfSubmittedTasks() {
+            return mNumOfSubmittedTasks;
+        }
+
+        public long getNumOfCompletedTasks() {
+            return mNumOfCompletedTasks;
+        }
+
+        /**
+         * @return number of tasks that threw an exception
+         */
+        public long getNumOfFailedTasks() {
+            return mNumOfFailedTasks;
+        }
+
+        public long getNumOfRejectedTasks() {
+            return mNumOfRejectedTasks;
+        }
+
+        /**
+         * @return number of threads created since the pool was constructed (not reset)
+         */
+        public long getNumOfCreatedThreads() {
+            return mNumOfCreatedThreads;
+        }
+
+        public int getPoolSize() {
+            return mPoolSize;
+        }
+
+        public int getPeakPoolSize() {
+            return mPeakPoolSize;
+        }
+
+        public int getActiveCount() {
+            return mActiveCount;
+        }
+
+        public int getQueueSize() {
+            return mQueueSize;
+        }
+
+        public Histogram.Snapshot getQueueWaitTimeNanos() {
+            return mQueueWaitTimeNanos;
+        }
+
+        public Histogram.Snapshot getExecutionTimeNanos() {
+            return mExecutionTimeNanos;
+        }
+
+        /**
+         * Write this snapshot to the given file, replacing its contents.
+         */
+        public void exportTo(File file) throws IOException {
+            try (Writer writer = new FileWriter(file)) {
+                writer.write(toString());
+                writer.write("\nQueue wait (ns): " + mQueueWaitTimeNanos);
+                writer.write("\nExecution (ns): " + mExecutionTimeNanos);
+                writer.write('\n');
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Tasks submitted: " + mNumOfSubmittedTasks
+                    + ", completed: " + mNumOfCompletedTasks
+                    + ", failed: " + mNumOfFailedTasks
+                    + ", rejected: " + mNumOfRejectedTasks + "\n"
+                    + "Threads created: " + mNumOfCreatedThreads
+                    + ", peak pool size: " + mPeakPoolSize + "\n"
+                    + "Queue wait p50/p99: " + toMicros(mQueueWaitTimeNanos.getValueAtPercentile(50))
+                    + "/" + toMicros(mQueueWaitTimeNanos.getValueAtPercentile(99)) + "us\n"
+                    + "Execution p50/p99: " + toMicros(mExecutionTimeNanos.getValueAtPercentile(50))
+                    + "/" + toMicros(mExecutionTimeNanos.getValueAtPercentile(99)) + "us";
+        }
+
+        private static long toMicros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+}
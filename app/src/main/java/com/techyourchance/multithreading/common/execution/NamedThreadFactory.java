@@ -0,0 +1,23 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Names threads with the given prefix followed by a sequence number (e.g. "io-1"), so they can
+ * be told apart in thread dumps and traces.
+ */
+class NamedThreadFactory implements ThreadFactory {
+
+    private final String mThreadNamePrefix;
+    private final AtomicInteger mNumOfCreatedThreads = new AtomicInteger(0);
+
+    NamedThreadFactory(String threadNamePrefix) {
+        mThreadNamePrefix = threadNamePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        return new Thread(r, mThreadNamePrefix + mNumOfCreatedThreads.incrementAndGet());
+    }
+}
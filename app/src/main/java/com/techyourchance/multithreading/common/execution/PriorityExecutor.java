@@ -0,0 +1,284 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor that queues tasks per {@link TaskPriority} and hands them to the underlying pool only
+ * while there are free threads. This way a flood of low priority tasks waits here, and not in
+ * the pool's FIFO queue in front of the urgent ones.
+ * <p>
+ * The next task is the head of the queue with the best effective priority. Effective priority
+ * improves by one class for each aging interval the task has waited, so low priority tasks
+ * can't starve. In addition, the number of concurrently running tasks of each class is limited.
+ * This keeps threads available for the more urgent classes.
+ * <p>
+ * Note that a task that blocks waiting for other tasks of the same class needs the class limit
+ * to be large enough for all of them to run at the same time.
+ * <p>
+ * Like {@code ExecutorService}, the executor can be shut down: {@link #shutdown()} stops accepting
+ * new tasks but keeps dispatching the queued ones, and {@link #awaitTermination} waits for them;
+ * {@link #shutdownNow()} returns the queued tasks instead. The pool must be shut down only after
+ * this executor has terminated.
+ * <p>
+ * The pool must throw {@link RejectedExecutionException} on rejection. Since it never gets more
+ * tasks than max concurrency, a rejection means that the pool was shut down under this executor.
+ * This executor then shuts down too, and the rejected task returns to its queue, so that it is
+ * returned by {@link #shutdownNow()} together with the other queued tasks instead of being lost.
+ */
+public class PriorityExecutor implements Executor {
+
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    private final Object LOCK = new Object();
+
+    private final Executor mThreadPool;
+    private final int mMaxConcurrency;
+    private final int[] mConcurrencyLimits = new int[PRIORITIES.length];
+    private final long mAgingIntervalNanos;
+
+    private final ArrayDeque<PrioritizedTask>[] mQueues;
+    private final int[] mNumOfRunningTasks = new int[PRIORITIES.length];
+    private int mTotalNumOfRunningTasks;
+
+    private boolean mShutdown;
+    private boolean mThreadPoolRejected;
+
+    /**
+     * @param threadPool pool that executes the tasks
+     * @param maxConcurrency max number of tasks handed to the pool at once; usually equal to the
+     *                       number of threads in the pool
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityExecutor(Executor threadPool, int maxConcurrency, ThreadPoolConfig config) {
+        mThreadPool = threadPool;
+        mMaxConcurrency = maxConcurrency;
+        for (TaskPriority priority : PRIORITIES) {
+            mConcurrencyLimits[priority.ordinal()] =
+                    Math.min(config.getConcurrencyLimit(priority), maxConcurrency);
+        }
+        mAgingIntervalNanos = config.getAgingInterval(TimeUnit.NANOSECONDS);
+        mQueues = new ArrayDeque[PRIORITIES.length];
+        for (int i = 0; i < mQueues.length; i++) {
+            mQueues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Execute the task with {@link TaskPriority#NORMAL} priority.
+     */
+    @Override
+    public void execute(Runnable command) {
+        execute(command, TaskPriority.NORMAL);
+    }
+
+    /**
+     * @throws RejectedExecutionException if this executor or the pool has been shut down
+     */
+    public void execute(Runnable command, TaskPriority priority) {
+        if (command == null || priority == null) {
+            throw new NullPointerException();
+        }
+        synchronized (LOCK) {
+            if (mShutdown) {
+                throw new RejectedExecutionException("priority executor has been shut down");
+            }
+            mQueues[priority.ordinal()].addLast(new PrioritizedTask(command, priority, System.nanoTime()));
+        }
+        dispatch();
+    }
+
+    /**
+     * @return executor that submits all tasks to this executor with the given priority
+     */
+    public Executor withPriority(final TaskPriority priority) {
+        return command -> execute(command, priority);
+    }
+
+    /**
+     * @return max number of tasks of the given priority that run at the same time; tasks that
+     *         block waiting for each other must not outnumber it
+     */
+    public int getConcurrencyLimit(TaskPriority priority) {
+        return mConcurrencyLimits[priority.ordinal()];
+    }
+
+    public int getNumOfQueuedTasks(TaskPriority priority) {
+        synchronized (LOCK) {
+            return mQueues[priority.ordinal()].size();
+        }
+    }
+
+    public int getNumOfRunningTasks(TaskPriority priority) {
+        synchronized (LOCK) {
+            return mNumOfRunningTasks[priority.ordinal()];
+        }
+    }
+
+    /**
+     * Stop accepting new tasks. The queued tasks are still dispatched as threads become free.
+     */
+    public void shutdown() {
+        synchronized (LOCK) {
+            mShutdown = true;
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * Stop accepting new tasks and remove the queued ones. Running tasks aren't interrupted.
+     *
+     * @return the tasks that were queued and will never run
+     */
+    public List<Runnable> shutdownNow() {
+        List<Runnable> queuedTasks = new ArrayList<>();
+        synchronized (LOCK) {
+            mShutdown = true;
+            for (ArrayDeque<PrioritizedTask> queue : mQueues) {
+                for (PrioritizedTask task : queue) {
+                    queuedTasks.add(task.mTask);
+                }
+                queue.clear();
+            }
+            LOCK.notifyAll();
+        }
+        return queuedTasks;
+    }
+
+    public boolean isShutdown() {
+        synchronized (LOCK) {
+            return mShutdown;
+        }
+    }
+
+    /**
+     * @return true if this executor has been shut down and no tasks are queued or running
+     */
+    public boolean isTerminated() {
+        synchronized (LOCK) {
+            return isTerminatedLocked();
+        }
+    }
+
+    /**
+     * Wait until this executor terminates, i.e. it has been shut down and all the queued and
+     * running tasks have completed.
+     *
+     * @return true if the executor terminated, false if the timeout elapsed
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (LOCK) {
+            while (!isTerminatedLocked()) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(LOCK, remainingNanos);
+            }
+            return true;
+        }
+    }
+
+    private boolean isTerminatedLocked() {
+        if (!mShutdown || mTotalNumOfRunningTasks > 0) {
+            return false;
+        }
+        for (ArrayDeque<PrioritizedTask> queue : mQueues) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void dispatch() {
+        while (true) {
+            PrioritizedTask task;
+            synchronized (LOCK) {
+                task = pollNextTaskLocked();
+                if (task == null) {
+                    return;
+                }
+                mNumOfRunningTasks[task.mPriority.ordinal()]++;
+                mTotalNumOfRunningTasks++;
+            }
+            try {
+                mThreadPool.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the pool was shut down under this executor: the task is kept for shutdownNow()
+                synchronized (LOCK) {
+                    mNumOfRunningTasks[task.mPriority.ordinal()]--;
+                    mTotalNumOfRunningTasks--;
+                    mQueues[task.mPriority.ordinal()].addFirst(task);
+                    mShutdown = true;
+                    mThreadPoolRejected = true;
+                    LOCK.notifyAll();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private PrioritizedTask pollNextTaskLocked() {
+        if (mThreadPoolRejected || mTotalNumOfRunningTasks >= mMaxConcurrency) {
+            return null;
+        }
+        long nowNanos = System.nanoTime();
+        int bestQueueIndex = -1;
+        long bestEffectivePriority = Long.MAX_VALUE;
+        for (int i = 0; i < mQueues.length; i++) {
+            PrioritizedTask head = mQueues[i].peekFirst();
+            if (head == null || mNumOfRunningTasks[i] >= mConcurrencyLimits[i]) {
+                continue;
+            }
+            long effectivePriority = i - (nowNanos - head.mEnqueueTimeNanos) / mAgingIntervalNanos;
+            if (effectivePriority < bestEffectivePriority) { // ties go to the more urgent class
+                bestEffectivePriority = effectivePriority;
+                bestQueueIndex = i;
+            }
+        }
+        return bestQueueIndex == -1 ? null : mQueues[bestQueueIndex].pollFirst();
+    }
+
+    private void onTaskFinished(PrioritizedTask task) {
+        synchronized (LOCK) {
+            mNumOfRunningTasks[task.mPriority.ordinal()]--;
+            mTotalNumOfRunningTasks--;
+            if (mTotalNumOfRunningTasks == 0) {
+                LOCK.notifyAll(); // awaitTermination() might be waiting
+            }
+        }
+    }
+
+    private class PrioritizedTask implements Runnable {
+
+        private final Runnable mTask;
+        private final TaskPriority mPriority;
+        private final long mEnqueueTimeNanos;
+
+        private PrioritizedTask(Runnable task, TaskPriority priority, long enqueueTimeNanos) {
+            mTask = task;
+            mPriority = priority;
+            mEnqueueTimeNanos = enqueueTimeNanos;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mTask.run();
+            } finally {
+                onTaskFinished(this);
+                try {
+                    dispatch();
+                } catch (RejectedExecutionException e) {
+                    // the pool was shut down; the queued tasks are kept for shutdownNow()
+                }
+            }
+        }
+    }
+}
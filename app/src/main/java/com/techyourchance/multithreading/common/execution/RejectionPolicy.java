@@ -0,0 +1,42 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * What a thread pool does with a task when all its threads are busy and its queue is full.
+ */
+public enum RejectionPolicy {
+    /**
+     * Throw {@link java.util.concurrent.RejectedExecutionException} to the submitter.
+     */
+    ABORT,
+    /**
+     * Execute the task on the submitting thread. This slows down the submitter and thus
+     * provides backpressure.
+     */
+    CALLER_RUNS,
+    /**
+     * Silently drop the task.
+     */
+    DISCARD,
+    /**
+     * Drop the oldest queued task and retry the submission.
+     */
+    DISCARD_OLDEST;
+
+    RejectedExecutionHandler newHandler() {
+        switch (this) {
+            case ABORT:
+                return new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            default:
+                throw new RuntimeException("unsupported rejection policy: " + this);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory of the executors used by the benchmarks.<br>
+ * Virtual threads are resolved by reflection because they aren't part of the API level this app
+ * is compiled against. This allows the same code to run with virtual threads on a modern JVM.
+ */
+public class TaskExecutors {
+
+    private static final String THREAD_NAME_PREFIX = "task-";
+
+    private TaskExecutors() {}
+
+    /**
+     * @return true if the current runtime supports virtual threads
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return findVirtualThreadPerTaskExecutorFactory() != null;
+    }
+
+    /**
+     * Create an executor that runs each task on its own new thread. If virtual threads were
+     * requested but aren't supported, platform threads are used instead.
+     */
+    public static Executor newThreadPerTaskExecutor(ExecutionMode executionMode) {
+        if (executionMode == ExecutionMode.VIRTUAL_THREAD_PER_TASK) {
+            Executor virtualThreadPerTaskExecutor = newVirtualThreadPerTaskExecutor();
+            if (virtualThreadPerTaskExecutor != null) {
+                return virtualThreadPerTaskExecutor;
+            }
+        }
+        return new ThreadPerTaskExecutor(THREAD_NAME_PREFIX);
+    }
+
+    private static Executor newVirtualThreadPerTaskExecutor() {
+        Method factory = findVirtualThreadPerTaskExecutorFactory();
+        if (factory == null) {
+            return null;
+        }
+        try {
+            return (Executor) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Method findVirtualThreadPerTaskExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.techyourchance.multithreading.common.execution;
+
+/**
+ * Scheduling classes of {@link PriorityExecutor}, from the most to the least urgent.
+ */
+public enum TaskPriority {
+    /**
+     * Work the user is waiting for right now.
+     */
+    INTERACTIVE,
+    NORMAL,
+    /**
+     * Throughput-oriented work (e.g. benchmarks) that can wait.
+     */
+    BULK
+}
@@ -0,0 +1,27 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that starts a new platform thread for each task.
+ */
+public class ThreadPerTaskExecutor implements Executor {
+
+    private final String mThreadNamePrefix;
+
+    private final AtomicInteger mNumOfStartedThreads = new AtomicInteger(0);
+
+    public ThreadPerTaskExecutor(String threadNamePrefix) {
+        mThreadNamePrefix = threadNamePrefix;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        new Thread(command, mThreadNamePrefix + mNumOfStartedThreads.incrementAndGet()).start();
+    }
+
+    public int getNumOfStartedThreads() {
+        return mNumOfStartedThreads.get();
+    }
+}
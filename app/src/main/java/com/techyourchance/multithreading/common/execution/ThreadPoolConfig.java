@@ -0,0 +1,211 @@
+package com.techyourchance.multithreading.common.execution;
+
+import com.techyourchance.multithreading.DefaultConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes and policies of the application-wide thread pools. Immutable; use {@link Builder} to
+ * create instances.
+ */
+public class ThreadPoolConfig {
+
+    private static final int NUM_OF_CORES = Runtime.getRuntime().availableProcessors();
+
+    private final int mCpuPoolSize;
+    private final int mCpuQueueCapacity;
+    private final RejectionPolicy mCpuRejectionPolicy;
+    private final int mIoPoolSize;
+    private final int mIoQueueCapacity;
+    private final long mKeepAliveTimeMs;
+    private final boolean mCollectMetrics;
+    private final int[] mConcurrencyLimits;
+    private final long mAgingIntervalNanos;
+
+    private ThreadPoolConfig(Builder builder) {
+        mCpuPoolSize = builder.mCpuPoolSize;
+        mCpuQueueCapacity = builder.mCpuQueueCapacity;
+        mCpuRejectionPolicy = builder.mCpuRejectionPolicy;
+        mIoPoolSize = builder.mIoPoolSize;
+        mIoQueueCapacity = builder.mIoQueueCapacity;
+        mKeepAliveTimeMs = builder.mKeepAliveTimeMs;
+        mCollectMetrics = builder.mCollectMetrics;
+        mConcurrencyLimits = builder.mConcurrencyLimits.clone();
+        mAgingIntervalNanos = builder.mAgingIntervalNanos;
+    }
+
+    private static int defaultConcurrencyLimit(TaskPriority priority, int poolSize) {
+        switch (priority) {
+            case INTERACTIVE:
+                return poolSize;
+            case NORMAL:
+                return Math.max(1, poolSize - 2);
+            case BULK:
+                return Math.max(1, poolSize * 3 / 4);
+            default:
+                throw new RuntimeException("unsupported priority: " + priority);
+        }
+    }
+
+    public static ThreadPoolConfig defaultConfig() {
+        return new Builder().build();
+    }
+
+    /**
+     * Number of threads for CPU-bound tasks. Defaults to the number of cores.
+     */
+    public int getCpuPoolSize() {
+        return mCpuPoolSize;
+    }
+
+    public int getCpuQueueCapacity() {
+        return mCpuQueueCapacity;
+    }
+
+    public RejectionPolicy getCpuRejectionPolicy() {
+        return mCpuRejectionPolicy;
+    }
+
+    /**
+     * Maximal number of threads for tasks that block (I/O, waiting on other tasks, etc.).
+     */
+    public int getIoPoolSize() {
+        return mIoPoolSize;
+    }
+
+    public int getIoQueueCapacity() {
+        return mIoQueueCapacity;
+    }
+
+    /**
+     * Idle threads of both pools terminate after this time.
+     */
+    public long getKeepAliveTime(TimeUnit unit) {
+        return unit.convert(mKeepAliveTimeMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether the pools start with metrics enabled; see {@link InstrumentedThreadPoolExecutor}.
+     */
+    public boolean isCollectMetrics() {
+        return mCollectMetrics;
+    }
+
+    /**
+     * Max number of concurrently running tasks of the given priority in {@link PriorityExecutor}.
+     * By default, bulk tasks can occupy at most 3/4 of the I/O pool and normal tasks all but two
+     * threads, so interactive tasks always find a free thread.
+     */
+    public int getConcurrencyLimit(TaskPriority priority) {
+        int concurrencyLimit = mConcurrencyLimits[priority.ordinal()];
+        return concurrencyLimit != 0 ? concurrencyLimit : defaultConcurrencyLimit(priority, mIoPoolSize);
+    }
+
+    /**
+     * A queued task's effective priority improves by one class per this interval of waiting.
+     */
+    public long getAgingInterval(TimeUnit unit) {
+        return unit.convert(mAgingIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Builder newBuilder() {
+        return new Builder(this);
+    }
+
+    public static class Builder {
+
+        private int mCpuPoolSize = NUM_OF_CORES;
+        private int mCpuQueueCapacity = 128;
+        private RejectionPolicy mCpuRejectionPolicy = RejectionPolicy.CALLER_RUNS;
+        private int mIoPoolSize = Math.max(16, 2 * NUM_OF_CORES);
+        private int mIoQueueCapacity = 128;
+        private long mKeepAliveTimeMs = 10000;
+        private boolean mCollectMetrics = DefaultConfiguration.DEFAULT_COLLECT_THREAD_POOL_METRICS;
+        private int[] mConcurrencyLimits = new int[TaskPriority.values().length]; // 0 = default
+        private long mAgingIntervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+
+        public Builder() {
+        }
+
+        private Builder(ThreadPoolConfig config) {
+            mCpuPoolSize = config.mCpuPoolSize;
+            mCpuQueueCapacity = config.mCpuQueueCapacity;
+            mCpuRejectionPolicy = config.mCpuRejectionPolicy;
+            mIoPoolSize = config.mIoPoolSize;
+            mIoQueueCapacity = config.mIoQueueCapacity;
+            mKeepAliveTimeMs = config.mKeepAliveTimeMs;
+            mCollectMetrics = config.mCollectMetrics;
+            mConcurrencyLimits = config.mConcurrencyLimits.clone();
+            mAgingIntervalNanos = config.mAgingIntervalNanos;
+        }
+
+        public Builder setCpuPoolSize(int cpuPoolSize) {
+            mCpuPoolSize = requirePositive(cpuPoolSize, "CPU pool size");
+            return this;
+        }
+
+        public Builder setCpuQueueCapacity(int cpuQueueCapacity) {
+            mCpuQueueCapacity = requirePositive(cpuQueueCapacity, "CPU queue capacity");
+            return this;
+        }
+
+        public Builder setCpuRejectionPolicy(RejectionPolicy cpuRejectionPolicy) {
+            mCpuRejectionPolicy = requireNonNull(cpuRejectionPolicy);
+            return this;
+        }
+
+        public Builder setIoPoolSize(int ioPoolSize) {
+            mIoPoolSize = requirePositive(ioPoolSize, "I/O pool size");
+            return this;
+        }
+
+        public Builder setIoQueueCapacity(int ioQueueCapacity) {
+            mIoQueueCapacity = requirePositive(ioQueueCapacity, "I/O queue capacity");
+            return this;
+        }
+
+        public Builder setKeepAliveTime(long keepAliveTime, TimeUnit unit) {
+            if (keepAliveTime <= 0) {
+                throw new IllegalArgumentException("keep alive time must be positive: " + keepAliveTime);
+            }
+            mKeepAliveTimeMs = unit.toMillis(keepAliveTime);
+            return this;
+        }
+
+        public Builder setCollectMetrics(boolean collectMetrics) {
+            mCollectMetrics = collectMetrics;
+            return this;
+        }
+
+        public Builder setConcurrencyLimit(TaskPriority priority, int concurrencyLimit) {
+            mConcurrencyLimits[priority.ordinal()] = requirePositive(concurrencyLimit, "concurrency limit");
+            return this;
+        }
+
+        public Builder setAgingInterval(long agingInterval, TimeUnit unit) {
+            if (agingInterval <= 0) {
+                throw new IllegalArgumentException("aging interval must be positive: " + agingInterval);
+            }
+            mAgingIntervalNanos = unit.toNanos(agingInterval);
+            return this;
+        }
+
+        public ThreadPoolConfig build() {
+            return new ThreadPoolConfig(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+
+        private static RejectionPolicy requireNonNull(RejectionPolicy rejectionPolicy) {
+            if (rejectionPolicy == null) {
+                throw new IllegalArgumentException("null rejection policy");
+            }
+            return rejectionPolicy;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.techyourchance.multithreading.common.execution;
+
+import com.techyourchance.multithreading.common.blockingqueue.MyBlockingQueue;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates fixed-size thread pools with bounded queues according to {@link ThreadPoolConfig}.<br>
+ * Pools are created with core size equal to max size. {@link ThreadPoolExecutor}
+ * adds threads above the core size only when the queue is full, so with a bounded queue a smaller
+ * core size would leave tasks waiting in the queue while the pool could still grow.
+ */
+public class ThreadPoolFactory {
+
+    private final ThreadPoolConfig mConfig;
+
+    public ThreadPoolFactory(ThreadPoolConfig config) {
+        mConfig = config;
+    }
+
+    /**
+     * Pool for tasks that keep the CPU busy. Such tasks shouldn't block.
+     */
+    public InstrumentedThreadPoolExecutor newCpuThreadPool() {
+        return newThreadPool(
+                "cpu-",
+                mConfig.getCpuPoolSize(),
+                mConfig.getCpuQueueCapacity(),
+                mConfig.getCpuRejectionPolicy()
+        );
+    }
+
+    /**
+     * Pool for tasks that block. Note that a task that waits for other tasks submitted to the
+     * same pool can deadlock if these tasks stay in the queue because all threads are busy.
+     * <p>
+     * The pool is meant to be fed by {@link #newPriorityExecutor}, which never hands it more tasks
+     * than it has threads, so it rejects only after shutdown. It aborts instead of running tasks
+     * on the submitter (which may be the UI thread) or dropping them silently, so that the
+     * priority executor can release the rejected task's slot and keep the task for shutdownNow().
+     */
+    public InstrumentedThreadPoolExecutor newIoThreadPool() {
+        return newThreadPool(
+                "io-",
+                mConfig.getIoPoolSize(),
+                mConfig.getIoQueueCapacity(),
+                RejectionPolicy.ABORT
+        );
+    }
+
+    /**
+     * @return executor that schedules tasks by priority onto the given pool, without ever
+     *         handing it more tasks than it has threads
+     */
+    public PriorityExecutor newPriorityExecutor(ThreadPoolExecutor threadPool) {
+        return new PriorityExecutor(threadPool, threadPool.getMaximumPoolSize(), mConfig);
+    }
+
+    private InstrumentedThreadPoolExecutor newThreadPool(String threadNamePrefix,
+                                             int poolSize,
+                                             int queueCapacity,
+                                             RejectionPolicy rejectionPolicy) {
+        InstrumentedThreadPoolExecutor threadPoolExecutor = new InstrumentedThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                mConfig.getKeepAliveTime(TimeUnit.MILLISECONDS),
+                TimeUnit.MILLISECONDS,
+                new MyBlockingQueue<>(queueCapacity),
+                new NamedThreadFactory(threadNamePrefix),
+                rejectionPolicy.newHandler()
+        );
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        threadPoolExecutor.setMetricsEnabled(mConfig.isCollectMetrics());
+        return threadPoolExecutor;
+    }
+}
@@ -0,0 +1,27 @@
+package com.techyourchance.multithreading.common.execution;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts distinct threads that executed a piece of code. Meant to be called once per task, not
+ * in hot loops: each call costs a concurrent set insertion.
+ */
+public class ThreadUsageRecorder {
+
+    private final Set<Thread> mThreads =
+            Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+    public void recordCurrentThread() {
+        mThreads.add(Thread.currentThread());
+    }
+
+    public int getNumOfThreads() {
+        return mThreads.size();
+    }
+
+    public void reset() {
+        mThreads.clear();
+    }
+}
@@ -0,0 +1,139 @@
+package com.techyourchance.multithreading.common.looper;
+
+/**
+ * Sends messages and posts tasks to a {@link CustomLooper}, which runs them on its thread.
+ * Similar to {@code android.os.Handler}, but usable on a plain JVM and on any executor's thread.
+ * <p>
+ * Messages and posted tasks are carried by pooled {@link CustomMessage}s. Sending a message
+ * obtained with {@link #obtainMessage(int)} to a handler that overrides
+ * {@link #handleMessage(CustomMessage)} allocates nothing in steady state; posting a Runnable
+ * allocates nothing besides the Runnable itself.
+ * <p>
+ * All the send and post methods return false if the looper is quitting and the message was
+ * dropped.
+ */
+public class CustomHandler {
+
+    private final CustomLooper mLooper;
+
+    public CustomHandler(CustomLooper looper) {
+        mLooper = looper;
+    }
+
+    public CustomLooper getLooper() {
+        return mLooper;
+    }
+
+    /**
+     * Override to handle messages that don't carry a callback. Called on the looper's thread.
+     * The message is recycled after this method returns, so it must not be retained.
+     */
+    public void handleMessage(CustomMessage message) {
+    }
+
+    void dispatchMessage(CustomMessage message) {
+        if (message.mCallback != null) {
+            message.mCallback.run();
+        } else {
+            handleMessage(message);
+        }
+    }
+
+    public final CustomMessage obtainMessage(int what) {
+        return CustomMessage.obtain().setWhat(what);
+    }
+
+    public final CustomMessage obtainMessage(int what, int arg1, int arg2) {
+        return CustomMessage.obtain().setWhat(what).setArg1(arg1).setArg2(arg2);
+    }
+
+    public final CustomMessage obtainMessage(int what, Object obj) {
+        return CustomMessage.obtain().setWhat(what).setObj(obj);
+    }
+
+    public final boolean sendMessage(CustomMessage message) {
+        return sendMessageAtTime(message, CustomLooper.uptimeMillis());
+    }
+
+    public final boolean sendMessageDelayed(CustomMessage message, long delayMillis) {
+        return sendMessageAtTime(message, CustomLooper.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    /**
+     * @param uptimeMillis due time in {@link CustomLooper#uptimeMillis()} base
+     * @throws IllegalStateException if the message has already been sent and is still in use, or
+     *         has been recycled
+     */
+    public final boolean sendMessageAtTime(CustomMessage message, long uptimeMillis) {
+        return mLooper.enqueue(message, this, uptimeMillis);
+    }
+
+    public final boolean post(Runnable runnable) {
+        return postAtTime(runnable, null, CustomLooper.uptimeMillis());
+    }
+
+    public final boolean postDelayed(Runnable runnable, long delayMillis) {
+        return postAtTime(runnable, null, CustomLooper.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    public final boolean postDelayed(Runnable runnable, Object token, long delayMillis) {
+        return postAtTime(runnable, token, CustomLooper.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    /**
+     * @param uptimeMillis due time in {@link CustomLooper#uptimeMillis()} base
+     */
+    public final boolean postAtTime(Runnable runnable, long uptimeMillis) {
+        return postAtTime(runnable, null, uptimeMillis);
+    }
+
+    /**
+     * @param token object that identifies the task for {@link #removeCallbacksAndMessages(Object)}
+     * @param uptimeMillis due time in {@link CustomLooper#uptimeMillis()} base
+     */
+    public final boolean postAtTime(Runnable runnable, Object token, long uptimeMillis) {
+        if (runnable == null) {
+            throw new NullPointerException("runnable is null");
+        }
+        CustomMessage message = CustomMessage.obtain().setObj(token);
+        message.mCallback = runnable;
+        return sendMessageAtTime(message, uptimeMillis);
+    }
+
+    /**
+     * Post the task ahead of all the other pending tasks, including the already due ones.
+     * Meant for urgent work only: it can starve the rest of the queue.
+     */
+    public final boolean postAtFrontOfQueue(Runnable runnable) {
+        return postAtTime(runnable, null, 0);
+    }
+
+    /**
+     * Remove the pending posts of the runnable made through this handler
+     */
+    public final void removeCallbacks(Runnable runnable) {
+        mLooper.remove(this, runnable, CustomLooper.ANY_WHAT, null);
+    }
+
+    /**
+     * Remove the pending posts of the runnable made through this handler with the given token
+     */
+    public final void removeCallbacks(Runnable runnable, Object token) {
+        mLooper.remove(this, runnable, CustomLooper.ANY_WHAT, token);
+    }
+
+    /**
+     * Remove the pending messages with the given "what" sent through this handler
+     */
+    public final void removeMessages(int what) {
+        mLooper.remove(this, null, what, null);
+    }
+
+    /**
+     * Remove the pending posts and messages made through this handler whose token (obj) is the
+     * given one, or all of them if the token is null
+     */
+    public final void removeCallbacksAndMessages(Object token) {
+        mLooper.remove(this, null, CustomLooper.ANY_WHAT, token);
+    }
+}
@@ -0,0 +1,325 @@
+package com.techyourchance.multithreading.common.looper;
+
+import com.techyourchance.multithreading.common.metrics.Histogram;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group of {@link CustomLooper}s that run tasks in parallel while keeping the tasks that carry the
+ * same key (e.g. a request ID) in order: all the tasks of a key run on the same looper, one at a
+ * time, in the order they were posted (actor-style partitioning).
+ * <p>
+ * A key is bound to a looper only while it has pending or running tasks. A new key, or a key whose
+ * previous tasks have all completed, is bound to the looper with the shallowest queue, so the load
+ * rebalances as keys come and go without ever reordering the tasks of a single key.
+ * <p>
+ * Each looper records the time tasks spend waiting in its queue and the time they take to run.
+ */
+public class CustomHandlerGroup {
+
+    private final Object LOCK = new Object();
+
+    private final CustomLooper[] mLoopers;
+    private final CustomHandler[] mHandlers;
+    private final Histogram[] mQueueWaitTimeNanos;
+    private final Histogram[] mExecutionTimeNanos;
+
+    // all the below are guarded by LOCK
+    private final int[] mQueueDepths;
+    private final long[] mNumOfPostedTasks;
+    private final Map<Object, KeyAssignment> mKeyAssignments = new HashMap<>();
+    private int mNextLooperIndex;
+    private boolean mQuitting;
+    // set by quit(), which drops the pending tasks along with their keys and queue depths
+    private boolean mPendingTasksDiscarded;
+
+    /**
+     * @param executor executor that provides a thread for each of the loopers; each looper
+     *                 occupies its thread until the group quits
+     */
+    public CustomHandlerGroup(Executor executor, int numOfLoopers) {
+        if (numOfLoopers <= 0) {
+            throw new IllegalArgumentException("number of loopers must be positive: " + numOfLoopers);
+        }
+        mLoopers = new CustomLooper[numOfLoopers];
+        mHandlers = new CustomHandler[numOfLoopers];
+        mQueueWaitTimeNanos = new Histogram[numOfLoopers];
+        mExecutionTimeNanos = new Histogram[numOfLoopers];
+        mQueueDepths = new int[numOfLoopers];
+        mNumOfPostedTasks = new long[numOfLoopers];
+        for (int i = 0; i < numOfLoopers; i++) {
+            mLoopers[i] = new CustomLooper(executor);
+            mHandlers[i] = new CustomHandler(mLoopers[i]);
+            mQueueWaitTimeNanos[i] = new Histogram();
+            mExecutionTimeNanos[i] = new Histogram();
+        }
+    }
+
+    public int getNumOfLoopers() {
+        return mLoopers.length;
+    }
+
+    /**
+     * Post a task that doesn't need to be ordered with respect to any other task. It goes to the
+     * looper with the shallowest queue.
+     *
+     * @return false if the group is quitting and the task was dropped
+     */
+    public boolean post(Runnable task) {
+        return post(null, task);
+    }
+
+    /**
+     * Post a task that runs after all the previously posted tasks with an equal key.
+     *
+     * @param key key compared with equals(); null means no ordering, same as {@link #post(Runnable)}
+     * @return false if the group is quitting and the task was dropped
+     */
+    public boolean post(Object key, Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task is null");
+        }
+        int looperIndex;
+        synchronized (LOCK) {
+            if (mQuitting) {
+                return false;
+            }
+            KeyAssignment keyAssignment = key == null ? null : mKeyAssignments.get(key);
+            if (keyAssignment == null) {
+                looperIndex = getShallowestQueueLooperIndex();
+                if (key != null) {
+                    keyAssignment = new KeyAssignment(looperIndex);
+                    mKeyAssignments.put(key, keyAssignment);
+                }
+            } else {
+                looperIndex = keyAssignment.mLooperIndex;
+            }
+            if (keyAssignment != null) {
+                keyAssignment.mNumOfPendingTasks++;
+            }
+            mQueueDepths[looperIndex]++;
+            mNumOfPostedTasks[looperIndex]++;
+        }
+        // posting outside of the lock is safe: the pending task keeps the key bound to this looper
+        if (!mHandlers[looperIndex].post(new GroupTask(key, looperIndex, task))) {
+            onTaskFinished(key, looperIndex);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return index of the looper the key is currently bound to, or -1 if the key has no pending
+     *         or running tasks
+     */
+    public int getLooperIndexOf(Object key) {
+        synchronized (LOCK) {
+            KeyAssignment keyAssignment = mKeyAssignments.get(key);
+            return keyAssignment == null ? -1 : keyAssignment.mLooperIndex;
+        }
+    }
+
+    public List<LooperStatistics> getStatistics() {
+        int[] numOfKeys = new int[mLoopers.length];
+        int[] queueDepths;
+        long[] numOfPostedTasks;
+        synchronized (LOCK) {
+            for (KeyAssignment keyAssignment : mKeyAssignments.values()) {
+                numOfKeys[keyAssignment.mLooperIndex]++;
+            }
+            queueDepths = mQueueDepths.clone();
+            numOfPostedTasks = mNumOfPostedTasks.clone();
+        }
+        List<LooperStatistics> statistics = new ArrayList<>(mLoopers.length);
+        for (int i = 0; i < mLoopers.length; i++) {
+            statistics.add(new LooperStatistics(
+                    i,
+                    queueDepths[i],
+                    numOfKeys[i],
+                    numOfPostedTasks[i],
+                    mQueueWaitTimeNanos[i].getSnapshot(),
+                    mExecutionTimeNanos[i].getSnapshot()
+            ));
+        }
+        return statistics;
+    }
+
+    public void resetStatistics() {
+        synchronized (LOCK) {
+            for (int i = 0; i < mLoopers.length; i++) {
+                mNumOfPostedTasks[i] = 0;
+                mQueueWaitTimeNanos[i].reset();
+                mExecutionTimeNanos[i].reset();
+            }
+        }
+    }
+
+    /**
+     * Stop all the loopers after their currently running tasks. All the pending tasks are discarded,
+     * and the keys and the queue depths are released right away.
+     */
+    public void quit() {
+        synchronized (LOCK) {
+            mQuitting = true;
+            // the discarded tasks never run, so they would never release their state themselves
+            mPendingTasksDiscarded = true;
+            mKeyAssignments.clear();
+            Arrays.fill(mQueueDepths, 0);
+        }
+        for (CustomLooper looper : mLoopers) {
+            looper.quit();
+        }
+    }
+
+    /**
+     * Stop all the loopers once the tasks that are already posted have run.
+     */
+    public void quitSafely() {
+        synchronized (LOCK) {
+            mQuitting = true;
+        }
+        for (CustomLooper looper : mLoopers) {
+            looper.quitSafely();
+        }
+    }
+
+    private int getShallowestQueueLooperIndex() {
+        // start from the looper after the last chosen one, so that equally deep queues share new keys
+        int shallowestIndex = mNextLooperIndex;
+        for (int i = 1; i < mLoopers.length; i++) {
+            int index = (mNextLooperIndex + i) % mLoopers.length;
+            if (mQueueDepths[index] < mQueueDepths[shallowestIndex]) {
+                shallowestIndex = index;
+            }
+        }
+        mNextLooperIndex = (shallowestIndex + 1) % mLoopers.length;
+        return shallowestIndex;
+    }
+
+    private void onTaskFinished(Object key, int looperIndex) {
+        synchronized (LOCK) {
+            if (mPendingTasksDiscarded) {
+                return; // released by quit()
+            }
+            mQueueDepths[looperIndex]--;
+            if (key != null) {
+                KeyAssignment keyAssignment = mKeyAssignments.get(key);
+                if (--keyAssignment.mNumOfPendingTasks == 0) {
+                    mKeyAssignments.remove(key);
+                }
+            }
+        }
+    }
+
+    private static class KeyAssignment {
+        private final int mLooperIndex;
+        private int mNumOfPendingTasks;
+
+        private KeyAssignment(int looperIndex) {
+            mLooperIndex = looperIndex;
+        }
+    }
+
+    private class GroupTask implements Runnable {
+
+        private final Object mKey;
+        private final int mLooperIndex;
+        private final Runnable mTask;
+        private final long mPostNanos = System.nanoTime();
+
+        private GroupTask(Object key, int looperIndex, Runnable task) {
+            mKey = key;
+            mLooperIndex = looperIndex;
+            mTask = task;
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            mQueueWaitTimeNanos[mLooperIndex].record(startNanos - mPostNanos);
+            try {
+                mTask.run();
+            } finally {
+                mExecutionTimeNanos[mLooperIndex].record(System.nanoTime() - startNanos);
+                onTaskFinished(mKey, mLooperIndex);
+            }
+        }
+    }
+
+    public static class LooperStatistics {
+
+        private final int mLooperIndex;
+        private final int mQueueDepth;
+        private final int mNumOfKeys;
+        private final long mNumOfPostedTasks;
+        private final Histogram.Snapshot mQueueWaitTimeNanos;
+        private final Histogram.Snapshot mExecutionTimeNanos;
+
+        private LooperStatistics(int looperIndex,
+                                 int queueDepth,
+                                 int numOfKeys,
+                                 long numOfPostedTasks,
+                                 Histogram.Snapshot queueWaitTimeNanos,
+                                 Histogram.Snapshot executionTimeNanos) {
+            mLooperIndex = looperIndex;
+            mQueueDepth = queueDepth;
+            mNumOfKeys = numOfKeys;
+            mNumOfPostedTasks = numOfPostedTasks;
+            mQueueWaitTimeNanos = queueWaitTimeNanos;
+            mExecutionTimeNanos = executionTimeNanos;
+        }
+
+        public int getLooperIndex() {
+            return mLooperIndex;
+        }
+
+        /**
+         * Number of pending and running tasks.
+         */
+        public int getQueueDepth() {
+            return mQueueDepth;
+        }
+
+        /**
+         * Number of keys that are currently bound to the looper.
+         */
+        public int getNumOfKeys() {
+            return mNumOfKeys;
+        }
+
+        public long getNumOfPostedTasks() {
+            return mNumOfPostedTasks;
+        }
+
+        /**
+         * Time from posting a task until it started to run.
+         */
+        public Histogram.Snapshot getQueueWaitTimeNanos() {
+            return mQueueWaitTimeNanos;
+        }
+
+        public Histogram.Snapshot getExecutionTimeNanos() {
+            return mExecutionTimeNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Looper " + mLooperIndex + ": " + mNumOfPostedTasks + " tasks"
+                    + " (depth " + mQueueDepth + ", keys " + mNumOfKeys + ")\n"
+                    + "  wait p50/p99: " + toMicros(mQueueWaitTimeNanos.getValueAtPercentile(50))
+                    + "/" + toMicros(mQueueWaitTimeNanos.getValueAtPercentile(99)) + "us"
+                    + ", run p50/p99: " + toMicros(mExecutionTimeNanos.getValueAtPercentile(50))
+                    + "/" + toMicros(mExecutionTimeNanos.getValueAtPercentile(99)) + "us";
+        }
+
+        private static long toMicros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+}
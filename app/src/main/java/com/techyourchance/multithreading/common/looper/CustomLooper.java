@@ -0,0 +1,285 @@
+package com.techyourchance.multithreading.common.looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs messages and tasks sent through {@link CustomHandler}s one at a time, in the order of
+ * their due times, on a single thread taken from the given executor. Messages with equal due
+ * times run in the order they were sent. If a task throws, or the thread is interrupted, the
+ * looper quits as if by {@link #quit()}.
+ * <p>
+ * The queue is an intrusive linked list of {@link CustomMessage}s sorted by due time. Sending for
+ * "now" (the common case) appends to the tail in constant time; delayed messages are inserted at
+ * their position in linear time. Messages are recycled after dispatch and when dropped.
+ * <p>
+ * Times are in {@link #uptimeMillis()} base, which is monotonic but, unlike
+ * {@code SystemClock.uptimeMillis()}, is also available on a plain JVM.
+ */
+public class CustomLooper {
+
+    /**
+     * Callback invoked when the looper runs out of due tasks and is about to wait.
+     */
+    public interface IdleHandler {
+        /**
+         * @return true to keep this handler registered, false to remove it
+         */
+        boolean queueIdle();
+    }
+
+    /**
+     * Callback invoked on the looper's thread around each dispatched message; see
+     * {@link LooperWatchdog}. Must be fast: it delays every message.
+     */
+    public interface DispatchObserver {
+        /**
+         * @param task the message's Runnable, or its target handler if it carries no Runnable
+         */
+        void onDispatchStarted(Object task);
+
+        void onDispatchFinished();
+    }
+
+    public static long uptimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    static final int ANY_WHAT = Integer.MIN_VALUE;
+
+    private final Object LOCK = new Object();
+
+    private final List<IdleHandler> mIdleHandlers = new ArrayList<>();
+
+    private CustomMessage mHead;
+    private CustomMessage mTail;
+
+    private boolean mQuitting;
+
+    private volatile Thread mThread;
+
+    private volatile DispatchObserver mDispatchObserver;
+
+    public CustomLooper(Executor executor) {
+        executor.execute(this::loop);
+    }
+
+    public boolean isCurrentThread() {
+        return Thread.currentThread() == mThread;
+    }
+
+    /**
+     * Stop the looper after the currently running task. All the pending tasks are discarded.
+     */
+    public void quit() {
+        synchronized (LOCK) {
+            mQuitting = true;
+            recycleAll(mHead);
+            mHead = null;
+            mTail = null;
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * Stop the looper once all the tasks that are already due have run. Tasks scheduled for
+     * later are discarded.
+     */
+    public void quitSafely() {
+        synchronized (LOCK) {
+            mQuitting = true;
+            long now = uptimeMillis();
+            CustomMessage message = mHead;
+            CustomMessage lastDueMessage = null;
+            while (message != null && message.mWhen <= now) {
+                lastDueMessage = message;
+                message = message.mNext;
+            }
+            recycleAll(message);
+            if (lastDueMessage == null) {
+                mHead = null;
+            } else {
+                lastDueMessage.mNext = null;
+            }
+            mTail = lastDueMessage;
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * @param dispatchObserver observer of dispatched messages, or null to remove the current one
+     */
+    public void setDispatchObserver(DispatchObserver dispatchObserver) {
+        mDispatchObserver = dispatchObserver;
+    }
+
+    public void addIdleHandler(IdleHandler idleHandler) {
+        synchronized (LOCK) {
+            mIdleHandlers.add(idleHandler);
+        }
+    }
+
+    public void removeIdleHandler(IdleHandler idleHandler) {
+        synchronized (LOCK) {
+            mIdleHandlers.remove(idleHandler);
+        }
+    }
+
+    /**
+     * @return false if the looper is quitting and the message was dropped (and recycled)
+     * @throws IllegalStateException if the message has already been sent and is still in use, or
+     *         has been recycled
+     */
+    boolean enqueue(CustomMessage message, CustomHandler target, long when) {
+        synchronized (LOCK) {
+            if (message.mInUse) {
+                throw new IllegalStateException("message is in use or recycled: " + message);
+            }
+            if (mQuitting) {
+                message.recycleUnchecked();
+                return false;
+            }
+            message.mInUse = true;
+            message.mTarget = target;
+            message.mWhen = when;
+            message.mNext = null;
+            if (mHead == null) {
+                mHead = message;
+                mTail = message;
+            } else if (message.mWhen >= mTail.mWhen) {
+                mTail.mNext = message;
+                mTail = message;
+            } else if (message.mWhen < mHead.mWhen) {
+                message.mNext = mHead;
+                mHead = message;
+            } else {
+                CustomMessage previous = mHead;
+                while (previous.mNext.mWhen <= message.mWhen) {
+                    previous = previous.mNext;
+                }
+                message.mNext = previous.mNext;
+                previous.mNext = message;
+            }
+            // the loop waits only for the head, so it needs to be woken up only if it changed
+            if (mHead == message) {
+                LOCK.notifyAll();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Remove (and recycle) the pending messages of the given handler that match the callback, the
+     * "what" and the obj; null callback or obj, and {@link #ANY_WHAT}, match anything.
+     */
+    void remove(CustomHandler handler, Runnable callback, int what, Object obj) {
+        synchronized (LOCK) {
+            CustomMessage previous = null;
+            CustomMessage message = mHead;
+            while (message != null) {
+                CustomMessage next = message.mNext;
+                if (message.mTarget == handler
+                        && (callback == null || message.mCallback == callback)
+                        && (what == ANY_WHAT || message.getWhat() == what)
+                        && (obj == null || message.getObj() == obj)) {
+                    if (previous == null) {
+                        mHead = next;
+                    } else {
+                        previous.mNext = next;
+                    }
+                    if (message == mTail) {
+                        mTail = previous;
+                    }
+                    message.recycleUnchecked();
+                } else {
+                    previous = message;
+                }
+                message = next;
+            }
+        }
+    }
+
+    private static void recycleAll(CustomMessage message) {
+        while (message != null) {
+            CustomMessage next = message.mNext;
+            message.recycleUnchecked();
+            message = next;
+        }
+    }
+
+    private void loop() {
+        mThread = Thread.currentThread();
+        try {
+            CustomMessage message;
+            while ((message = next()) != null) {
+                DispatchObserver dispatchObserver = mDispatchObserver;
+                if (dispatchObserver == null) {
+                    message.mTarget.dispatchMessage(message);
+                } else {
+                    dispatchObserver.onDispatchStarted(
+                            message.mCallback != null ? message.mCallback : message.mTarget
+                    );
+                    try {
+                        message.mTarget.dispatchMessage(message);
+                    } finally {
+                        dispatchObserver.onDispatchFinished();
+                    }
+                }
+                message.recycleUnchecked();
+            }
+        } finally {
+            // the loop also ends when a task throws or the thread is interrupted; the looper must
+            // then stop accepting tasks that would never run, and release the pending ones
+            quit();
+            mThread = null;
+        }
+    }
+
+    /**
+     * @return the next due message, or null if the looper quit or its thread was interrupted
+     */
+    private CustomMessage next() {
+        // idle handlers run at most once per idle period, i.e. until the next message is due
+        boolean idleHandlersInvoked = false;
+        while (true) {
+            IdleHandler[] idleHandlers;
+            synchronized (LOCK) {
+                long now = uptimeMillis();
+                if (mHead != null && mHead.mWhen <= now) {
+                    CustomMessage message = mHead;
+                    mHead = message.mNext;
+                    if (mHead == null) {
+                        mTail = null;
+                    }
+                    message.mNext = null;
+                    return message;
+                }
+                if (mQuitting && mHead == null) {
+                    return null;
+                }
+                if (idleHandlersInvoked || mIdleHandlers.isEmpty()) {
+                    try {
+                        if (mHead == null) {
+                            LOCK.wait();
+                        } else {
+                            LOCK.wait(mHead.mWhen - now);
+                        }
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                    continue;
+                }
+                idleHandlers = mIdleHandlers.toArray(new IdleHandler[0]);
+            }
+            // outside of the lock, so that idle handlers can post tasks
+            for (IdleHandler idleHandler : idleHandlers) {
+                if (!idleHandler.queueIdle()) {
+                    removeIdleHandler(idleHandler);
+                }
+            }
+            idleHandlersInvoked = true;
+        }
+    }
+}
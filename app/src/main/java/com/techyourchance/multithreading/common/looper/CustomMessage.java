@@ -0,0 +1,201 @@
+package com.techyourchance.multithreading.common.looper;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Message for {@link CustomHandler}, similar to {@code android.os.Message}. Messages are
+ * pooled: obtain them with {@link #obtain()} or {@code CustomHandler.obtainMessage()}, and the
+ * looper recycles them after dispatch, so posting a recycled message allocates nothing.
+ * Messages also serve as the nodes of the looper's queue (intrusive linked list).
+ * <p>
+ * A message must not be touched after it has been sent or recycled.
+ * <p>
+ * Leak detection (meant for debug builds) reports messages that were obtained, but neither sent
+ * nor recycled before being garbage collected, together with the stack trace of the obtain call.
+ */
+public final class CustomMessage {
+
+    public interface LeakReporter {
+        void onMessageLeaked(Throwable allocationSite);
+    }
+
+    private static final int MAX_POOL_SIZE = 50;
+
+    private static final Object POOL_LOCK = new Object();
+
+    private static CustomMessage sPool;
+    private static int sPoolSize = 0;
+
+    private static volatile boolean sLeakDetectionEnabled = false;
+    // System.err rather than logcat, so that the default also works on a plain JVM
+    private static volatile LeakReporter sLeakReporter = allocationSite -> {
+        System.err.println("CustomMessage: message leaked");
+        allocationSite.printStackTrace();
+    };
+    private static final ReferenceQueue<CustomMessage> sLeakedMessages = new ReferenceQueue<>();
+    // keeps the trackers reachable until their messages are either recycled or collected
+    private static final Set<LeakTracker> sLeakTrackers =
+            Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<LeakTracker, Boolean>()));
+
+    private int mWhat;
+    private int mArg1;
+    private int mArg2;
+    private Object mObj;
+
+    // the following are used by the handler and the looper
+    long mWhen;
+    Runnable mCallback;
+    CustomHandler mTarget;
+    CustomMessage mNext;
+    // set while the message is sent and while it's in the pool (like Message's FLAG_IN_USE), so
+    // that a second recycle() or a send of a recycled message fails instead of corrupting the pool
+    boolean mInUse;
+
+    private LeakTracker mLeakTracker;
+
+    private CustomMessage() {
+    }
+
+    /**
+     * @return a message from the pool, or a new one if the pool is empty
+     */
+    public static CustomMessage obtain() {
+        CustomMessage message = null;
+        synchronized (POOL_LOCK) {
+            if (sPool != null) {
+                message = sPool;
+                sPool = message.mNext;
+                message.mNext = null;
+                message.mInUse = false;
+                sPoolSize--;
+            }
+        }
+        if (message == null) {
+            message = new CustomMessage();
+        }
+        if (sLeakDetectionEnabled) {
+            reportLeaks();
+            message.mLeakTracker = new LeakTracker(message, new Throwable("message obtained here"));
+            sLeakTrackers.add(message.mLeakTracker);
+        }
+        return message;
+    }
+
+    public static void setLeakDetectionEnabled(boolean leakDetectionEnabled) {
+        sLeakDetectionEnabled = leakDetectionEnabled;
+    }
+
+    /**
+     * @param leakReporter replaces the default reporter, which prints to {@code System.err}
+     */
+    public static void setLeakReporter(LeakReporter leakReporter) {
+        sLeakReporter = leakReporter;
+    }
+
+    /**
+     * Return an obtained message that won't be sent to the pool
+     *
+     * @throws IllegalStateException if the message has been sent and is still in use, or has
+     *         already been recycled
+     */
+    public void recycle() {
+        if (mInUse) {
+            throw new IllegalStateException("message is in use or already recycled: " + this);
+        }
+        recycleUnchecked();
+    }
+
+    void recycleUnchecked() {
+        mWhat = 0;
+        mArg1 = 0;
+        mArg2 = 0;
+        mObj = null;
+        mWhen = 0;
+        mCallback = null;
+        mTarget = null;
+        mInUse = true;
+        if (mLeakTracker != null) {
+            sLeakTrackers.remove(mLeakTracker);
+            mLeakTracker.clear();
+            mLeakTracker = null;
+        }
+        synchronized (POOL_LOCK) {
+            if (sPoolSize < MAX_POOL_SIZE) {
+                mNext = sPool;
+                sPool = this;
+                sPoolSize++;
+            } else {
+                mNext = null;
+            }
+        }
+    }
+
+    private static void reportLeaks() {
+        LeakTracker leakTracker;
+        while ((leakTracker = (LeakTracker) sLeakedMessages.poll()) != null) {
+            if (sLeakTrackers.remove(leakTracker)) {
+                sLeakReporter.onMessageLeaked(leakTracker.mAllocationSite);
+            }
+        }
+    }
+
+    public int getWhat() {
+        return mWhat;
+    }
+
+    public CustomMessage setWhat(int what) {
+        mWhat = what;
+        return this;
+    }
+
+    public int getArg1() {
+        return mArg1;
+    }
+
+    public CustomMessage setArg1(int arg1) {
+        mArg1 = arg1;
+        return this;
+    }
+
+    public int getArg2() {
+        return mArg2;
+    }
+
+    public CustomMessage setArg2(int arg2) {
+        mArg2 = arg2;
+        return this;
+    }
+
+    public Object getObj() {
+        return mObj;
+    }
+
+    public CustomMessage setObj(Object obj) {
+        mObj = obj;
+        return this;
+    }
+
+    public long getWhen() {
+        return mWhen;
+    }
+
+    @Override
+    public String toString() {
+        return "CustomMessage{what=" + mWhat + ", arg1=" + mArg1 + ", arg2=" + mArg2
+                + ", when=" + mWhen + ", callback=" + mCallback + "}";
+    }
+
+    private static class LeakTracker extends PhantomReference<CustomMessage> {
+
+        private final Throwable mAllocationSite;
+
+        private LeakTracker(CustomMessage message, Throwable allocationSite) {
+            super(message, sLeakedMessages);
+            mAllocationSite = allocationSite;
+        }
+    }
+}
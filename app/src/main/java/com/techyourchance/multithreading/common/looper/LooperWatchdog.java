@@ -0,0 +1,267 @@
+package com.techyourchance.multithreading.common.looper;
+
+import com.techyourchance.multithreading.common.metrics.Histogram;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects loopers that are stuck in a single task, in the spirit of Android's ANR detection, and
+ * keeps a histogram of task durations per looper.
+ * <p>
+ * Each watched looper reports the start and the end of its tasks to a {@link Monitor}: a
+ * {@link CustomLooper} through {@link CustomLooper#setDispatchObserver}, any other message loop
+ * (e.g. Android's main looper through {@code Looper.setMessageLogging()}) by calling the monitor
+ * directly. The watchdog's own thread samples the monitors periodically and reports each task
+ * that has been running for longer than the threshold once, with the stack trace of the looper's
+ * thread at the time of detection.
+ */
+public class LooperWatchdog {
+
+    public interface StallListener {
+        /**
+         * Called on the watchdog's thread
+         */
+        void onStall(StallReport stallReport);
+    }
+
+    private final Object LOCK = new Object();
+
+    private final long mStallThresholdNanos;
+    private final long mSamplingIntervalMs;
+    private final StallListener mStallListener;
+
+    private final List<Monitor> mMonitors = new CopyOnWriteArrayList<>();
+
+    private boolean mStarted;
+    private boolean mStopped;
+
+    public LooperWatchdog(long stallThresholdMs, StallListener stallListener) {
+        if (stallThresholdMs <= 0) {
+            throw new IllegalArgumentException("stall threshold must be positive: " + stallThresholdMs);
+        }
+        mStallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(stallThresholdMs);
+        // a stall is detected at most a quarter of the threshold late
+        mSamplingIntervalMs = Math.max(1, stallThresholdMs / 4);
+        mStallListener = stallListener;
+    }
+
+    /**
+     * Start sampling on a thread taken from the given executor. The sampling occupies the thread
+     * until the watchdog is stopped.
+     */
+    public void start(Executor executor) {
+        synchronized (LOCK) {
+            if (mStarted) {
+                throw new IllegalStateException("watchdog has already been started");
+            }
+            mStarted = true;
+        }
+        executor.execute(this::sample);
+    }
+
+    public void stop() {
+        synchronized (LOCK) {
+            mStopped = true;
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * @return monitor that the message loop must notify about the start and the end of its tasks
+     */
+    public Monitor watch(String looperName) {
+        Monitor monitor = new Monitor(looperName);
+        mMonitors.add(monitor);
+        return monitor;
+    }
+
+    public Monitor watch(String looperName, CustomLooper looper) {
+        Monitor monitor = watch(looperName);
+        looper.setDispatchObserver(monitor);
+        return monitor;
+    }
+
+    public void unwatch(Monitor monitor) {
+        mMonitors.remove(monitor);
+    }
+
+    public void unwatch(Monitor monitor, CustomLooper looper) {
+        looper.setDispatchObserver(null);
+        unwatch(monitor);
+    }
+
+    private void sample() {
+        while (true) {
+            synchronized (LOCK) {
+                try {
+                    // wait() may return early, which only means that some sample is taken early
+                    if (!mStopped) {
+                        LOCK.wait(mSamplingIntervalMs);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (mStopped) {
+                    return;
+                }
+            }
+            long now = System.nanoTime();
+            for (Monitor monitor : mMonitors) {
+                StallReport stallReport = monitor.checkForStall(now, mStallThresholdNanos);
+                if (stallReport != null) {
+                    mStallListener.onStall(stallReport);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tracks the task that a single looper is running. Tasks must be reported by one thread at a
+     * time, i.e. by the looper's thread.
+     */
+    public static class Monitor implements CustomLooper.DispatchObserver {
+
+        private final String mLooperName;
+
+        private final Histogram mTaskDurationNanos = new Histogram();
+
+        // odd while a task runs; lets the watchdog read the fields below consistently without
+        // locking the looper's thread (a seqlock)
+        private volatile long mDispatchSequence;
+        private volatile long mDispatchStartNanos;
+        private volatile Object mTask;
+        private volatile Thread mThread;
+        private volatile long mNumOfStalls;
+
+        // accessed only by the watchdog's thread
+        private long mLastReportedDispatchSequence = -1;
+
+        private Monitor(String looperName) {
+            mLooperName = looperName;
+        }
+
+        public String getLooperName() {
+            return mLooperName;
+        }
+
+        @Override
+        public void onDispatchStarted(Object task) {
+            mThread = Thread.currentThread();
+            mTask = task;
+            mDispatchStartNanos = System.nanoTime();
+            mDispatchSequence++;
+        }
+
+        @Override
+        public void onDispatchFinished() {
+            mDispatchSequence++;
+            mTaskDurationNanos.record(System.nanoTime() - mDispatchStartNanos);
+            mTask = null;
+        }
+
+        public Histogram.Snapshot getTaskDurationNanos() {
+            return mTaskDurationNanos.getSnapshot();
+        }
+
+        public long getNumOfStalls() {
+            return mNumOfStalls;
+        }
+
+        private StallReport checkForStall(long now, long stallThresholdNanos) {
+            long dispatchSequence = mDispatchSequence;
+            if ((dispatchSequence & 1) == 0 || dispatchSequence == mLastReportedDispatchSequence) {
+                return null;
+            }
+            long durationNanos = now - mDispatchStartNanos;
+            Object task = mTask;
+            Thread thread = mThread;
+            if (durationNanos < stallThresholdNanos || dispatchSequence != mDispatchSequence) {
+                return null;
+            }
+            StackTraceElement[] stackTrace = thread.getStackTrace();
+            if (dispatchSequence != mDispatchSequence) {
+                // the task completed while the stack trace was being captured
+                return null;
+            }
+            mLastReportedDispatchSequence = dispatchSequence;
+            mNumOfStalls++;
+            return new StallReport(
+                    mLooperName,
+                    describe(task),
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                    stackTrace
+            );
+        }
+
+        private static String describe(Object task) {
+            if (task == null) {
+                return "unknown";
+            }
+            if (task instanceof String) {
+                return (String) task;
+            }
+            return task.getClass().getName();
+        }
+    }
+
+    public static class StallReport {
+
+        private final String mLooperName;
+        private final String mTaskName;
+        private final long mDurationMs;
+        private final StackTraceElement[] mStackTrace;
+
+        private StallReport(String looperName,
+                            String taskName,
+                            long durationMs,
+                            StackTraceElement[] stackTrace) {
+            mLooperName = looperName;
+            mTaskName = taskName;
+            mDurationMs = durationMs;
+            mStackTrace = stackTrace;
+        }
+
+        public String getLooperName() {
+            return mLooperName;
+        }
+
+        /**
+         * @return class name of the task's Runnable or handler, or the description provided by the
+         *         message loop
+         */
+        public String getTaskName() {
+            return mTaskName;
+        }
+
+        /**
+         * @return how long the task had been running when the stall was detected
+         */
+        public long getDurationMs() {
+            return mDurationMs;
+        }
+
+        /**
+         * @return stack trace of the looper's thread when the stall was detected
+         */
+        public StackTraceElement[] getStackTrace() {
+            return mStackTrace.clone();
+        }
+
+        /**
+         * @return throwable whose stack trace is the looper thread's one, for logging
+         */
+        public Throwable toThrowable() {
+            Throwable throwable = new Throwable(toString());
+            throwable.setStackTrace(mStackTrace);
+            return throwable;
+        }
+
+        @Override
+        public String toString() {
+            return "Looper \"" + mLooperName + "\" stalled for " + mDurationMs + "ms in " + mTaskName;
+        }
+    }
+}
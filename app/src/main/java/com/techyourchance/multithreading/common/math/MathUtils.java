@@ -22,4 +22,14 @@ public class MathUtils {
         return r;
     }
 
+    /**
+     * @return the smallest power of 2 that is greater than or equal to the argument
+     */
+    public static int ceilToPowerOfTwo(int x) {
+        if (x <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(x - 1) << 1;
+    }
+
 }
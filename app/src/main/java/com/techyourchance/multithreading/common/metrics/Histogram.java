@@ -0,0 +1,140 @@
+package com.techyourchance.multithreading.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative long values (e.g. durations in nanoseconds) with
+ * power-of-2 buckets: bucket 0 holds 0, bucket i holds values in [2^(i-1), 2^i).
+ * Recording costs a few atomic increments and never allocates.
+ * <p>
+ * Snapshots taken while other threads record are approximate: count, sum and buckets are
+ * read one after another, not atomically.
+ */
+public class Histogram {
+
+    private static final int NUM_OF_BUCKETS = Long.SIZE + 1;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(NUM_OF_BUCKETS);
+    private final AtomicLong mCount = new AtomicLong(0);
+    private final AtomicLong mSum = new AtomicLong(0);
+    private final AtomicLong mMax = new AtomicLong(0);
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mBuckets.incrementAndGet(bucketIndex(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+        long max;
+        while (value > (max = mMax.get())) {
+            if (mMax.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            mBuckets.set(i, 0);
+        }
+        mCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    public Snapshot getSnapshot() {
+        long[] buckets = new long[NUM_OF_BUCKETS];
+        for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+            buckets[i] = mBuckets.get(i);
+        }
+        return new Snapshot(buckets, mCount.get(), mSum.get(), mMax.get());
+    }
+
+    private static int bucketIndex(long value) {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long bucketUpperBound(int bucketIndex) {
+        if (bucketIndex == 0) {
+            return 0;
+        }
+        return bucketIndex >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucketIndex) - 1;
+    }
+
+    public static class Snapshot {
+
+        private final long[] mBuckets;
+        private final long mCount;
+        private final long mSum;
+        private final long mMax;
+
+        private Snapshot(long[] buckets, long count, long sum, long max) {
+            mBuckets = buckets;
+            mCount = count;
+            mSum = sum;
+            mMax = max;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getSum() {
+            return mSum;
+        }
+
+        public long getMax() {
+            return mMax;
+        }
+
+        public double getMean() {
+            return mCount == 0 ? 0 : (double) mSum / mCount;
+        }
+
+        /**
+         * @param percentile value in range [0, 100]
+         * @return upper bound of the bucket that contains the given percentile (capped by max)
+         */
+        public long getValueAtPercentile(double percentile) {
+            long total = 0;
+            for (long bucketCount : mBuckets) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100);
+            long seen = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                seen += mBuckets[i];
+                if (seen >= rank && mBuckets[i] > 0) {
+                    return Math.min(bucketUpperBound(i), mMax);
+                }
+            }
+            return mMax;
+        }
+
+        /**
+         * @return number of recorded values in each bucket; bucket i holds values in
+         *         [2^(i-1), 2^i), bucket 0 holds 0
+         */
+        public long[] getBuckets() {
+            return mBuckets.clone();
+        }
+
+        @Override
+        public String toString() {
+            return "count: " + mCount
+                    + ", mean: " + (long) getMean()
+                    + ", p50: " + getValueAtPercentile(50)
+                    + ", p99: " + getValueAtPercentile(99)
+                    + ", max: " + mMax;
+        }
+    }
+}
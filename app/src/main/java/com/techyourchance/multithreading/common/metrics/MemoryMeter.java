@@ -0,0 +1,57 @@
+package com.techyourchance.multithreading.common.metrics;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Measures how much the process memory footprint grew during a time interval. Heap usage alone
+ * doesn't reflect the cost of threads, as their stacks are allocated outside of the heap,
+ * therefore this class reads the resident set size, which accounts for the touched stack pages.
+ */
+public class MemoryMeter {
+
+    public static final long UNKNOWN = -1;
+
+    private static final String PROC_STATUS_FILE = "/proc/self/status";
+    private static final String RESIDENT_SET_SIZE_KEY = "VmRSS:";
+
+    private long mStartResidentSetSizeKb;
+
+    public void start() {
+        mStartResidentSetSizeKb = getResidentSetSizeKb();
+    }
+
+    /**
+     * @return growth of the resident set size in KB since the last call to {@link #start()}
+     *         (negative if memory was released), or {@link #UNKNOWN} if it can't be read in this
+     *         runtime
+     */
+    public long stop() {
+        long residentSetSizeKb = getResidentSetSizeKb();
+        if (residentSetSizeKb == UNKNOWN || mStartResidentSetSizeKb == UNKNOWN) {
+            return UNKNOWN;
+        }
+        return residentSetSizeKb - mStartResidentSetSizeKb;
+    }
+
+    /**
+     * @return resident set size of this process in KB, or {@link #UNKNOWN} if it can't be read
+     *         (e.g. on non-Linux systems)
+     */
+    public static long getResidentSetSizeKb() {
+        try (BufferedReader reader = new BufferedReader(new FileReader(PROC_STATUS_FILE))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESIDENT_SET_SIZE_KEY)) {
+                    // e.g. "VmRSS:     12345 kB"
+                    String value = line.substring(RESIDENT_SET_SIZE_KEY.length()).trim();
+                    return Long.parseLong(value.split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // fall through
+        }
+        return UNKNOWN;
+    }
+}
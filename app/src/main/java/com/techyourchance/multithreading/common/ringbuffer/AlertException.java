@@ -0,0 +1,18 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+/**
+ * Thrown by {@link SequenceBarrier#waitFor(long)} when the barrier was alerted. Pre-allocated and
+ * without stack trace because it is used for control flow.
+ */
+public final class AlertException extends Exception {
+
+    static final AlertException INSTANCE = new AlertException();
+
+    private AlertException() {
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
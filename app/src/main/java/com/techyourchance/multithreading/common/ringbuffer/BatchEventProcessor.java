@@ -0,0 +1,57 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+/**
+ * Consumer of {@link RingBuffer}: waits on its {@link SequenceBarrier} and hands all the events
+ * that became available since the last wait to {@link EventHandler} as a single batch.
+ * The sequence of this processor is published once per batch, not once per event.
+ */
+public class BatchEventProcessor<E> implements Runnable {
+
+    private final RingBuffer<E> mRingBuffer;
+    private final SequenceBarrier mSequenceBarrier;
+    private final EventHandler<E> mEventHandler;
+
+    private final Sequence mSequence = new Sequence();
+
+    private volatile boolean mHalted = false;
+
+    public BatchEventProcessor(RingBuffer<E> ringBuffer,
+                               SequenceBarrier sequenceBarrier,
+                               EventHandler<E> eventHandler) {
+        mRingBuffer = ringBuffer;
+        mSequenceBarrier = sequenceBarrier;
+        mEventHandler = eventHandler;
+    }
+
+    public Sequence getSequence() {
+        return mSequence;
+    }
+
+    /**
+     * Stop processing after the current batch. Can be called before {@link #run()}, which then
+     * returns immediately. A halted processor can't be restarted.
+     */
+    public void halt() {
+        mHalted = true;
+        mSequenceBarrier.alert();
+    }
+
+    @Override
+    public void run() {
+        // the alert is not cleared here: that would lose a halt() that happened before this call
+        long nextSequence = mSequence.get() + 1L;
+        while (!mHalted) {
+            try {
+                long availableSequence = mSequenceBarrier.waitFor(nextSequence);
+                while (nextSequence <= availableSequence) {
+                    E event = mRingBuffer.get(nextSequence);
+                    mEventHandler.onEvent(event, nextSequence, nextSequence == availableSequence);
+                    nextSequence++;
+                }
+                mSequence.set(availableSequence);
+            } catch (AlertException e) {
+                // only halt() alerts the barrier; the loop condition ends the processing
+            }
+        }
+    }
+}
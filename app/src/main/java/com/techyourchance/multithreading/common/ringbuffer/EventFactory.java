@@ -0,0 +1,8 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+/**
+ * Creates the mutable event objects that pre-populate {@link RingBuffer}.
+ */
+public interface EventFactory<E> {
+    E newInstance();
+}
@@ -0,0 +1,15 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+/**
+ * Callback invoked by {@link BatchEventProcessor} for each event that became available in
+ * {@link RingBuffer}.
+ */
+public interface EventHandler<E> {
+
+    /**
+     * @param event the event slot; it is owned by the handler only for the duration of this call
+     * @param sequence the sequence of the event
+     * @param endOfBatch true if this is the last event that was available when the batch started
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,103 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pre-allocated ring of mutable event slots in the style of LMAX Disruptor. The producer claims
+ * a slot with {@link #next()}, writes into the event returned by {@link #get(long)} and makes it
+ * visible to consumers with {@link #publish(long)}. Events are never allocated after construction,
+ * therefore steady-state message flow doesn't produce garbage.
+ * <p>
+ * This implementation supports a single producer thread.
+ */
+public class RingBuffer<E> {
+
+    private static final int YIELD_TRIES = 100;
+
+    private final Object[] mEntries;
+    private final int mBufferSize;
+    private final int mIndexMask;
+
+    private final Sequence mCursor = new Sequence();
+
+    private volatile Sequence[] mGatingSequences = new Sequence[0];
+
+    // accessed only by the producer thread
+    private long mNextValue = Sequence.INITIAL_VALUE;
+    private long mCachedGatingValue = Sequence.INITIAL_VALUE;
+
+    /**
+     * @param bufferSize number of event slots; must be a power of 2
+     */
+    public RingBuffer(EventFactory<E> eventFactory, int bufferSize) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("buffer size must be a power of 2: " + bufferSize);
+        }
+        mBufferSize = bufferSize;
+        mIndexMask = bufferSize - 1;
+        mEntries = new Object[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            mEntries[i] = eventFactory.newInstance();
+        }
+    }
+
+    public int getBufferSize() {
+        return mBufferSize;
+    }
+
+    public Sequence getCursor() {
+        return mCursor;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) mEntries[(int) sequence & mIndexMask];
+    }
+
+    /**
+     * The sequences of the last consumers in the pipeline. The producer will not wrap around
+     * the ring past the slowest of them.
+     */
+    public void setGatingSequences(Sequence... gatingSequences) {
+        mGatingSequences = gatingSequences.clone();
+    }
+
+    /**
+     * Barrier for a consumer that depends on the given upstream consumers, or on the producer
+     * if no dependencies specified.
+     */
+    public SequenceBarrier newBarrier(Sequence... dependentSequences) {
+        return new SequenceBarrier(mCursor, dependentSequences.clone());
+    }
+
+    /**
+     * Claim the next slot, waiting if necessary for the consumers to free it.
+     *
+     * @return the sequence of the claimed slot
+     */
+    public long next() {
+        long nextSequence = mNextValue + 1;
+        long wrapPoint = nextSequence - mBufferSize;
+
+        if (wrapPoint > mCachedGatingValue) {
+            long minSequence;
+            int counter = YIELD_TRIES;
+            while (wrapPoint > (minSequence = Sequence.getMinimumSequence(mGatingSequences, mNextValue))) {
+                if (counter > 0) {
+                    counter--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(1L);
+                }
+            }
+            mCachedGatingValue = minSequence;
+        }
+
+        mNextValue = nextSequence;
+        return nextSequence;
+    }
+
+    public void publish(long sequence) {
+        mCursor.set(sequence);
+    }
+}
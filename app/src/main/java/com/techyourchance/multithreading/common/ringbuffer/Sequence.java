@@ -0,0 +1,38 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+import com.techyourchance.multithreading.common.atomic.PaddedAtomicLong;
+
+/**
+ * Position of a producer or a consumer in {@link RingBuffer}. Extends (rather than wraps)
+ * {@link PaddedAtomicLong}, so that sequences written by different threads never share a cache
+ * line and reading a sequence costs no extra dependent load.
+ */
+public class Sequence extends PaddedAtomicLong {
+
+    public static final long INITIAL_VALUE = -1L;
+
+    public Sequence() {
+        this(INITIAL_VALUE);
+    }
+
+    public Sequence(long initialValue) {
+        super(initialValue);
+    }
+
+    /**
+     * Ordered write: the value becomes visible to other threads after all preceding writes
+     * (e.g. to the event slot), but without the cost of a full volatile write.
+     */
+    @Override
+    public void set(long newValue) {
+        lazySet(newValue);
+    }
+
+    static long getMinimumSequence(Sequence[] sequences, long minimum) {
+        for (Sequence sequence : sequences) {
+            long value = sequence.get();
+            minimum = Math.min(minimum, value);
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,70 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tracks the sequences a consumer depends on (either the publisher's cursor, or the sequences of
+ * upstream consumers) and lets the consumer wait until a given sequence becomes available.
+ */
+public class SequenceBarrier {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 100_000L;
+
+    private final Sequence mCursor;
+    private final Sequence[] mDependentSequences;
+
+    private volatile boolean mAlerted = false;
+
+    SequenceBarrier(Sequence cursor, Sequence[] dependentSequences) {
+        mCursor = cursor;
+        mDependentSequences = dependentSequences;
+    }
+
+    /**
+     * Wait until the given sequence becomes available, busy-spinning first, then yielding and
+     * finally parking the calling thread.
+     *
+     * @return the highest available sequence, which can be greater than the requested one
+     * @throws AlertException if this barrier was alerted
+     */
+    public long waitFor(long sequence) throws AlertException {
+        int counter = SPIN_TRIES + YIELD_TRIES;
+        long availableSequence;
+        while ((availableSequence = getAvailableSequence()) < sequence) {
+            checkAlert();
+            if (counter > YIELD_TRIES) {
+                counter--;
+            } else if (counter > 0) {
+                counter--;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        return availableSequence;
+    }
+
+    private long getAvailableSequence() {
+        if (mDependentSequences.length == 0) {
+            return mCursor.get();
+        } else {
+            return Sequence.getMinimumSequence(mDependentSequences, Long.MAX_VALUE);
+        }
+    }
+
+    public void alert() {
+        mAlerted = true;
+    }
+
+    public void clearAlert() {
+        mAlerted = false;
+    }
+
+    public void checkAlert() throws AlertException {
+        if (mAlerted) {
+            throw AlertException.INSTANCE;
+        }
+    }
+}
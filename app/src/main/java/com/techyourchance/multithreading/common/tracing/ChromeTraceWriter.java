@@ -0,0 +1,112 @@
+package com.techyourchance.multithreading.common.tracing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes {@link TaskSpan}s as Chrome trace-event JSON.
+ * <p>
+ * Execution is written as a complete ("X") event on the track of the executing thread. Time
+ * spent in the queue isn't bound to any thread and can overlap with other tasks, so it's
+ * written as an async ("b"/"e") event pair instead.
+ */
+class ChromeTraceWriter {
+
+    private static final int PID = 1;
+
+    private ChromeTraceWriter() {}
+
+    static void write(List<TaskSpan> spans, Writer writer) throws IOException {
+        writer.write("{\"traceEvents\":[");
+
+        boolean first = true;
+        Map<Long, String> threadNames = new HashMap<>();
+        long asyncId = 0;
+        for (TaskSpan span : spans) {
+            threadNames.put(span.getThreadId(), span.getThreadName());
+
+            if (span.getQueueWaitTimeNanos() > 0) {
+                asyncId++;
+                first = writeSeparator(writer, first);
+                writeAsyncEvent(writer, span, "b", span.getEnqueueTimeNanos(), asyncId);
+                first = writeSeparator(writer, first);
+                writeAsyncEvent(writer, span, "e", span.getStartTimeNanos(), asyncId);
+            }
+
+            first = writeSeparator(writer, first);
+            writer.write("{\"name\":" + quote(span.getName())
+                    + ",\"cat\":\"run\",\"ph\":\"X\""
+                    + ",\"ts\":" + toMicros(span.getStartTimeNanos())
+                    + ",\"dur\":" + toMicros(span.getRunTimeNanos())
+                    + ",\"pid\":" + PID
+                    + ",\"tid\":" + span.getThreadId() + "}");
+        }
+
+        for (Map.Entry<Long, String> threadName : threadNames.entrySet()) {
+            first = writeSeparator(writer, first);
+            writer.write("{\"name\":\"thread_name\",\"ph\":\"M\""
+                    + ",\"pid\":" + PID
+                    + ",\"tid\":" + threadName.getKey()
+                    + ",\"args\":{\"name\":" + quote(threadName.getValue()) + "}}");
+        }
+
+        writer.write("],\"displayTimeUnit\":\"ms\"}");
+    }
+
+    private static void writeAsyncEvent(Writer writer,
+                                        TaskSpan span,
+                                        String phase,
+                                        long timestampNanos,
+                                        long id) throws IOException {
+        writer.write("{\"name\":" + quote(span.getName() + " (queued)")
+                + ",\"cat\":\"queue\",\"ph\":\"" + phase + "\""
+                + ",\"id\":" + id
+                + ",\"ts\":" + toMicros(timestampNanos)
+                + ",\"pid\":" + PID
+                + ",\"tid\":" + span.getThreadId() + "}");
+    }
+
+    private static boolean writeSeparator(Writer writer, boolean first) throws IOException {
+        if (!first) {
+            writer.write(",\n");
+        }
+        return false;
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / 1000d;
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package com.techyourchance.multithreading.common.tracing;
+
+/**
+ * Timeline of a single traced task. All timestamps are {@link System#nanoTime()} values.
+ */
+public class TaskSpan {
+
+    private final String mName;
+    private final long mThreadId;
+    private final String mThreadName;
+    private final long mEnqueueTimeNanos;
+    private final long mStartTimeNanos;
+    private final long mEndTimeNanos;
+
+    TaskSpan(String name,
+             long threadId,
+             String threadName,
+             long enqueueTimeNanos,
+             long startTimeNanos,
+             long endTimeNanos) {
+        mName = name;
+        mThreadId = threadId;
+        mThreadName = threadName;
+        mEnqueueTimeNanos = enqueueTimeNanos;
+        mStartTimeNanos = startTimeNanos;
+        mEndTimeNanos = endTimeNanos;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * @return id of the thread that executed the task
+     */
+    public long getThreadId() {
+        return mThreadId;
+    }
+
+    public String getThreadName() {
+        return mThreadName;
+    }
+
+    public long getEnqueueTimeNanos() {
+        return mEnqueueTimeNanos;
+    }
+
+    public long getStartTimeNanos() {
+        return mStartTimeNanos;
+    }
+
+    public long getEndTimeNanos() {
+        return mEndTimeNanos;
+    }
+
+    public long getQueueWaitTimeNanos() {
+        return mStartTimeNanos - mEnqueueTimeNanos;
+    }
+
+    public long getRunTimeNanos() {
+        return mEndTimeNanos - mStartTimeNanos;
+    }
+}
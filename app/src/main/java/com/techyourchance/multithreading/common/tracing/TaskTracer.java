@@ -0,0 +1,141 @@
+package com.techyourchance.multithreading.common.tracing;
+
+import android.util.Log;
+
+import com.techyourchance.multithreading.common.math.MathUtils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records {@link TaskSpan}s of traced tasks into a fixed-size, lock-free ring buffer. When the
+ * buffer is full, the oldest spans are overwritten.
+ * <p>
+ * Tasks are traced by wrapping them with {@link #wrap(String, Runnable)} at submission time; see
+ * {@link TracingExecutor}, {@link TracingBackgroundThreadPoster} and {@link TracingHandler}.
+ * While the tracer is disabled, wrapping returns the task itself.
+ */
+public class TaskTracer {
+
+    private final AtomicReferenceArray<TaskSpan> mSpans;
+    private final int mIndexMask;
+    private final AtomicLong mNextIndex = new AtomicLong(0);
+
+    private volatile boolean mEnabled;
+
+    /**
+     * @param capacity max number of retained spans; rounded up to a power of 2
+     */
+    public TaskTracer(int capacity) {
+        int bufferSize = MathUtils.ceilToPowerOfTwo(capacity);
+        mSpans = new AtomicReferenceArray<>(bufferSize);
+        mIndexMask = bufferSize - 1;
+    }
+
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * @return task that records its span when executed, or the given task if tracing is disabled
+     */
+    public Runnable wrap(String name, Runnable task) {
+        return wrap(name, task, System.nanoTime());
+    }
+
+    /**
+     * @param enqueueTimeNanos the earliest time the task is supposed to start
+     */
+    Runnable wrap(final String name, final Runnable task, final long enqueueTimeNanos) {
+        if (!mEnabled) {
+            return task;
+        }
+        return () -> {
+            long startTimeNanos = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                Thread thread = Thread.currentThread();
+                record(new TaskSpan(
+                        name,
+                        thread.getId(),
+                        thread.getName(),
+                        enqueueTimeNanos,
+                        startTimeNanos,
+                        System.nanoTime()
+                ));
+            }
+        };
+    }
+
+    private void record(TaskSpan span) {
+        long index = mNextIndex.getAndIncrement();
+        mSpans.set((int) (index & mIndexMask), span);
+    }
+
+    public void clear() {
+        for (int i = 0; i < mSpans.length(); i++) {
+            mSpans.set(i, null);
+        }
+    }
+
+    /**
+     * @return retained spans ordered by enqueue time
+     */
+    public List<TaskSpan> getSpans() {
+        List<TaskSpan> spans = new ArrayList<>(mSpans.length());
+        for (int i = 0; i < mSpans.length(); i++) {
+            TaskSpan span = mSpans.get(i);
+            if (span != null) {
+                spans.add(span);
+            }
+        }
+        Collections.sort(spans, new Comparator<TaskSpan>() {
+            @Override
+            public int compare(TaskSpan lhs, TaskSpan rhs) {
+                return Long.compare(lhs.getEnqueueTimeNanos(), rhs.getEnqueueTimeNanos());
+            }
+        });
+        return spans;
+    }
+
+    /**
+     * Write the retained spans to the given file in Chrome trace-event format, replacing its
+     * contents. The file can be opened in chrome://tracing or Perfetto.
+     */
+    public void exportChromeTrace(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            ChromeTraceWriter.write(getSpans(), writer);
+        }
+    }
+
+    /**
+     * If tracing is enabled, export the retained spans on the given executor (see
+     * {@link #exportChromeTrace(File)}); failures are logged.
+     */
+    public void exportChromeTraceIfEnabled(File file, Executor executor) {
+        if (!mEnabled) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                exportChromeTrace(file);
+            } catch (IOException e) {
+                Log.e("TaskTracer", "failed to export trace to " + file, e);
+            }
+        });
+    }
+}
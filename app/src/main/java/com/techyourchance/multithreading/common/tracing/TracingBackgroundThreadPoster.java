@@ -0,0 +1,24 @@
+package com.techyourchance.multithreading.common.tracing;
+
+import com.techyourchance.threadposter.BackgroundThreadPoster;
+
+/**
+ * Traces tasks posted to {@link BackgroundThreadPoster}. The poster's post() method is final,
+ * so this is a wrapper rather than a subclass. The poster can't remove posted tasks, so, unlike
+ * {@link TracingHandler}, this class doesn't need to keep track of the wrappers.
+ */
+public class TracingBackgroundThreadPoster {
+
+    private final BackgroundThreadPoster mBackgroundThreadPoster;
+    private final TaskTracer mTaskTracer;
+
+    public TracingBackgroundThreadPoster(BackgroundThreadPoster backgroundThreadPoster,
+                                         TaskTracer taskTracer) {
+        mBackgroundThreadPoster = backgroundThreadPoster;
+        mTaskTracer = taskTracer;
+    }
+
+    public void post(String taskName, Runnable task) {
+        mBackgroundThreadPoster.post(mTaskTracer.wrap(taskName, task));
+    }
+}
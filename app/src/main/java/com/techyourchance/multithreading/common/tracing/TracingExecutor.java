@@ -0,0 +1,31 @@
+package com.techyourchance.multithreading.common.tracing;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor decorator that traces each task with {@link TaskTracer}.
+ */
+public class TracingExecutor implements Executor {
+
+    private final Executor mDelegate;
+    private final TaskTracer mTaskTracer;
+    private final String mDefaultTaskName;
+
+    /**
+     * @param defaultTaskName name of the tasks submitted through {@link #execute(Runnable)}
+     */
+    public TracingExecutor(Executor delegate, TaskTracer taskTracer, String defaultTaskName) {
+        mDelegate = delegate;
+        mTaskTracer = taskTracer;
+        mDefaultTaskName = defaultTaskName;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        execute(mDefaultTaskName, command);
+    }
+
+    public void execute(String taskName, Runnable command) {
+        mDelegate.execute(mTaskTracer.wrap(taskName, command));
+    }
+}
@@ -0,0 +1,107 @@
+package com.techyourchance.multithreading.common.tracing;
+
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traces tasks posted to {@link Handler}. Handler's post methods are final, so this is a wrapper
+ * rather than a subclass.
+ * <p>
+ * The handler receives wrappers rather than the posted tasks, so the wrappers of the pending tasks
+ * are kept by task, and pending tasks must be removed with {@link #removeCallbacks(Runnable)} of
+ * this class; the handler's own removeCallbacks() wouldn't find them.
+ */
+public class TracingHandler {
+
+    private final Object LOCK = new Object();
+
+    private final Handler mHandler;
+    private final TaskTracer mTaskTracer;
+
+    // guarded by LOCK; the wrappers of the tasks that are posted, but haven't run yet
+    private final Map<Runnable, List<PostedTask>> mPendingTasks = new HashMap<>();
+
+    public TracingHandler(Handler handler, TaskTracer taskTracer) {
+        mHandler = handler;
+        mTaskTracer = taskTracer;
+    }
+
+    public boolean post(String taskName, Runnable task) {
+        return post(task, mTaskTracer.wrap(taskName, task), 0);
+    }
+
+    /**
+     * The delay isn't counted as queue wait: the task is considered enqueued when it's due.
+     */
+    public boolean postDelayed(String taskName, Runnable task, long delayMillis) {
+        long dueTimeNanos = System.nanoTime() + Math.max(0, delayMillis) * 1_000_000L;
+        return post(task, mTaskTracer.wrap(taskName, task, dueTimeNanos), delayMillis);
+    }
+
+    /**
+     * Remove the pending posts of the given task, like {@link Handler#removeCallbacks(Runnable)}
+     */
+    public void removeCallbacks(Runnable task) {
+        List<PostedTask> postedTasks;
+        synchronized (LOCK) {
+            postedTasks = mPendingTasks.remove(task);
+        }
+        if (postedTasks != null) {
+            for (PostedTask postedTask : postedTasks) {
+                mHandler.removeCallbacks(postedTask);
+            }
+        }
+        // posted while the tracer was disabled, i.e. not wrapped
+        mHandler.removeCallbacks(task);
+    }
+
+    private boolean post(Runnable task, Runnable tracedTask, long delayMillis) {
+        if (tracedTask == task) {
+            return mHandler.postDelayed(task, delayMillis);
+        }
+        PostedTask postedTask = new PostedTask(task, tracedTask);
+        synchronized (LOCK) {
+            List<PostedTask> postedTasks = mPendingTasks.get(task);
+            if (postedTasks == null) {
+                postedTasks = new ArrayList<>(1);
+                mPendingTasks.put(task, postedTasks);
+            }
+            postedTasks.add(postedTask);
+        }
+        if (!mHandler.postDelayed(postedTask, delayMillis)) {
+            onPostedTaskDone(postedTask);
+            return false;
+        }
+        return true;
+    }
+
+    private void onPostedTaskDone(PostedTask postedTask) {
+        synchronized (LOCK) {
+            List<PostedTask> postedTasks = mPendingTasks.get(postedTask.mTask);
+            if (postedTasks != null && postedTasks.remove(postedTask) && postedTasks.isEmpty()) {
+                mPendingTasks.remove(postedTask.mTask);
+            }
+        }
+    }
+
+    private class PostedTask implements Runnable {
+
+        private final Runnable mTask;
+        private final Runnable mTracedTask;
+
+        private PostedTask(Runnable task, Runnable tracedTask) {
+            mTask = task;
+            mTracedTask = tracedTask;
+        }
+
+        @Override
+        public void run() {
+            onPostedTaskDone(this);
+            mTracedTask.run();
+        }
+    }
+}
@@ -12,6 +12,12 @@ import android.widget.TextView;
 
 import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
+import com.techyourchance.multithreading.common.execution.ExecutionMode;
+import com.techyourchance.multithreading.common.execution.TaskPriority;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -19,22 +25,40 @@ import androidx.fragment.app.Fragment;
 
 
 @SuppressLint("SetTextI18n")
-public class AtomicityDemonstrationFragment extends BaseFragment {
+public class AtomicityDemonstrationFragment extends BaseFragment
+        implements CounterBenchmarkUseCase.Listener {
 
     private static final int COUNT_UP_TO = 1000;
     private static final int NUM_OF_COUNTER_THREADS = 100;
 
+    private static final int BENCHMARK_MAX_NUM_OF_THREADS = 256;
+    private static final int BENCHMARK_TOTAL_INCREMENTS = 1 << 22;
+
     public static Fragment newInstance() {
         return new AtomicityDemonstrationFragment();
     }
 
     private Button mBtnStartCount;
     private TextView mTxtFinalCount;
+    private Button mBtnRunCounterBenchmark;
+    private TextView mTxtCounterBenchmarkResults;
 
     private Handler mUiHandler = new Handler(Looper.getMainLooper());
 
     private volatile int mCount;
 
+    private CounterBenchmarkUseCase mCounterBenchmarkUseCase;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        // counter threads don't take BULK slots: they'd hold them while waiting for each other
+        mCounterBenchmarkUseCase = new CounterBenchmarkUseCase(
+                getCompositionRoot().getThreadPool().withPriority(TaskPriority.BULK),
+                getCompositionRoot().getThreadPerTaskExecutor(ExecutionMode.PLATFORM_THREAD_PER_TASK)
+        );
+    }
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -50,6 +74,11 @@ public class AtomicityDemonstrationFragment extends BaseFragment {
             }
         });
 
+        mTxtCounterBenchmarkResults = view.findViewById(R.id.txt_counter_benchmark_results);
+
+        mBtnRunCounterBenchmark = view.findViewById(R.id.btn_run_counter_benchmark);
+        mBtnRunCounterBenchmark.setOnClickListener(v -> runCounterBenchmark());
+
         return view;
     }
 
@@ -61,11 +90,40 @@ public class AtomicityDemonstrationFragment extends BaseFragment {
     @Override
     public void onStart() {
         super.onStart();
+        mCounterBenchmarkUseCase.registerListener(this, getCompositionRoot().getUiExecutor());
     }
 
     @Override
     public void onStop() {
         super.onStop();
+        // aborts the benchmark after the running measurement
+        mCounterBenchmarkUseCase.unregisterListener(this);
+        mBtnRunCounterBenchmark.setEnabled(true);
+    }
+
+    private void runCounterBenchmark() {
+        mTxtCounterBenchmarkResults.setText("");
+        mBtnRunCounterBenchmark.setEnabled(false);
+        mCounterBenchmarkUseCase.runBenchmarkAndNotify(
+                BENCHMARK_MAX_NUM_OF_THREADS,
+                BENCHMARK_TOTAL_INCREMENTS
+        );
+    }
+
+    @Override
+    public void onCounterBenchmarkProgress(CounterBenchmarkUseCase.Result result) {
+        mTxtCounterBenchmarkResults.append(result + "\n");
+    }
+
+    @Override
+    public void onCounterBenchmarkCompleted(List<CounterBenchmarkUseCase.Result> results) {
+        mBtnRunCounterBenchmark.setEnabled(true);
+    }
+
+    @Override
+    public void onCounterBenchmarkAborted() {
+        mTxtCounterBenchmarkResults.append("Aborted\n");
+        mBtnRunCounterBenchmark.setEnabled(true);
     }
 
     private void startCount() {
@@ -73,28 +131,55 @@ public class AtomicityDemonstrationFragment extends BaseFragment {
         mTxtFinalCount.setText("");
         mBtnStartCount.setEnabled(false);
 
+        CountDownLatch startGate = new CountDownLatch(1);
+        CountDownLatch allThreadsFinished = new CountDownLatch(NUM_OF_COUNTER_THREADS);
+
         for (int i = 0; i < NUM_OF_COUNTER_THREADS; i++) {
-            startCountThread();
+            startCountThread(startGate, allThreadsFinished);
         }
 
-        mUiHandler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                mTxtFinalCount.setText(String.valueOf(mCount));
-                mBtnStartCount.setEnabled(true);
+        // waits off the UI thread and posts the result as soon as the last counter thread finishes
+        new Thread(() -> {
+            long startNanos = System.nanoTime();
+            startGate.countDown();
+            try {
+                allThreadsFinished.await();
+            } catch (InterruptedException e) {
+                return;
             }
-        }, NUM_OF_COUNTER_THREADS * 20);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            // the latch guarantees that all the counter threads' increments are visible here
+            int finalCount = mCount;
+            mUiHandler.post(() -> {
+                mTxtFinalCount.setText(formatResult(finalCount, elapsedNanos));
+                mBtnStartCount.setEnabled(true);
+            });
+        }).start();
     }
 
-    private void startCountThread() {
+    private void startCountThread(CountDownLatch startGate, CountDownLatch allThreadsFinished) {
         new Thread(new Runnable() {
             @Override
             public void run() {
+                try {
+                    // all the threads start counting together, after they've all been created
+                    startGate.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
                 for (int i = 0; i < COUNT_UP_TO; i++) {
                     mCount++;
                 }
+                allThreadsFinished.countDown();
             }
         }).start();
     }
 
+    private static String formatResult(int finalCount, long elapsedNanos) {
+        long expectedCount = (long) NUM_OF_COUNTER_THREADS * COUNT_UP_TO;
+        return "Count: " + finalCount + " (expected " + expectedCount + ")\n"
+                + "Elapsed: " + TimeUnit.NANOSECONDS.toMicros(elapsedNanos) + "us, "
+                + expectedCount * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1) + " ops/s";
+    }
+
 }
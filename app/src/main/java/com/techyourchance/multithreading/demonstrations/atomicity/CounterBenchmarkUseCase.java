@@ -0,0 +1,206 @@
+package com.techyourchance.multithreading.demonstrations.atomicity;
+
+import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.counter.Counter;
+import com.techyourchance.multithreading.common.counter.CounterType;
+import com.techyourchance.multithreading.common.counter.Counters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import androidx.annotation.WorkerThread;
+
+/**
+ * Increments each {@link CounterType} from 1, 2, 4, ... up to the max number of threads and
+ * measures the throughput. The total number of increments is the same for all the thread counts,
+ * so that the results are directly comparable.
+ */
+public class CounterBenchmarkUseCase extends BaseObservable<CounterBenchmarkUseCase.Listener> {
+
+    public interface Listener {
+        void onCounterBenchmarkProgress(Result result);
+        void onCounterBenchmarkCompleted(List<Result> results);
+
+        /**
+         * The benchmark was interrupted, so its results would be incomplete or wrong
+         */
+        void onCounterBenchmarkAborted();
+    }
+
+    public static class Result {
+        private final CounterType mCounterType;
+        private final int mNumOfThreads;
+        private final long mExpectedCount;
+        private final long mActualCount;
+        private final long mElapsedNanos;
+
+        public Result(CounterType counterType,
+                      int numOfThreads,
+                      long expectedCount,
+                      long actualCount,
+                      long elapsedNanos) {
+            mCounterType = counterType;
+            mNumOfThreads = numOfThreads;
+            mExpectedCount = expectedCount;
+            mActualCount = actualCount;
+            mElapsedNanos = elapsedNanos;
+        }
+
+        public CounterType getCounterType() {
+            return mCounterType;
+        }
+
+        public int getNumOfThreads() {
+            return mNumOfThreads;
+        }
+
+        public long getExpectedCount() {
+            return mExpectedCount;
+        }
+
+        public long getActualCount() {
+            return mActualCount;
+        }
+
+        public boolean isCorrect() {
+            return mActualCount == mExpectedCount;
+        }
+
+        public long getElapsedNanos() {
+            return mElapsedNanos;
+        }
+
+        public long getOpsPerSecond() {
+            return mExpectedCount * TimeUnit.SECONDS.toNanos(1) / Math.max(mElapsedNanos, 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%-12s %4d threads %12d ops/s  %s",
+                    mCounterType,
+                    mNumOfThreads,
+                    getOpsPerSecond(),
+                    isCorrect() ? "correct" : "lost " + (mExpectedCount - mActualCount)
+            );
+        }
+    }
+
+    private final Object LOCK = new Object();
+
+    private final Executor mExecutor;
+    private final Executor mCounterThreadsExecutor;
+
+    // incremented to abort the running benchmark
+    private int mRunId;
+
+    /**
+     * @param executor runs the benchmark itself, which mostly waits for the counter threads
+     * @param counterThreadsExecutor runs the threads that increment the counters; it must run up
+     *                               to the max number of threads concurrently, because they're
+     *                               released together (e.g. a platform thread-per-task executor)
+     */
+    public CounterBenchmarkUseCase(Executor executor, Executor counterThreadsExecutor) {
+        mExecutor = executor;
+        mCounterThreadsExecutor = counterThreadsExecutor;
+    }
+
+    @Override
+    protected void onLastListenerUnregistered() {
+        super.onLastListenerUnregistered();
+        synchronized (LOCK) {
+            mRunId++;
+        }
+    }
+
+    /**
+     * Aborts the previously started benchmark, if any, after its running measurement. Aborted
+     * benchmarks don't notify, unless they were aborted by an interrupt of one of their threads.
+     */
+    public void runBenchmarkAndNotify(int maxNumOfThreads, int totalIncrements) {
+        final int runId;
+        synchronized (LOCK) {
+            runId = ++mRunId;
+        }
+        mExecutor.execute(() -> {
+            List<Result> results = new ArrayList<>();
+            for (CounterType counterType : CounterType.values()) {
+                for (int numOfThreads = 1; numOfThreads <= maxNumOfThreads; numOfThreads *= 2) {
+                    if (isAborted(runId)) {
+                        return;
+                    }
+                    Result result = measure(counterType, numOfThreads, totalIncrements / numOfThreads);
+                    if (result == null) {
+                        notifyListeners(Listener::onCounterBenchmarkAborted);
+                        return;
+                    }
+                    results.add(result);
+                    notifyListeners(listener -> listener.onCounterBenchmarkProgress(result));
+                }
+            }
+            List<Result> finalResults = Collections.unmodifiableList(results);
+            notifyListeners(listener -> listener.onCounterBenchmarkCompleted(finalResults));
+        });
+    }
+
+    /**
+     * @return the result, or null if the waiting or any of the counter threads was interrupted
+     */
+    @WorkerThread
+    private Result measure(CounterType counterType, int numOfThreads, int incrementsPerThread) {
+        Counter counter = Counters.newCounter(counterType);
+        CountDownLatch startGate = new CountDownLatch(1);
+        CountDownLatch allThreadsFinished = new CountDownLatch(numOfThreads);
+        AtomicBoolean counterThreadInterrupted = new AtomicBoolean(false);
+
+        // threads are started before the measurement and released together, so that thread
+        // creation isn't measured and all of them contend from the first increment
+        for (int i = 0; i < numOfThreads; i++) {
+            mCounterThreadsExecutor.execute(() -> {
+                try {
+                    startGate.await();
+                    for (int j = 0; j < incrementsPerThread; j++) {
+                        counter.increment();
+                    }
+                } catch (InterruptedException e) {
+                    counterThreadInterrupted.set(true);
+                } finally {
+                    // counted down even if interrupted, otherwise the benchmark would wait forever
+                    allThreadsFinished.countDown();
+                }
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        startGate.countDown();
+        try {
+            allThreadsFinished.await();
+        } catch (InterruptedException e) {
+            return null;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        if (counterThreadInterrupted.get()) {
+            return null;
+        }
+
+        return new Result(
+                counterType,
+                numOfThreads,
+                (long) numOfThreads * incrementsPerThread,
+                counter.get(),
+                elapsedNanos
+        );
+    }
+
+    private boolean isAborted(int runId) {
+        synchronized (LOCK) {
+            return runId != mRunId;
+        }
+    }
+}
@@ -184,18 +184,12 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
 
     private void notifySuccess(final BigInteger result) {
         mUiThreadPoster.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputed(result);
-            }
+            notifyListeners(listener -> listener.onFactorialComputed(result));
         });
     }
 
     private void notifyTimeout() {
-        mUiThreadPoster.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputationTimedOut();
-            }
-        });
+        mUiThreadPoster.post(() -> notifyListeners(Listener::onFactorialComputationTimedOut));
     }
 
     private static class ComputationRange {
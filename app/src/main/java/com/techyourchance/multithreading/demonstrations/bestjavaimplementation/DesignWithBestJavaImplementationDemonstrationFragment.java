@@ -0,0 +1,120 @@
+package com.techyourchance.multithreading.demonstrations.bestjavaimplementation;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import com.techyourchance.multithreading.R;
+import com.techyourchance.multithreading.common.BaseFragment;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+
+public class DesignWithBestJavaImplementationDemonstrationFragment extends BaseFragment {
+
+    public static Fragment newInstance() {
+        return new DesignWithBestJavaImplementationDemonstrationFragment();
+    }
+
+    private Button mBtnStart;
+    private ProgressBar mProgressBar;
+    private TextView mTxtReceivedMessagesCount;
+    private TextView mTxtExecutionTime;
+    private TextView mTxtQueueStatistics;
+
+    private ProducerConsumerBenchmarkUseCase mProducerConsumerBenchmarkUseCase;
+    private RingBufferBenchmarkUseCase mRingBufferBenchmarkUseCase;
+
+    private final ProducerConsumerBenchmarkUseCase.Listener mQueueListener =
+            this::onQueueBenchmarkCompleted;
+    private final ProducerConsumerBenchmarkUseCase.Listener mRingBufferListener =
+            this::onRingBufferBenchmarkCompleted;
+
+    private @Nullable ProducerConsumerBenchmarkUseCase.Result mQueueResult;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase(
+                getCompositionRoot().getBenchmarkConfig()
+        );
+        mRingBufferBenchmarkUseCase = new RingBufferBenchmarkUseCase(
+                getCompositionRoot().getBenchmarkConfig()
+        );
+    }
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        View view = inflater.inflate(R.layout.fragment_design_with_thread_demonstration, container, false);
+
+        mBtnStart = view.findViewById(R.id.btn_start);
+        mProgressBar = view.findViewById(R.id.progress);
+        mTxtReceivedMessagesCount = view.findViewById(R.id.txt_received_messages_count);
+        mTxtExecutionTime = view.findViewById(R.id.txt_execution_time);
+        mTxtQueueStatistics = view.findViewById(R.id.txt_queue_statistics);
+
+        mBtnStart.setOnClickListener(v -> {
+            mBtnStart.setEnabled(false);
+            mTxtReceivedMessagesCount.setText("");
+            mTxtExecutionTime.setText("");
+            mTxtQueueStatistics.setText("");
+            mProgressBar.setVisibility(View.VISIBLE);
+
+            // the variants run one after another, so they don't compete for the cores
+            mQueueResult = null;
+            mProducerConsumerBenchmarkUseCase.startBenchmarkAndNotify();
+        });
+
+        return view;
+    }
+
+    @Override
+    protected String getScreenTitle() {
+        return "";
+    }
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        mProducerConsumerBenchmarkUseCase.registerListener(mQueueListener);
+        mRingBufferBenchmarkUseCase.registerListener(mRingBufferListener);
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        mProducerConsumerBenchmarkUseCase.unregisterListener(mQueueListener);
+        mRingBufferBenchmarkUseCase.unregisterListener(mRingBufferListener);
+    }
+
+    private void onQueueBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result result) {
+        mQueueResult = result;
+        mRingBufferBenchmarkUseCase.startBenchmarkAndNotify();
+    }
+
+    private void onRingBufferBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result result) {
+        ProducerConsumerBenchmarkUseCase.Result queueResult = mQueueResult;
+        if (queueResult == null) {
+            return; // the queue variant completed while this screen was stopped
+        }
+        mProgressBar.setVisibility(View.INVISIBLE);
+        mBtnStart.setEnabled(true);
+        mTxtReceivedMessagesCount.setText(
+                "Received messages: " + queueResult.getNumOfReceivedMessages() + " (queue), "
+                        + result.getNumOfReceivedMessages() + " (ring buffer)"
+        );
+        mTxtExecutionTime.setText(
+                "Queue: " + queueResult.getExecutionTime() + "ms\n"
+                        + "Ring buffer: " + result.getExecutionTime() + "ms"
+        );
+        if (queueResult.getQueueStatistics() != null) {
+            mTxtQueueStatistics.setText(queueResult.getQueueStatistics().toString());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.techyourchance.multithreading.demonstrations.bestjavaimplementation;
+
+import com.techyourchance.multithreading.common.ringbuffer.EventFactory;
+
+/**
+ * Mutable ring buffer slot. Instances, including their payload arrays, are allocated once, when
+ * the ring is created, and then reused for all messages.
+ */
+class MessageEvent {
+
+    static EventFactory<MessageEvent> factory(int payloadSize) {
+        return () -> new MessageEvent(payloadSize);
+    }
+
+    final int[] payload;
+
+    int message;
+
+    /**
+     * Set on the terminal event that the producer publishes when it's cancelled, so that all the
+     * downstream stages reach the end of the stream.
+     */
+    boolean cancelled;
+
+    private MessageEvent(int payloadSize) {
+        payload = new int[payloadSize];
+    }
+
+}
@@ -1,111 +1,226 @@
 package com.techyourchance.multithreading.demonstrations.bestjavaimplementation;
 
-import com.techyourchance.multithreading.DefaultConfiguration;
 import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig.WorkerMode;
+import com.techyourchance.multithreading.common.benchmark.QueueBenchmarkResult;
+import com.techyourchance.multithreading.common.blockingqueue.MyIntBlockingQueue;
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics;
 import com.techyourchance.threadposter.BackgroundThreadPoster;
 import com.techyourchance.threadposter.UiThreadPoster;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
 public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerConsumerBenchmarkUseCase.Listener> {
 
     public static interface Listener {
         void onBenchmarkCompleted(Result result);
     }
 
-    public static class Result {
-        private final long mExecutionTime;
-        private final int mNumOfReceivedMessages;
+    public static class Result extends QueueBenchmarkResult {
 
         public Result(long executionTime, int numOfReceivedMessages) {
-            mExecutionTime = executionTime;
-            mNumOfReceivedMessages = numOfReceivedMessages;
-        }
-
-        public long getExecutionTime() {
-            return mExecutionTime;
+            this(executionTime, numOfReceivedMessages, null);
         }
 
-        public int getNumOfReceivedMessages() {
-            return mNumOfReceivedMessages;
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      @Nullable QueueStatistics.Snapshot queueStatistics) {
+            super(executionTime, numOfReceivedMessages, queueStatistics);
         }
     }
 
-    private static final int NUM_OF_MESSAGES = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES;
-    private static final int BLOCKING_QUEUE_CAPACITY = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE;
-
     private final Object LOCK = new Object();
 
     private final UiThreadPoster mUiThreadPoster = new UiThreadPoster();
     private final BackgroundThreadPoster mBackgroundThreadPoster = new BackgroundThreadPoster();
 
-    private final MyBlockingQueue mBlockingQueue = new MyBlockingQueue(BLOCKING_QUEUE_CAPACITY);
+    private final BenchmarkConfig mConfig;
+
+    private final MyIntBlockingQueue mBlockingQueue;
 
     private int mNumOfFinishedConsumers;
 
     private int mNumOfReceivedMessages;
 
+    public ProducerConsumerBenchmarkUseCase(BenchmarkConfig config) {
+        mConfig = config;
+        mBlockingQueue = new MyIntBlockingQueue(config.getBlockingQueueCapacity());
+        if (config.isCollectQueueStatistics()) {
+            mBlockingQueue.enableStatistics();
+        }
+    }
+
     public void startBenchmarkAndNotify() {
         mBackgroundThreadPoster.post(() -> {
+            Result result = runBenchmark();
+            if (result != null) {
+                notifySuccess(result);
+            }
+        });
+    }
 
+    /**
+     * Execute the warmup iterations followed by the measured one on the calling thread.
+     *
+     * @return result of the measured iteration, or null if the benchmark was interrupted
+     */
+    @WorkerThread
+    public @Nullable Result runBenchmark() {
+        Result result = null;
+        for (int i = 0; i <= mConfig.getWarmupIterations(); i++) {
+            result = runIteration();
+            if (result == null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    @WorkerThread
+    private @Nullable Result runIteration() {
+
+        synchronized (LOCK) {
             mNumOfReceivedMessages = 0;
             mNumOfFinishedConsumers = 0;
-            long startTimestamp = System.currentTimeMillis();
+        }
+        mBlockingQueue.resetStatistics();
+        long startTimestamp = System.currentTimeMillis();
+
+        int numOfConsumers;
+        if (mConfig.getWorkerMode() == WorkerMode.FIXED_WORKERS) {
+            startFixedWorkers();
+            numOfConsumers = mConfig.getNumOfConsumers();
+        } else {
+            startTaskPerMessageWorkers();
+            numOfConsumers = mConfig.getNumOfMessages();
+        }
 
-            // producers init thread
-            mBackgroundThreadPoster.post(() -> {
-                for (int i = 0; i < NUM_OF_MESSAGES; i++) {
-                    startNewProducer(i);
-                }
-            });
+        if (!waitForAllConsumersToFinish(numOfConsumers)) {
+            return null;
+        }
 
-            // consumers init thread
-            mBackgroundThreadPoster.post(() -> {
-                for (int i = 0; i < NUM_OF_MESSAGES; i++) {
-                    startNewConsumer();
-                }
-            });
+        synchronized (LOCK) {
+            return new Result(
+                    System.currentTimeMillis() - startTimestamp,
+                    mNumOfReceivedMessages,
+                    mBlockingQueue.getStatisticsSnapshot()
+            );
+        }
+    }
 
-            waitForAllConsumersToFinish();
+    /**
+     * @return false if the waiting was interrupted
+     */
+    private boolean waitForAllConsumersToFinish(int numOfConsumers) {
+        synchronized (LOCK) {
+            while (mNumOfFinishedConsumers < numOfConsumers) {
+                try {
+                    LOCK.wait();
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 
-            Result result;
-            synchronized (LOCK) {
-                result = new Result(
-                        System.currentTimeMillis() - startTimestamp,
-                        mNumOfReceivedMessages
-                );
+    private void startTaskPerMessageWorkers() {
+        // producers init thread
+        mBackgroundThreadPoster.post(() -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
+                startNewProducer(i);
             }
+        });
 
-            notifySuccess(result);
-            
+        // consumers init thread
+        mBackgroundThreadPoster.post(() -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
+                startNewConsumer();
+            }
         });
+    }
 
+    private void startFixedWorkers() {
+        for (int i = 0; i < mConfig.getNumOfProducers(); i++) {
+            startNewProducerWorker(i);
+        }
+        for (int i = 0; i < mConfig.getNumOfConsumers(); i++) {
+            startNewConsumerWorker(i);
+        }
     }
 
-    private void waitForAllConsumersToFinish() {
-        synchronized (LOCK) {
-            while (mNumOfFinishedConsumers < NUM_OF_MESSAGES) {
-                try {
-                    LOCK.wait();
-                } catch (InterruptedException e) {
-                    return;
+    /**
+     * Producer worker with index i produces messages i, i + P, i + 2P, etc.
+     */
+    private void startNewProducerWorker(final int workerIndex) {
+        mBackgroundThreadPoster.post(() -> {
+            try {
+                for (int index = workerIndex;
+                     index < mConfig.getNumOfMessages();
+                     index += mConfig.getNumOfProducers()) {
+                    Thread.sleep(mConfig.getProducerDelayMs());
+                    for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                        mBlockingQueue.putInt(index);
+                    }
                 }
+            } catch (InterruptedException e) {
+                return;
             }
-        }
+        });
+    }
+
+    private void startNewConsumerWorker(final int workerIndex) {
+        mBackgroundThreadPoster.post(() -> {
+            int numOfMessagesToReceive = getShareOfMessages(workerIndex, mConfig.getNumOfConsumers());
+            int numOfReceivedMessages = 0;
+            try {
+                for (int message = 0; message < numOfMessagesToReceive; message++) {
+                    for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                        mBlockingQueue.takeInt();
+                    }
+                    numOfReceivedMessages++;
+                }
+            } catch (InterruptedException e) {
+                // only the completely received messages are counted
+            }
+            synchronized (LOCK) {
+                mNumOfReceivedMessages += numOfReceivedMessages;
+                mNumOfFinishedConsumers++;
+                LOCK.notifyAll();
+            }
+        });
+    }
+
+    private int getShareOfMessages(int workerIndex, int numOfWorkers) {
+        int numOfMessages = mConfig.getNumOfMessages();
+        return numOfMessages / numOfWorkers + (workerIndex < numOfMessages % numOfWorkers ? 1 : 0);
     }
 
     private void startNewProducer(final int index) {
         mBackgroundThreadPoster.post(() -> {
             try {
-                Thread.sleep(DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS);
+                Thread.sleep(mConfig.getProducerDelayMs());
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    mBlockingQueue.putInt(index);
+                }
             } catch (InterruptedException e) {
                 return;
             }
-            mBlockingQueue.put(index);
         });
     }
 
     private void startNewConsumer() {
         mBackgroundThreadPoster.post(() -> {
-            int message = mBlockingQueue.take();
+            int message = -1;
+            try {
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    message = mBlockingQueue.takeInt();
+                }
+            } catch (InterruptedException e) {
+                message = -1;
+            }
             synchronized (LOCK) {
                 if (message != -1) {
                     mNumOfReceivedMessages++;
@@ -118,11 +233,8 @@ public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerCon
 
     private void notifySuccess(Result result) {
         mUiThreadPoster.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onBenchmarkCompleted(result);
-            }
+            notifyListeners(listener -> listener.onBenchmarkCompleted(result));
         });
     }
 
-
 }
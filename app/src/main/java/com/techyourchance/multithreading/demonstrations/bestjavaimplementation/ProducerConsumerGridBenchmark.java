@@ -0,0 +1,23 @@
+package com.techyourchance.multithreading.demonstrations.bestjavaimplementation;
+
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkGridRunner;
+
+/**
+ * Runs {@link ProducerConsumerBenchmarkUseCase} in {@link BenchmarkGridRunner}, with a new use
+ * case for each configuration of the grid.
+ */
+public class ProducerConsumerGridBenchmark
+        implements BenchmarkGridRunner.Benchmark<ProducerConsumerBenchmarkUseCase.Result> {
+
+    @Override
+    public ProducerConsumerBenchmarkUseCase.Result run(BenchmarkConfig config)
+            throws InterruptedException {
+        ProducerConsumerBenchmarkUseCase.Result result =
+                new ProducerConsumerBenchmarkUseCase(config).runBenchmark();
+        if (result == null) {
+            throw new InterruptedException("benchmark interrupted: " + config);
+        }
+        return result;
+    }
+}
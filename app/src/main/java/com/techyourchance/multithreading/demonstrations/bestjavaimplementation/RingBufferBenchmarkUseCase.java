@@ -0,0 +1,255 @@
+package com.techyourchance.multithreading.demonstrations.bestjavaimplementation;
+
+import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.math.MathUtils;
+import com.techyourchance.multithreading.common.ringbuffer.BatchEventProcessor;
+import com.techyourchance.multithreading.common.ringbuffer.EventHandler;
+import com.techyourchance.multithreading.common.ringbuffer.RingBuffer;
+import com.techyourchance.multithreading.common.ringbuffer.Sequence;
+import com.techyourchance.threadposter.BackgroundThreadPoster;
+import com.techyourchance.threadposter.UiThreadPoster;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Producer-consumer benchmark built on a pre-allocated {@link RingBuffer} instead of a blocking
+ * queue. Messages flow through a pipeline of stages: produce -> transform (N stages) -> count.
+ * Each stage is a single long-running {@link BatchEventProcessor}, so, unlike in
+ * {@link ProducerConsumerBenchmarkUseCase}, there are no per-message tasks or queue nodes.
+ * The ring is claimed by a single producer, so {@link BenchmarkConfig#getNumOfProducers()} and
+ * {@link BenchmarkConfig#getNumOfConsumers()} are ignored.
+ */
+public class RingBufferBenchmarkUseCase extends BaseObservable<ProducerConsumerBenchmarkUseCase.Listener> {
+
+    private static final int DEFAULT_NUM_OF_TRANSFORM_STAGES = 1;
+
+    private final Object LOCK = new Object();
+
+    private final UiThreadPoster mUiThreadPoster = new UiThreadPoster();
+    private final BackgroundThreadPoster mBackgroundThreadPoster = new BackgroundThreadPoster();
+
+    private final BenchmarkConfig mConfig;
+    private final int mNumOfTransformStages;
+
+    private boolean mCountStageFinished;
+    private boolean mCountStageCancelled;
+
+    private int mNumOfReceivedMessages;
+
+    public RingBufferBenchmarkUseCase(BenchmarkConfig config) {
+        this(config, DEFAULT_NUM_OF_TRANSFORM_STAGES);
+    }
+
+    public RingBufferBenchmarkUseCase(BenchmarkConfig config, int numOfTransformStages) {
+        if (numOfTransformStages < 0) {
+            throw new IllegalArgumentException("negative number of transform stages");
+        }
+        mConfig = config;
+        mNumOfTransformStages = numOfTransformStages;
+    }
+
+    public void startBenchmarkAndNotify() {
+        mBackgroundThreadPoster.post(() -> {
+            ProducerConsumerBenchmarkUseCase.Result result = runBenchmark();
+            if (result != null) {
+                notifySuccess(result);
+            }
+        });
+    }
+
+    /**
+     * Execute the warmup iterations followed by the measured one on the calling thread.
+     *
+     * @return result of the measured iteration, or null if the benchmark was interrupted
+     */
+    @WorkerThread
+    public @Nullable ProducerConsumerBenchmarkUseCase.Result runBenchmark() {
+        ProducerConsumerBenchmarkUseCase.Result result = null;
+        for (int i = 0; i <= mConfig.getWarmupIterations(); i++) {
+            result = runIteration();
+            if (result == null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    @WorkerThread
+    private @Nullable ProducerConsumerBenchmarkUseCase.Result runIteration() {
+
+        synchronized (LOCK) {
+            mCountStageFinished = mConfig.getNumOfMessages() == 0;
+            mCountStageCancelled = false;
+            mNumOfReceivedMessages = 0;
+        }
+
+        // slots and their payload arrays are allocated here, outside of the measured interval
+        RingBuffer<MessageEvent> ringBuffer = new RingBuffer<>(
+                MessageEvent.factory(mConfig.getPayloadSize()),
+                MathUtils.ceilToPowerOfTwo(mConfig.getBlockingQueueCapacity())
+        );
+
+        BatchEventProcessor<MessageEvent>[] processors = createPipeline(ringBuffer);
+
+        for (BatchEventProcessor<MessageEvent> processor : processors) {
+            mBackgroundThreadPoster.post(processor);
+        }
+
+        long startTimestamp = System.currentTimeMillis();
+
+        boolean produced = produceMessages(ringBuffer);
+        boolean completed = waitForCountStageToFinish() && produced;
+
+        for (BatchEventProcessor<MessageEvent> processor : processors) {
+            processor.halt();
+        }
+
+        if (!produced) {
+            // restore the interruption status swallowed by the producer
+            Thread.currentThread().interrupt();
+        }
+
+        if (!completed) {
+            return null;
+        }
+
+        synchronized (LOCK) {
+            return new ProducerConsumerBenchmarkUseCase.Result(
+                    System.currentTimeMillis() - startTimestamp,
+                    mNumOfReceivedMessages
+            );
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchEventProcessor<MessageEvent>[] createPipeline(RingBuffer<MessageEvent> ringBuffer) {
+        BatchEventProcessor<MessageEvent>[] processors = new BatchEventProcessor[mNumOfTransformStages + 1];
+
+        Sequence[] upstreamSequences = new Sequence[0]; // the first stage waits for the producer
+        for (int i = 0; i < mNumOfTransformStages; i++) {
+            processors[i] = new BatchEventProcessor<>(
+                    ringBuffer,
+                    ringBuffer.newBarrier(upstreamSequences),
+                    new TransformEventHandler()
+            );
+            upstreamSequences = new Sequence[] {processors[i].getSequence()};
+        }
+
+        BatchEventProcessor<MessageEvent> countProcessor = new BatchEventProcessor<>(
+                ringBuffer,
+                ringBuffer.newBarrier(upstreamSequences),
+                new CountEventHandler(mConfig.getNumOfMessages())
+        );
+        processors[mNumOfTransformStages] = countProcessor;
+
+        ringBuffer.setGatingSequences(countProcessor.getSequence());
+
+        return processors;
+    }
+
+    /**
+     * @return false if the producer was interrupted; the pipeline then receives a terminal
+     *         cancelled event instead of the remaining messages
+     */
+    @WorkerThread
+    private boolean produceMessages(RingBuffer<MessageEvent> ringBuffer) {
+        for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
+            if (mConfig.getProducerDelayMs() > 0) {
+                try {
+                    Thread.sleep(mConfig.getProducerDelayMs());
+                } catch (InterruptedException e) {
+                    publishCancellation(ringBuffer);
+                    return false;
+                }
+            }
+            long sequence = ringBuffer.next();
+            MessageEvent event = ringBuffer.get(sequence);
+            event.message = i;
+            event.cancelled = false;
+            int[] payload = event.payload;
+            for (int j = 0; j < payload.length; j++) {
+                payload[j] = i;
+            }
+            ringBuffer.publish(sequence);
+        }
+        return true;
+    }
+
+    private void publishCancellation(RingBuffer<MessageEvent> ringBuffer) {
+        long sequence = ringBuffer.next();
+        MessageEvent event = ringBuffer.get(sequence);
+        event.message = -1;
+        event.cancelled = true;
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * @return false if the waiting was interrupted or the count stage received the cancellation
+     */
+    @WorkerThread
+    private boolean waitForCountStageToFinish() {
+        synchronized (LOCK) {
+            while (!mCountStageFinished) {
+                try {
+                    LOCK.wait();
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+            return !mCountStageCancelled;
+        }
+    }
+
+    private void notifySuccess(ProducerConsumerBenchmarkUseCase.Result result) {
+        mUiThreadPoster.post(() -> {
+            notifyListeners(listener -> listener.onBenchmarkCompleted(result));
+        });
+    }
+
+    private static class TransformEventHandler implements EventHandler<MessageEvent> {
+        @Override
+        public void onEvent(MessageEvent event, long sequence, boolean endOfBatch) {
+            int[] payload = event.payload;
+            for (int i = 0; i < payload.length; i++) {
+                int transformed = payload[i];
+                transformed ^= transformed >>> 16;
+                transformed *= 0x45d9f3b;
+                payload[i] = transformed;
+            }
+        }
+    }
+
+    private class CountEventHandler implements EventHandler<MessageEvent> {
+
+        private final int mNumOfMessages;
+
+        private int mCount; // accessed only by the count stage thread
+
+        private CountEventHandler(int numOfMessages) {
+            mNumOfMessages = numOfMessages;
+        }
+
+        @Override
+        public void onEvent(MessageEvent event, long sequence, boolean endOfBatch) {
+            if (event.cancelled) {
+                synchronized (LOCK) {
+                    mCountStageCancelled = true;
+                    mCountStageFinished = true;
+                    LOCK.notifyAll();
+                }
+                return;
+            }
+            // done once every message has been counted; sequence numbers belong to the ring,
+            // not to the messages
+            if (++mCount == mNumOfMessages) {
+                synchronized (LOCK) {
+                    mNumOfReceivedMessages = mCount;
+                    mCountStageFinished = true;
+                    LOCK.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -8,11 +8,12 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 
+import com.techyourchance.multithreading.BuildConfig;
 import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
-
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import com.techyourchance.multithreading.common.looper.CustomHandler;
+import com.techyourchance.multithreading.common.looper.CustomLooper;
+import com.techyourchance.multithreading.common.looper.LooperWatchdog;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -30,8 +31,12 @@ public class CustomHandlerDemonstrationFragment extends BaseFragment {
 
     private Button mBtnSendJob;
 
+    private CustomLooper mCustomLooper;
     private CustomHandler mCustomHandler;
 
+    private LooperWatchdog mLooperWatchdog;
+    private LooperWatchdog.Monitor mLooperMonitor;
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -56,13 +61,26 @@ public class CustomHandlerDemonstrationFragment extends BaseFragment {
     @Override
     public void onStart() {
         super.onStart();
-        mCustomHandler = new CustomHandler();
+        // the loop occupies a pool thread and a NORMAL priority slot until the looper quits; the
+        // thread is then reused
+        mCustomLooper = new CustomLooper(getCompositionRoot().getExecutionService());
+        mCustomHandler = new CustomHandler(mCustomLooper);
+        // the job below blocks the looper for seconds, so the watchdog reports it; the watchdog
+        // runs only in debug builds (see MyApplication), and so does the monitoring
+        if (BuildConfig.DEBUG) {
+            mLooperWatchdog = getCompositionRoot().getLooperWatchdog();
+            mLooperMonitor = mLooperWatchdog.watch("CustomHandler demo", mCustomLooper);
+        }
     }
 
     @Override
     public void onStop() {
         super.onStop();
-        mCustomHandler.stop();
+        if (BuildConfig.DEBUG) {
+            mLooperWatchdog.unwatch(mLooperMonitor, mCustomLooper);
+            Log.d("CustomHandler", "task durations: " + mLooperMonitor.getTaskDurationNanos());
+        }
+        mCustomLooper.quit();
     }
 
     private void sendJob() {
@@ -80,50 +98,4 @@ public class CustomHandlerDemonstrationFragment extends BaseFragment {
             }
         });
     }
-
-    private class CustomHandler {
-
-        private final Runnable POISON = new Runnable() {
-            @Override
-            public void run() {}
-        };
-
-        private final BlockingQueue<Runnable> mQueue = new LinkedBlockingQueue<>();
-
-        public CustomHandler() {
-            initWorkerThread();
-        }
-
-        private void initWorkerThread() {
-            new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    Log.d("CustomHandler", "worker (looper) thread initialized");
-                    while (true) {
-                        Runnable runnable;
-                        try {
-                            runnable = mQueue.take();
-                        } catch (InterruptedException e) {
-                            return;
-                        }
-                        if (runnable == POISON) {
-                            Log.d("CustomHandler", "poison data detected; stopping working thread");
-                            return;
-                        }
-                        runnable.run();
-                    }
-                }
-            }).start();
-        }
-
-        public void stop() {
-            Log.d("CustomHandler", "injecting poison data into the queue");
-            mQueue.clear();
-            mQueue.add(POISON);
-        }
-
-        public void post(Runnable job) {
-            mQueue.add(job);
-        }
-    }
 }
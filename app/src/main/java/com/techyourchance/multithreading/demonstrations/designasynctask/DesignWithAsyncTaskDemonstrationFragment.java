@@ -25,13 +25,16 @@ public class DesignWithAsyncTaskDemonstrationFragment extends BaseFragment imple
     private ProgressBar mProgressBar;
     private TextView mTxtReceivedMessagesCount;
     private TextView mTxtExecutionTime;
+    private TextView mTxtQueueStatistics;
 
     private ProducerConsumerBenchmarkUseCase mProducerConsumerBenchmarkUseCase;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase();
+        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase(
+                getCompositionRoot().getBenchmarkConfig()
+        );
     }
 
     @Nullable
@@ -43,11 +46,13 @@ public class DesignWithAsyncTaskDemonstrationFragment extends BaseFragment imple
         mProgressBar = view.findViewById(R.id.progress);
         mTxtReceivedMessagesCount = view.findViewById(R.id.txt_received_messages_count);
         mTxtExecutionTime = view.findViewById(R.id.txt_execution_time);
+        mTxtQueueStatistics = view.findViewById(R.id.txt_queue_statistics);
 
         mBtnStart.setOnClickListener(v -> {
             mBtnStart.setEnabled(false);
             mTxtReceivedMessagesCount.setText("");
             mTxtExecutionTime.setText("");
+            mTxtQueueStatistics.setText("");
             mProgressBar.setVisibility(View.VISIBLE);
 
             mProducerConsumerBenchmarkUseCase.startBenchmarkAndNotify();
@@ -79,5 +84,8 @@ public class DesignWithAsyncTaskDemonstrationFragment extends BaseFragment imple
         mBtnStart.setEnabled(true);
         mTxtReceivedMessagesCount.setText("Received messages: " + result.getNumOfReceivedMessages());
         mTxtExecutionTime.setText("Execution time: " + result.getExecutionTime() + "ms");
+        if (result.getQueueStatistics() != null) {
+            mTxtQueueStatistics.setText(result.getQueueStatistics().toString());
+        }
     }
 }
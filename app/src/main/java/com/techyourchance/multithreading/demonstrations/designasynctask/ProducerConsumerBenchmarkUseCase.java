@@ -4,10 +4,15 @@ import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.Looper;
 
-import com.techyourchance.multithreading.DefaultConfiguration;
 import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.QueueBenchmarkResult;
+import com.techyourchance.multithreading.common.blockingqueue.MyIntBlockingQueue;
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
 
 public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerConsumerBenchmarkUseCase.Listener> {
 
@@ -15,50 +20,44 @@ public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerCon
         void onBenchmarkCompleted(Result result);
     }
 
-    public static class Result {
-        private final long mExecutionTime;
-        private final int mNumOfReceivedMessages;
+    public static class Result extends QueueBenchmarkResult {
 
         public Result(long executionTime, int numOfReceivedMessages) {
-            mExecutionTime = executionTime;
-            mNumOfReceivedMessages = numOfReceivedMessages;
+            this(executionTime, numOfReceivedMessages, null);
         }
 
-        public long getExecutionTime() {
-            return mExecutionTime;
-        }
-
-        public int getNumOfReceivedMessages() {
-            return mNumOfReceivedMessages;
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      @Nullable QueueStatistics.Snapshot queueStatistics) {
+            super(executionTime, numOfReceivedMessages, queueStatistics);
         }
     }
 
-    private static final int NUM_OF_MESSAGES = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES;
-    private static final int BLOCKING_QUEUE_CAPACITY = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE;
-
     private final Object LOCK = new Object();
 
     private final Handler mUiHandler = new Handler(Looper.getMainLooper());
 
-    private final MyBlockingQueue mBlockingQueue = new MyBlockingQueue(BLOCKING_QUEUE_CAPACITY);
+    private final BenchmarkConfig mConfig;
+
+    private final MyIntBlockingQueue mBlockingQueue;
 
     private int mNumOfFinishedConsumers;
 
     private int mNumOfReceivedMessages;
 
-    private long mStartTimestamp;
 
+    public ProducerConsumerBenchmarkUseCase(BenchmarkConfig config) {
+        mConfig = config;
+        mBlockingQueue = new MyIntBlockingQueue(config.getBlockingQueueCapacity());
+        if (config.isCollectQueueStatistics()) {
+            mBlockingQueue.enableStatistics();
+        }
+    }
 
     public void startBenchmarkAndNotify() {
 
-        synchronized (LOCK) {
-            mNumOfReceivedMessages = 0;
-            mNumOfFinishedConsumers = 0;
-            mStartTimestamp = System.currentTimeMillis();
-        }
-
-        // watcher-reporter thread
-        new AsyncTask<Void, Void, Void>() {
+        // driver-reporter thread
+        new AsyncTask<Void, Void, Result>() {
 
             @Override
             protected void onPreExecute() {
@@ -66,55 +65,92 @@ public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerCon
             }
 
             @Override
-            protected Void doInBackground(Void... voids) {
-                synchronized (LOCK) {
-                    while (mNumOfFinishedConsumers < NUM_OF_MESSAGES) {
-                        try {
-                            LOCK.wait();
-                        } catch (InterruptedException e) {
-                            return null;
-                        }
+            protected Result doInBackground(Void... voids) {
+                Result result = null;
+                for (int i = 0; i <= mConfig.getWarmupIterations(); i++) {
+                    result = runIteration();
+                    if (result == null) {
+                        return null;
                     }
                 }
-                return null;
+                return result;
             }
 
             @Override
-            protected void onPostExecute(Void aVoid) {
-                notifySuccess();
+            protected void onPostExecute(Result result) {
+                if (result != null) {
+                    notifySuccess(result);
+                }
             }
         }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    /**
+     * @return result of the iteration, or null if the iteration was interrupted
+     */
+    @WorkerThread
+    private @Nullable Result runIteration() {
+
+        synchronized (LOCK) {
+            mNumOfReceivedMessages = 0;
+            mNumOfFinishedConsumers = 0;
+        }
+        mBlockingQueue.resetStatistics();
+        long startTimestamp = System.currentTimeMillis();
 
         // producers init thread
         new Thread(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewProducer(i);
             }
         }).start();
 
         // consumers init thread
         new Thread(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewConsumer();
             }
         }).start();
-    }
 
+        synchronized (LOCK) {
+            while (mNumOfFinishedConsumers < mConfig.getNumOfMessages()) {
+                try {
+                    LOCK.wait();
+                } catch (InterruptedException e) {
+                    return null;
+                }
+            }
+            return new Result(
+                    System.currentTimeMillis() - startTimestamp,
+                    mNumOfReceivedMessages,
+                    mBlockingQueue.getStatisticsSnapshot()
+            );
+        }
+    }
 
     private void startNewProducer(final int index) {
         new Thread(() -> {
             try {
-                Thread.sleep(DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS);
+                Thread.sleep(mConfig.getProducerDelayMs());
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    mBlockingQueue.putInt(index);
+                }
             } catch (InterruptedException e) {
                 return;
             }
-            mBlockingQueue.put(index);
         }).start();
     }
 
     private void startNewConsumer() {
         new Thread(() -> {
-            int message = mBlockingQueue.take();
+            int message = -1;
+            try {
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    message = mBlockingQueue.takeInt();
+                }
+            } catch (InterruptedException e) {
+                message = -1;
+            }
             synchronized (LOCK) {
                 if (message != -1) {
                     mNumOfReceivedMessages++;
@@ -126,18 +162,8 @@ public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerCon
     }
 
     @UiThread
-    private void notifySuccess() {
-        Result result;
-        synchronized (LOCK) {
-            result =
-                    new Result(
-                            System.currentTimeMillis() - mStartTimestamp,
-                            mNumOfReceivedMessages
-                    );
-        }
-        for (Listener listener : getListeners()) {
-            listener.onBenchmarkCompleted(result);
-        }
+    private void notifySuccess(Result result) {
+        notifyListeners(listener -> listener.onBenchmarkCompleted(result));
     }
 
 
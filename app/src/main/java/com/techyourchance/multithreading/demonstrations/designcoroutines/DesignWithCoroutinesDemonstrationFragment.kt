@@ -12,8 +12,12 @@ import android.widget.Button
 import android.widget.ProgressBar
 import android.widget.TextView
 import androidx.fragment.app.Fragment
+import com.techyourchance.multithreading.DefaultConfiguration
 import com.techyourchance.multithreading.R
 import com.techyourchance.multithreading.common.BaseFragment
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig.WorkerMode
+import com.techyourchance.multithreading.common.execution.CoroutineDispatchers
+import com.techyourchance.multithreading.common.metrics.MemoryMeter
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
@@ -25,9 +29,14 @@ class DesignWithCoroutinesDemonstrationFragment : BaseFragment() {
     private lateinit var progressBar: ProgressBar
     private lateinit var txtReceivedMessagesCount: TextView
     private lateinit var txtExecutionTime: TextView
+    private lateinit var txtQueueStatistics: TextView
     private lateinit var viewUiNonBlockedIndicator : View
 
-    private lateinit var producerConsumerBenchmarkUseCase: ProducerConsumerBenchmarkUseCase
+    private lateinit var unboundedDispatchers: CoroutineDispatchers
+
+    private lateinit var unboundedProducerConsumerBenchmarkUseCase: ProducerConsumerBenchmarkUseCase
+    private lateinit var boundedProducerConsumerBenchmarkUseCase: ProducerConsumerBenchmarkUseCase
+    private lateinit var suspendingProducerConsumerBenchmarkUseCase: SuspendingProducerConsumerBenchmarkUseCase
 
     private var showUiNonBlockedIndication : Boolean = false
 
@@ -35,7 +44,33 @@ class DesignWithCoroutinesDemonstrationFragment : BaseFragment() {
 
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
-        producerConsumerBenchmarkUseCase = ProducerConsumerBenchmarkUseCase()
+        val benchmarkConfig = compositionRoot.benchmarkConfig
+        val coroutineDispatchers = compositionRoot.coroutineDispatchers
+
+        // the equivalent of Dispatchers.IO with unlimited parallelism, for comparison
+        unboundedDispatchers = CoroutineDispatchers(
+                CoroutineDispatchers.UNBOUNDED,
+                DefaultConfiguration.DEFAULT_CPU_DISPATCHER_PARALLELISM,
+                true
+        )
+        unboundedProducerConsumerBenchmarkUseCase = ProducerConsumerBenchmarkUseCase(
+                benchmarkConfig.newBuilder().setWorkerMode(WorkerMode.TASK_PER_MESSAGE).build(),
+                unboundedDispatchers.blockingDispatcher
+        )
+        // one coroutine per message would fill the bounded dispatcher with blocked producers
+        boundedProducerConsumerBenchmarkUseCase = ProducerConsumerBenchmarkUseCase(
+                benchmarkConfig.newBuilder().setWorkerMode(WorkerMode.FIXED_WORKERS).build(),
+                coroutineDispatchers.blockingDispatcher
+        )
+        suspendingProducerConsumerBenchmarkUseCase = SuspendingProducerConsumerBenchmarkUseCase(
+                benchmarkConfig,
+                coroutineDispatchers.cpuDispatcher
+        )
+    }
+
+    override fun onDestroy() {
+        super.onDestroy()
+        unboundedDispatchers.shutdown()
     }
 
     override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View? {
@@ -46,6 +81,7 @@ class DesignWithCoroutinesDemonstrationFragment : BaseFragment() {
             progressBar = findViewById(R.id.progress)
             txtReceivedMessagesCount = findViewById(R.id.txt_received_messages_count)
             txtExecutionTime = findViewById(R.id.txt_execution_time)
+            txtQueueStatistics = findViewById(R.id.txt_queue_statistics)
             viewUiNonBlockedIndicator = findViewById(R.id.view_ui_non_blocked_indicator)
         }
 
@@ -53,11 +89,14 @@ class DesignWithCoroutinesDemonstrationFragment : BaseFragment() {
             btnStart.isEnabled = false
             txtReceivedMessagesCount.text = ""
             txtExecutionTime.text = ""
+            txtQueueStatistics.text = ""
             progressBar.visibility = VISIBLE
 
             job = CoroutineScope(Dispatchers.Main).launch {
-                val result = producerConsumerBenchmarkUseCase.startBenchmark()
-                onBenchmarkCompleted(result)
+                val unboundedResult = unboundedProducerConsumerBenchmarkUseCase.startBenchmark()
+                val boundedResult = boundedProducerConsumerBenchmarkUseCase.startBenchmark()
+                val suspendingResult = suspendingProducerConsumerBenchmarkUseCase.startBenchmark()
+                onBenchmarkCompleted(unboundedResult, boundedResult, suspendingResult)
             }
         }
 
@@ -94,12 +133,31 @@ class DesignWithCoroutinesDemonstrationFragment : BaseFragment() {
     }
 
 
-    fun onBenchmarkCompleted(result: ProducerConsumerBenchmarkUseCase.Result) {
-        Log.d("FragmentCoroutinesDemo", "onBenchmarkCompleted() called")
+    fun onBenchmarkCompleted(unboundedResult: ProducerConsumerBenchmarkUseCase.Result,
+                             boundedResult: ProducerConsumerBenchmarkUseCase.Result,
+                             suspendingResult: ProducerConsumerBenchmarkUseCase.Result) {
         progressBar.visibility = INVISIBLE
         btnStart.isEnabled = true
-        txtReceivedMessagesCount.text = "Received messages: ${result.numOfReceivedMessages}"
-        txtExecutionTime.text = "Execution time: ${result.executionTime} ms"
+        txtReceivedMessagesCount.text = "Received messages: ${unboundedResult.numOfReceivedMessages} (unbounded), " +
+                "${boundedResult.numOfReceivedMessages} (bounded), " +
+                "${suspendingResult.numOfReceivedMessages} (suspending)"
+        txtExecutionTime.text = "Unbounded blocking: ${formatResult(unboundedResult)}\n" +
+                "Bounded blocking: ${formatResult(boundedResult)}\n" +
+                "Suspending: ${formatResult(suspendingResult)}"
+        val coroutineDispatchers = compositionRoot.coroutineDispatchers
+        txtQueueStatistics.text = "Threads created: " +
+                "${unboundedDispatchers.blockingThreadPool.metricsSnapshot.numOfCreatedThreads} (unbounded), " +
+                "${coroutineDispatchers.blockingThreadPool.metricsSnapshot.numOfCreatedThreads} (bounded), " +
+                "${coroutineDispatchers.cpuThreadPool.metricsSnapshot.numOfCreatedThreads} (cpu)\n" +
+                (unboundedResult.queueStatistics?.toString() ?: "")
+    }
+
+    private fun formatResult(result: ProducerConsumerBenchmarkUseCase.Result): String {
+        var formatted = "${result.executionTime} ms, ${result.numOfThreads} threads, ${result.throughput} msg/s"
+        if (result.memoryGrowthKb != MemoryMeter.UNKNOWN) {
+            formatted += ", +${result.memoryGrowthKb} KB RSS"
+        }
+        return formatted
     }
 
     companion object {
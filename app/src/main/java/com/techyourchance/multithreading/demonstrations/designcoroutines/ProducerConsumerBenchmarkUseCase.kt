@@ -1,75 +1,170 @@
 package com.techyourchance.multithreading.demonstrations.designcoroutines
 
-import android.os.Handler
-import android.os.Looper
-import android.util.Log
-import com.techyourchance.multithreading.DefaultConfiguration
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig.WorkerMode
+import com.techyourchance.multithreading.common.benchmark.QueueBenchmarkResult
+import com.techyourchance.multithreading.common.blockingqueue.MyIntBlockingQueue
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics
+import com.techyourchance.multithreading.common.execution.ThreadUsageRecorder
+import com.techyourchance.multithreading.common.metrics.MemoryMeter
 import kotlinx.coroutines.*
 import java.util.concurrent.atomic.AtomicInteger
 
-class ProducerConsumerBenchmarkUseCase {
-
-    class Result(val executionTime: Long, val numOfReceivedMessages: Int)
+/**
+ * Coroutines on top of a blocking queue: every producer and consumer blocks its thread in
+ * [Thread.sleep] and in the queue, so this design degrades into thread-per-task.
+ * See [SuspendingProducerConsumerBenchmarkUseCase] for the fully suspending counterpart.
+ *
+ * With [WorkerMode.TASK_PER_MESSAGE] the dispatcher must be able to run all the producers and
+ * consumers at once, otherwise blocked producers can occupy all its threads. With a bounded
+ * dispatcher use [WorkerMode.FIXED_WORKERS] and more threads than producers plus consumers.
+ */
+class ProducerConsumerBenchmarkUseCase(
+        private val config: BenchmarkConfig,
+        private val dispatcher: CoroutineDispatcher
+) {
+
+    class Result(
+            executionTimeMs: Long,
+            receivedMessagesCount: Int,
+            val numOfThreads: Int,
+            /**
+             * Growth of the process resident set size during the run in KB,
+             * or [MemoryMeter.UNKNOWN]
+             */
+            val memoryGrowthKb: Long,
+            queueStatistics: QueueStatistics.Snapshot?
+    ) : QueueBenchmarkResult(executionTimeMs, receivedMessagesCount, queueStatistics) {
+
+        /**
+         * Received messages per second
+         */
+        val throughput: Long
+            get() = if (executionTime == 0L) 0 else numOfReceivedMessages * 1000L / executionTime
+    }
 
-    private val blockingQueue = MyBlockingQueue(BLOCKING_QUEUE_CAPACITY)
+    private val blockingQueue = MyIntBlockingQueue(config.blockingQueueCapacity)
 
     private val numOfReceivedMessages: AtomicInteger = AtomicInteger(0)
-    private val numOfProducers: AtomicInteger = AtomicInteger(0)
-    private val numOfConsumers: AtomicInteger = AtomicInteger(0)
+
+    private val threadUsageRecorder = ThreadUsageRecorder()
+
+    init {
+        if (config.isCollectQueueStatistics) {
+            blockingQueue.enableStatistics()
+        }
+    }
 
     suspend fun startBenchmark() : Result {
+        var result = runIteration()
+        repeat(config.warmupIterations) { // <-- warmup iterations are discarded
+            result = runIteration()
+        }
+        return result
+    }
+
+    private suspend fun runIteration() : Result {
 
-        return withContext(Dispatchers.IO) {
+        return withContext(dispatcher) {
 
             numOfReceivedMessages.set(0)
-            numOfProducers.set(0)
-            numOfConsumers.set(0)
+            threadUsageRecorder.reset()
+            blockingQueue.resetStatistics()
 
+            val memoryMeter = MemoryMeter()
+            memoryMeter.start()
             val startTimestamp = System.currentTimeMillis()
 
-            // producers init coroutine
-            val deferredProducers = async(Dispatchers.IO + NonCancellable) {
-                for (i in 0 until NUM_OF_MESSAGES) {
-                    startNewProducer(i)
-                }
+            if (config.workerMode == WorkerMode.FIXED_WORKERS) {
+                startFixedWorkers().joinAll()
+            } else {
+                startTaskPerMessageWorkers()
             }
 
-            // consumers init coroutine
-            val deferredConsumers = async(Dispatchers.IO + NonCancellable) {
-                for (i in 0 until NUM_OF_MESSAGES) {
-                    startNewConsumer()
-                }
-            }
-
-            awaitAll(deferredConsumers, deferredProducers)
-
             Result(
                     System.currentTimeMillis() - startTimestamp,
-                    numOfReceivedMessages.get()
+                    numOfReceivedMessages.get(),
+                    threadUsageRecorder.numOfThreads,
+                    memoryMeter.stop(),
+                    blockingQueue.statisticsSnapshot
             )
         }
 
     }
 
-    private fun CoroutineScope.startNewProducer(index: Int) = launch(Dispatchers.IO) {
-        Log.d("Producer", "producer ${numOfProducers.incrementAndGet()} started; " +
-                "on thread ${Thread.currentThread().name}");
-        Thread.sleep(DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS.toLong())
-        blockingQueue.put(index)
+    private suspend fun CoroutineScope.startTaskPerMessageWorkers() {
+        // producers init coroutine
+        val deferredProducers = async(NonCancellable) {
+            for (i in 0 until config.numOfMessages) {
+                startNewProducer(i)
+            }
+        }
+
+        // consumers init coroutine
+        val deferredConsumers = async(NonCancellable) {
+            for (i in 0 until config.numOfMessages) {
+                startNewConsumer()
+            }
+        }
+
+        awaitAll(deferredConsumers, deferredProducers)
+    }
+
+    private fun CoroutineScope.startFixedWorkers(): List<Job> {
+        val workers = ArrayList<Job>()
+        for (i in 0 until config.numOfProducers) {
+            workers.add(startNewProducerWorker(i))
+        }
+        for (i in 0 until config.numOfConsumers) {
+            workers.add(startNewConsumerWorker(i))
+        }
+        return workers
     }
 
-    private fun CoroutineScope.startNewConsumer() = launch(Dispatchers.IO) {
-        Log.d("Consumer", "consumer ${numOfConsumers.incrementAndGet()} started; " +
-                "on thread ${Thread.currentThread().name}");
-        val message = blockingQueue.take()
-        if (message != -1) {
+    /**
+     * Producer worker with index i produces messages i, i + P, i + 2P, etc.
+     */
+    private fun CoroutineScope.startNewProducerWorker(workerIndex: Int) = launch {
+        threadUsageRecorder.recordCurrentThread()
+        for (index in workerIndex until config.numOfMessages step config.numOfProducers) {
+            Thread.sleep(config.producerDelayMs.toLong())
+            repeat(config.payloadSize) {
+                blockingQueue.putInt(index)
+            }
+        }
+    }
+
+    private fun CoroutineScope.startNewConsumerWorker(workerIndex: Int) = launch {
+        threadUsageRecorder.recordCurrentThread()
+        repeat(getShareOfMessages(workerIndex, config.numOfConsumers)) {
+            repeat(config.payloadSize) {
+                blockingQueue.takeInt()
+            }
             numOfReceivedMessages.incrementAndGet()
         }
     }
 
-    companion object {
-        private const val NUM_OF_MESSAGES = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES
-        private const val BLOCKING_QUEUE_CAPACITY = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE
+    private fun getShareOfMessages(workerIndex: Int, numOfWorkers: Int): Int {
+        val numOfMessages = config.numOfMessages
+        return numOfMessages / numOfWorkers + if (workerIndex < numOfMessages % numOfWorkers) 1 else 0
     }
 
+    private fun CoroutineScope.startNewProducer(index: Int) = launch {
+        threadUsageRecorder.recordCurrentThread()
+        Thread.sleep(config.producerDelayMs.toLong())
+        repeat(config.payloadSize) {
+            blockingQueue.putInt(index)
+        }
+    }
+
+    private fun CoroutineScope.startNewConsumer() = launch {
+        threadUsageRecorder.recordCurrentThread()
+        var message = -1
+        repeat(config.payloadSize) {
+            message = blockingQueue.takeInt()
+        }
+        if (message != -1) {
+            numOfReceivedMessages.incrementAndGet()
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package com.techyourchance.multithreading.demonstrations.designcoroutines
+
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig
+import com.techyourchance.multithreading.common.execution.ThreadUsageRecorder
+import com.techyourchance.multithreading.common.metrics.MemoryMeter
+import kotlinx.coroutines.*
+import kotlinx.coroutines.channels.Channel
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Same workload as [ProducerConsumerBenchmarkUseCase], but nothing blocks: producers [delay]
+ * instead of sleeping and the hand-off is a bounded [Channel], so a full or empty buffer
+ * suspends the coroutine and releases its thread. All the coroutines share the given dispatcher,
+ * which should be CPU-sized.
+ */
+class SuspendingProducerConsumerBenchmarkUseCase(
+        private val config: BenchmarkConfig,
+        private val dispatcher: CoroutineDispatcher
+) {
+
+    private val numOfReceivedMessages: AtomicInteger = AtomicInteger(0)
+
+    private val threadUsageRecorder = ThreadUsageRecorder()
+
+    suspend fun startBenchmark() : ProducerConsumerBenchmarkUseCase.Result {
+        var result = runIteration()
+        repeat(config.warmupIterations) { // <-- warmup iterations are discarded
+            result = runIteration()
+        }
+        return result
+    }
+
+    private suspend fun runIteration() : ProducerConsumerBenchmarkUseCase.Result {
+
+        return withContext(dispatcher) {
+
+            numOfReceivedMessages.set(0)
+            threadUsageRecorder.reset()
+
+            val channel = Channel<Int>(config.blockingQueueCapacity)
+
+            val memoryMeter = MemoryMeter()
+            memoryMeter.start()
+            val startTimestamp = System.currentTimeMillis()
+
+            // returns when all the producers and consumers complete
+            coroutineScope {
+                for (i in 0 until config.numOfMessages) {
+                    startNewProducer(channel, i)
+                }
+                for (i in 0 until config.numOfMessages) {
+                    startNewConsumer(channel)
+                }
+            }
+
+            ProducerConsumerBenchmarkUseCase.Result(
+                    System.currentTimeMillis() - startTimestamp,
+                    numOfReceivedMessages.get(),
+                    threadUsageRecorder.numOfThreads,
+                    memoryMeter.stop(),
+                    null
+            )
+        }
+
+    }
+
+    private fun CoroutineScope.startNewProducer(channel: Channel<Int>, index: Int) = launch {
+        threadUsageRecorder.recordCurrentThread()
+        delay(config.producerDelayMs.toLong())
+        repeat(config.payloadSize) {
+            channel.send(index)
+        }
+    }
+
+    private fun CoroutineScope.startNewConsumer(channel: Channel<Int>) = launch {
+        threadUsageRecorder.recordCurrentThread()
+        repeat(config.payloadSize) {
+            channel.receive()
+        }
+        numOfReceivedMessages.incrementAndGet()
+    }
+}
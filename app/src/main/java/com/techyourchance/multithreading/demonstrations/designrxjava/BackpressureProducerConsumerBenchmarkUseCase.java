@@ -0,0 +1,139 @@
+package com.techyourchance.multithreading.demonstrations.designrxjava;
+
+import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.execution.ThreadUsageRecorder;
+import com.techyourchance.multithreading.common.metrics.MemoryMeter;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Same workload as {@link ProducerConsumerBenchmarkUseCase}, but no scheduler thread ever blocks:
+ * producers wait on timers instead of sleeping, and the bounded hand-off is expressed through
+ * request-based backpressure instead of a blocking queue:
+ * <ul>
+ *     <li>at most "queue capacity" producers are in flight at a time; a produced message is held
+ *     by the flatMap until it's requested, much like a producer blocked in put() holds its
+ *     message, and a new producer starts only when a message is handed off</li>
+ *     <li>messages are handed to CPU-sized parallel rails on {@link Schedulers#computation()};
+ *     the hand-off requests at most "queue capacity" messages ahead, and so does each rail</li>
+ * </ul>
+ * Note that {@code onBackpressureBuffer(capacity)} wouldn't bound anything here: it requests
+ * unboundedly from upstream, so the producers would run ahead and overflow it.
+ */
+public class BackpressureProducerConsumerBenchmarkUseCase
+        extends BaseObservable<BackpressureProducerConsumerBenchmarkUseCase.Listener> {
+
+    public interface Listener {
+        void onBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result result);
+    }
+
+    private static final int NUM_OF_RAILS = Runtime.getRuntime().availableProcessors();
+
+    private final Object LOCK = new Object();
+
+    private final BenchmarkConfig mConfig;
+
+    private final ThreadUsageRecorder mThreadUsageRecorder = new ThreadUsageRecorder();
+
+    private final MemoryMeter mMemoryMeter = new MemoryMeter();
+
+    private long mStartTimestamp;
+
+    // guarded by LOCK
+    private Disposable mDisposable;
+
+    public BackpressureProducerConsumerBenchmarkUseCase(BenchmarkConfig config) {
+        mConfig = config;
+    }
+
+    @Override
+    protected void onLastListenerUnregistered() {
+        super.onLastListenerUnregistered();
+        disposeRunningBenchmark();
+    }
+
+    /**
+     * Run the benchmark and notify the listeners on a computation thread. Aborts the previously
+     * started benchmark, if any; aborted benchmarks don't notify.
+     */
+    public void startBenchmarkAndNotify() {
+        synchronized (LOCK) {
+            disposeRunningBenchmark();
+            mDisposable = startBenchmark()
+                    .subscribeOn(Schedulers.computation())
+                    .subscribe(result -> notifyListeners(
+                            listener -> listener.onBenchmarkCompleted(result)
+                    ));
+        }
+    }
+
+    public Observable<ProducerConsumerBenchmarkUseCase.Result> startBenchmark() {
+        return runIteration()
+                .repeat(mConfig.getWarmupIterations() + 1) // <-- warmup iterations are discarded
+                .lastOrError()
+                .toObservable();
+    }
+
+    private Single<ProducerConsumerBenchmarkUseCase.Result> runIteration() {
+        int capacity = mConfig.getBlockingQueueCapacity();
+        return Flowable.range(0, mConfig.getNumOfMessages())
+                // each producer emits a single message, so one buffered message per producer suffices
+                .flatMap(this::produceMessage, false, capacity, 1)
+                .parallel(NUM_OF_RAILS, capacity)
+                .runOn(Schedulers.computation(), capacity)
+                .map(this::consumeMessage)
+                .sequential()
+                .count()
+                .doOnSubscribe(s -> {
+                    mThreadUsageRecorder.reset();
+                    mMemoryMeter.start();
+                    mStartTimestamp = System.currentTimeMillis();
+                })
+                .map(cnt -> new ProducerConsumerBenchmarkUseCase.Result(
+                        System.currentTimeMillis() - mStartTimestamp,
+                        cnt.intValue(),
+                        mThreadUsageRecorder.getNumOfThreads(),
+                        mMemoryMeter.stop()
+                ));
+    }
+
+    private void disposeRunningBenchmark() {
+        synchronized (LOCK) {
+            if (mDisposable != null) {
+                mDisposable.dispose();
+                mDisposable = null;
+            }
+        }
+    }
+
+    private Flowable<int[]> produceMessage(int id) {
+        Flowable<Integer> delayedId = mConfig.getProducerDelayMs() == 0
+                ? Flowable.just(id)
+                : Flowable.timer(mConfig.getProducerDelayMs(), TimeUnit.MILLISECONDS, Schedulers.computation())
+                        .map(tick -> id);
+        return delayedId.map(messageId -> {
+            mThreadUsageRecorder.recordCurrentThread();
+            int[] payload = new int[mConfig.getPayloadSize()];
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] = messageId;
+            }
+            return payload;
+        });
+    }
+
+    private int consumeMessage(int[] payload) {
+        mThreadUsageRecorder.recordCurrentThread();
+        int checksum = 0;
+        for (int value : payload) {
+            checksum += value;
+        }
+        return checksum;
+    }
+}
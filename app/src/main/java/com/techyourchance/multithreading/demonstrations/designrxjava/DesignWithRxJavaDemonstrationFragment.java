@@ -10,6 +10,7 @@ import android.widget.TextView;
 
 import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
+import com.techyourchance.multithreading.common.metrics.MemoryMeter;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -18,7 +19,8 @@ import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
 
-public class DesignWithRxJavaDemonstrationFragment extends BaseFragment {
+public class DesignWithRxJavaDemonstrationFragment extends BaseFragment
+        implements BackpressureProducerConsumerBenchmarkUseCase.Listener {
 
     public static Fragment newInstance() {
         return new DesignWithRxJavaDemonstrationFragment();
@@ -28,15 +30,24 @@ public class DesignWithRxJavaDemonstrationFragment extends BaseFragment {
     private ProgressBar mProgressBar;
     private TextView mTxtReceivedMessagesCount;
     private TextView mTxtExecutionTime;
+    private TextView mTxtQueueStatistics;
 
     private ProducerConsumerBenchmarkUseCase mProducerConsumerBenchmarkUseCase;
+    private BackpressureProducerConsumerBenchmarkUseCase mBackpressureProducerConsumerBenchmarkUseCase;
 
     private @Nullable Disposable mDisposable;
 
+    private @Nullable ProducerConsumerBenchmarkUseCase.Result mBlockingResult;
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase();
+        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase(
+                getCompositionRoot().getBenchmarkConfig()
+        );
+        mBackpressureProducerConsumerBenchmarkUseCase = new BackpressureProducerConsumerBenchmarkUseCase(
+                getCompositionRoot().getBenchmarkConfig()
+        );
     }
 
     @Nullable
@@ -48,17 +59,20 @@ public class DesignWithRxJavaDemonstrationFragment extends BaseFragment {
         mProgressBar = view.findViewById(R.id.progress);
         mTxtReceivedMessagesCount = view.findViewById(R.id.txt_received_messages_count);
         mTxtExecutionTime = view.findViewById(R.id.txt_execution_time);
+        mTxtQueueStatistics = view.findViewById(R.id.txt_queue_statistics);
 
         mBtnStart.setOnClickListener(v -> {
             mBtnStart.setEnabled(false);
             mTxtReceivedMessagesCount.setText("");
             mTxtExecutionTime.setText("");
+            mTxtQueueStatistics.setText("");
             mProgressBar.setVisibility(View.VISIBLE);
 
+            // the variants run one after another, so they don't compete for the cores
             mDisposable = mProducerConsumerBenchmarkUseCase.startBenchmark()
                     .subscribeOn(Schedulers.io())
                     .observeOn(AndroidSchedulers.mainThread())
-                    .subscribe(this::onBenchmarkCompleted);
+                    .subscribe(this::onBlockingBenchmarkCompleted);
         });
 
         return view;
@@ -69,18 +83,57 @@ public class DesignWithRxJavaDemonstrationFragment extends BaseFragment {
         return "";
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        mBackpressureProducerConsumerBenchmarkUseCase.registerListener(
+                this, getCompositionRoot().getUiExecutor()
+        );
+    }
+
     @Override
     public void onStop() {
         super.onStop();
+        mBackpressureProducerConsumerBenchmarkUseCase.unregisterListener(this);
         if (mDisposable != null) {
             mDisposable.dispose();
         }
     }
 
-    public void onBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result result) {
+    private void onBlockingBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result result) {
+        mBlockingResult = result;
+        mBackpressureProducerConsumerBenchmarkUseCase.startBenchmarkAndNotify();
+    }
+
+    @Override
+    public void onBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result backpressureResult) {
+        ProducerConsumerBenchmarkUseCase.Result blockingResult = mBlockingResult;
+        if (blockingResult == null) {
+            return;
+        }
+        mBlockingResult = null;
         mProgressBar.setVisibility(View.INVISIBLE);
         mBtnStart.setEnabled(true);
-        mTxtReceivedMessagesCount.setText("Received messages: " + result.getNumOfReceivedMessages());
-        mTxtExecutionTime.setText("Execution time: " + result.getExecutionTime() + "ms");
+        mTxtReceivedMessagesCount.setText(
+                "Received messages: " + blockingResult.getNumOfReceivedMessages() + " (blocking), "
+                        + backpressureResult.getNumOfReceivedMessages() + " (backpressure)"
+        );
+        mTxtExecutionTime.setText(
+                "Blocking: " + formatResult(blockingResult) + "\n"
+                        + "Backpressure: " + formatResult(backpressureResult)
+        );
+        if (blockingResult.getQueueStatistics() != null) {
+            mTxtQueueStatistics.setText(blockingResult.getQueueStatistics().toString());
+        }
+    }
+
+    private String formatResult(ProducerConsumerBenchmarkUseCase.Result result) {
+        String formatted = result.getExecutionTime() + "ms, "
+                + result.getNumOfThreads() + " threads, "
+                + result.getThroughput() + " msg/s";
+        if (result.getMemoryGrowthKb() != MemoryMeter.UNKNOWN) {
+            formatted += ", +" + result.getMemoryGrowthKb() + " KB RSS";
+        }
+        return formatted;
     }
 }
@@ -1,65 +1,136 @@
 package com.techyourchance.multithreading.demonstrations.designrxjava;
 
-import android.util.Log;
-
-import com.techyourchance.multithreading.DefaultConfiguration;
-
-import java.util.concurrent.Callable;
-
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.QueueBenchmarkResult;
+import com.techyourchance.multithreading.common.blockingqueue.MyIntBlockingQueue;
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics;
+import com.techyourchance.multithreading.common.execution.ThreadUsageRecorder;
+import com.techyourchance.multithreading.common.metrics.MemoryMeter;
+
+import androidx.annotation.Nullable;
 import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.Single;
 import io.reactivex.schedulers.Schedulers;
 
+/**
+ * Blocks scheduler threads in {@code Thread.sleep} and in the blocking queue, with one rail
+ * (and potentially one I/O thread) per message.
+ * See {@link BackpressureProducerConsumerBenchmarkUseCase} for the non-blocking counterpart.
+ */
 public class ProducerConsumerBenchmarkUseCase {
 
-    public static class Result {
-        private final long mExecutionTime;
-        private final int mNumOfReceivedMessages;
+    public static class Result extends QueueBenchmarkResult {
+        private final int mNumOfThreads;
+        private final long mMemoryGrowthKb;
+
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      int numOfThreads,
+                      long memoryGrowthKb) {
+            this(executionTime, numOfReceivedMessages, numOfThreads, memoryGrowthKb, null);
+        }
+
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      int numOfThreads,
+                      long memoryGrowthKb,
+                      @Nullable QueueStatistics.Snapshot queueStatistics) {
+            super(executionTime, numOfReceivedMessages, queueStatistics);
+            mNumOfThreads = numOfThreads;
+            mMemoryGrowthKb = memoryGrowthKb;
+        }
 
-        public Result(long executionTime, int numOfReceivedMessages) {
-            mExecutionTime = executionTime;
-            mNumOfReceivedMessages = numOfReceivedMessages;
+        /**
+         * @return number of distinct threads that produced or consumed messages
+         */
+        public int getNumOfThreads() {
+            return mNumOfThreads;
         }
 
-        public long getExecutionTime() {
-            return mExecutionTime;
+        /**
+         * @return received messages per second
+         */
+        public long getThroughput() {
+            long executionTime = getExecutionTime();
+            return executionTime == 0 ? 0 : getNumOfReceivedMessages() * 1000L / executionTime;
         }
 
-        public int getNumOfReceivedMessages() {
-            return mNumOfReceivedMessages;
+        /**
+         * @return growth of the process resident set size during the run in KB, or
+         *         {@link MemoryMeter#UNKNOWN}
+         */
+        public long getMemoryGrowthKb() {
+            return mMemoryGrowthKb;
         }
     }
 
-    private static final int NUM_OF_MESSAGES = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES;
-    private static final int BLOCKING_QUEUE_CAPACITY = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE;
+    private final BenchmarkConfig mConfig;
+
+    private final MyIntBlockingQueue mBlockingQueue;
 
-    private final MyBlockingQueue mBlockingQueue = new MyBlockingQueue(BLOCKING_QUEUE_CAPACITY);
+    private final ThreadUsageRecorder mThreadUsageRecorder = new ThreadUsageRecorder();
+
+    private final MemoryMeter mMemoryMeter = new MemoryMeter();
 
     private long mStartTimestamp;
 
 
+    public ProducerConsumerBenchmarkUseCase(BenchmarkConfig config) {
+        mConfig = config;
+        mBlockingQueue = new MyIntBlockingQueue(config.getBlockingQueueCapacity());
+        if (config.isCollectQueueStatistics()) {
+            mBlockingQueue.enableStatistics();
+        }
+    }
+
     public Observable<Result> startBenchmark() {
-        return Flowable.range(0, NUM_OF_MESSAGES)
+        return runIteration()
+                .repeat(mConfig.getWarmupIterations() + 1) // <-- warmup iterations are discarded
+                .lastOrError()
+                .toObservable();
+    }
+
+    private Single<Result> runIteration() {
+        return Flowable.range(0, mConfig.getNumOfMessages())
                         .flatMap(id -> Flowable
                                 .fromCallable(() -> {
+                                    mThreadUsageRecorder.recordCurrentThread();
                                     try {
-                                        Thread.sleep(DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS);
+                                        Thread.sleep(mConfig.getProducerDelayMs());
                                     } catch (InterruptedException e) {
                                         return id;
                                     }
-                                    mBlockingQueue.put(id);
+                                    for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                                        mBlockingQueue.putInt(id);
+                                    }
                                     return id;
                                 }) // <-- generate message
                                 .subscribeOn(Schedulers.io())
                         )
-                        .parallel(NUM_OF_MESSAGES)
+                        .parallel(mConfig.getNumOfMessages())
                         .runOn(Schedulers.io())
-                        .doOnNext(msg -> { mBlockingQueue.take(); })  // <-- process message
+                        .doOnNext(msg -> {
+                            mThreadUsageRecorder.recordCurrentThread();
+                            for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                                mBlockingQueue.takeInt();
+                            }
+                        })  // <-- process message
                         .sequential()
                         .count()
-                        .doOnSubscribe(s -> { mStartTimestamp = System.currentTimeMillis(); })
-                        .map(cnt -> new Result(System.currentTimeMillis() - mStartTimestamp, cnt.intValue()))
-                        .toObservable();
+                        .doOnSubscribe(s -> {
+                            mBlockingQueue.resetStatistics();
+                            mThreadUsageRecorder.reset();
+                            mMemoryMeter.start();
+                            mStartTimestamp = System.currentTimeMillis();
+                        })
+                        .map(cnt -> new Result(
+                                System.currentTimeMillis() - mStartTimestamp,
+                                cnt.intValue(),
+                                mThreadUsageRecorder.getNumOfThreads(),
+                                mMemoryMeter.stop(),
+                                mBlockingQueue.getStatisticsSnapshot()
+                        ));
     }
 
 
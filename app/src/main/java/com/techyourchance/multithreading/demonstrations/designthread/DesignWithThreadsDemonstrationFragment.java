@@ -5,11 +5,16 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.execution.CpuUtilizationMeter;
+import com.techyourchance.multithreading.common.execution.ExecutionMode;
+import com.techyourchance.multithreading.common.execution.TaskExecutors;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -21,17 +26,21 @@ public class DesignWithThreadsDemonstrationFragment extends BaseFragment impleme
         return new DesignWithThreadsDemonstrationFragment();
     }
 
+    private CheckBox mChkVirtualThreads;
     private Button mBtnStart;
     private ProgressBar mProgressBar;
     private TextView mTxtReceivedMessagesCount;
     private TextView mTxtExecutionTime;
+    private TextView mTxtQueueStatistics;
 
     private ProducerConsumerBenchmarkUseCase mProducerConsumerBenchmarkUseCase;
+    private ExecutionMode mExecutionMode;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase();
+        mExecutionMode = getCompositionRoot().getBenchmarkConfig().getExecutionMode();
+        mProducerConsumerBenchmarkUseCase = newProducerConsumerBenchmarkUseCase(mExecutionMode);
     }
 
     @Nullable
@@ -39,17 +48,31 @@ public class DesignWithThreadsDemonstrationFragment extends BaseFragment impleme
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_design_with_thread_demonstration, container, false);
 
+        mChkVirtualThreads = view.findViewById(R.id.chk_virtual_threads);
         mBtnStart = view.findViewById(R.id.btn_start);
         mProgressBar = view.findViewById(R.id.progress);
         mTxtReceivedMessagesCount = view.findViewById(R.id.txt_received_messages_count);
         mTxtExecutionTime = view.findViewById(R.id.txt_execution_time);
+        mTxtQueueStatistics = view.findViewById(R.id.txt_queue_statistics);
+
+        if (TaskExecutors.isVirtualThreadsSupported()) {
+            mChkVirtualThreads.setChecked(mExecutionMode == ExecutionMode.VIRTUAL_THREAD_PER_TASK);
+        } else {
+            mChkVirtualThreads.setText("Virtual threads (not supported)");
+            mChkVirtualThreads.setEnabled(false);
+        }
 
         mBtnStart.setOnClickListener(v -> {
             mBtnStart.setEnabled(false);
+            mChkVirtualThreads.setEnabled(false);
             mTxtReceivedMessagesCount.setText("");
             mTxtExecutionTime.setText("");
+            mTxtQueueStatistics.setText("");
             mProgressBar.setVisibility(View.VISIBLE);
 
+            selectExecutionMode(mChkVirtualThreads.isChecked()
+                    ? ExecutionMode.VIRTUAL_THREAD_PER_TASK
+                    : ExecutionMode.PLATFORM_THREAD_PER_TASK);
             mProducerConsumerBenchmarkUseCase.startBenchmarkAndNotify();
         });
 
@@ -77,7 +100,40 @@ public class DesignWithThreadsDemonstrationFragment extends BaseFragment impleme
     public void onBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result result) {
         mProgressBar.setVisibility(View.INVISIBLE);
         mBtnStart.setEnabled(true);
+        mChkVirtualThreads.setEnabled(TaskExecutors.isVirtualThreadsSupported());
         mTxtReceivedMessagesCount.setText("Received messages: " + result.getNumOfReceivedMessages());
-        mTxtExecutionTime.setText("Execution time: " + result.getExecutionTime() + "ms");
+        String executionTime = "Execution time: " + result.getExecutionTime() + "ms";
+        if (result.getCpuUtilization() != CpuUtilizationMeter.UNKNOWN) {
+            executionTime += ", CPU utilization: " + Math.round(result.getCpuUtilization() * 100) + "%";
+        }
+        mTxtExecutionTime.setText(executionTime);
+        if (result.getQueueStatistics() != null) {
+            mTxtQueueStatistics.setText(result.getQueueStatistics().toString());
+        }
+    }
+
+    /**
+     * The use case is replaced when the mode changes, because its executor and config are fixed.
+     * Called only while the fragment is started and no benchmark is running.
+     */
+    private void selectExecutionMode(ExecutionMode executionMode) {
+        if (executionMode == mExecutionMode) {
+            return;
+        }
+        mExecutionMode = executionMode;
+        mProducerConsumerBenchmarkUseCase.unregisterListener(this);
+        mProducerConsumerBenchmarkUseCase = newProducerConsumerBenchmarkUseCase(executionMode);
+        mProducerConsumerBenchmarkUseCase.registerListener(this);
+    }
+
+    private ProducerConsumerBenchmarkUseCase newProducerConsumerBenchmarkUseCase(
+            ExecutionMode executionMode) {
+        BenchmarkConfig config = getCompositionRoot().getBenchmarkConfig().newBuilder()
+                .setExecutionMode(executionMode)
+                .build();
+        return new ProducerConsumerBenchmarkUseCase(
+                getCompositionRoot().getThreadPerTaskExecutor(config.getExecutionMode()),
+                config
+        );
     }
 }
@@ -3,8 +3,19 @@ package com.techyourchance.multithreading.demonstrations.designthread;
 import android.os.Handler;
 import android.os.Looper;
 
-import com.techyourchance.multithreading.DefaultConfiguration;
 import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig.WorkerMode;
+import com.techyourchance.multithreading.common.benchmark.QueueBenchmarkResult;
+import com.techyourchance.multithreading.common.blockingqueue.MyIntBlockingQueue;
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics;
+import com.techyourchance.multithreading.common.execution.CpuUtilizationMeter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 
 public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerConsumerBenchmarkUseCase.Listener> {
 
@@ -12,117 +23,245 @@ public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerCon
         void onBenchmarkCompleted(Result result);
     }
 
-    public static class Result {
-        private final long mExecutionTime;
-        private final int mNumOfReceivedMessages;
+    public static class Result extends QueueBenchmarkResult {
+        private final double mCpuUtilization;
 
         public Result(long executionTime, int numOfReceivedMessages) {
-            mExecutionTime = executionTime;
-            mNumOfReceivedMessages = numOfReceivedMessages;
+            this(executionTime, numOfReceivedMessages, null);
         }
 
-        public long getExecutionTime() {
-            return mExecutionTime;
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      @Nullable QueueStatistics.Snapshot queueStatistics) {
+            this(executionTime, numOfReceivedMessages, queueStatistics, CpuUtilizationMeter.UNKNOWN);
         }
 
-        public int getNumOfReceivedMessages() {
-            return mNumOfReceivedMessages;
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      @Nullable QueueStatistics.Snapshot queueStatistics,
+                      double cpuUtilization) {
+            super(executionTime, numOfReceivedMessages, queueStatistics);
+            mCpuUtilization = cpuUtilization;
         }
-    }
 
+        /**
+         * @return fraction of the cores (i.e. of the carrier threads, when running on virtual
+         *         threads) that were busy during the run, or {@link CpuUtilizationMeter#UNKNOWN}
+         */
+        public double getCpuUtilization() {
+            return mCpuUtilization;
+        }
+    }
 
-    private static final int NUM_OF_MESSAGES = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES;
-    private static final int BLOCKING_QUEUE_CAPACITY = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE;
 
     private final Object LOCK = new Object();
 
     private final Handler mUiHandler = new Handler(Looper.getMainLooper());
 
-    private final MyBlockingQueue mBlockingQueue = new MyBlockingQueue(BLOCKING_QUEUE_CAPACITY);
+    private final Executor mExecutor;
 
-    private int mNumOfFinishedConsumers;
+    private final BenchmarkConfig mConfig;
+
+    private final MyIntBlockingQueue mBlockingQueue;
+
+    private final CpuUtilizationMeter mCpuUtilizationMeter = new CpuUtilizationMeter();
+
+    private CountDownLatch mConsumersFinishedLatch;
 
     private int mNumOfReceivedMessages;
 
-    private long mStartTimestamp;
 
+    /**
+     * @param executor executor that starts a new thread for each task; see
+     *                 {@link com.techyourchance.multithreading.common.execution.TaskExecutors}
+     */
+    public ProducerConsumerBenchmarkUseCase(Executor executor, BenchmarkConfig config) {
+        mExecutor = executor;
+        mConfig = config;
+        mBlockingQueue = new MyIntBlockingQueue(config.getBlockingQueueCapacity());
+        if (config.isCollectQueueStatistics()) {
+            mBlockingQueue.enableStatistics();
+        }
+    }
 
     public void startBenchmarkAndNotify() {
 
+        // driver-reporter thread
+        mExecutor.execute(() -> {
+            Result result = runBenchmark();
+            if (result != null) {
+                notifySuccess(result);
+            }
+        });
+    }
+
+    /**
+     * Execute the warmup iterations followed by the measured one on the calling thread.
+     *
+     * @return result of the measured iteration, or null if the benchmark was interrupted
+     */
+    @WorkerThread
+    public @Nullable Result runBenchmark() {
+        Result result = null;
+        for (int i = 0; i <= mConfig.getWarmupIterations(); i++) {
+            result = runIteration();
+            if (result == null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return result of the iteration, or null if the iteration was interrupted
+     */
+    @WorkerThread
+    private @Nullable Result runIteration() {
+
         synchronized (LOCK) {
             mNumOfReceivedMessages = 0;
-            mNumOfFinishedConsumers = 0;
-            mStartTimestamp = System.currentTimeMillis();
         }
+        mBlockingQueue.resetStatistics();
 
-        // watcher-reporter thread
-        new Thread(() -> {
-            synchronized (LOCK) {
-                while (mNumOfFinishedConsumers < NUM_OF_MESSAGES) {
-                    try {
-                        LOCK.wait();
-                    } catch (InterruptedException e) {
-                        return;
-                    }
-                }
-            }
-            notifySuccess();
-        }).start();
+        boolean fixedWorkers = mConfig.getWorkerMode() == WorkerMode.FIXED_WORKERS;
+        mConsumersFinishedLatch = new CountDownLatch(
+                fixedWorkers ? mConfig.getNumOfConsumers() : mConfig.getNumOfMessages()
+        );
 
+        mCpuUtilizationMeter.start();
+        long startTimestamp = System.currentTimeMillis();
+
+        if (fixedWorkers) {
+            startFixedWorkers();
+        } else {
+            startTaskPerMessageWorkers();
+        }
+
+        // latch instead of LOCK.wait(), so that a virtual driver thread doesn't pin its carrier
+        try {
+            mConsumersFinishedLatch.await();
+        } catch (InterruptedException e) {
+            return null;
+        }
+
+        long executionTime = System.currentTimeMillis() - startTimestamp;
+        double cpuUtilization = mCpuUtilizationMeter.stop();
+
+        synchronized (LOCK) {
+            return new Result(
+                    executionTime,
+                    mNumOfReceivedMessages,
+                    mBlockingQueue.getStatisticsSnapshot(),
+                    cpuUtilization
+            );
+        }
+    }
+
+    private void startTaskPerMessageWorkers() {
         // producers init thread
-        new Thread(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+        mExecutor.execute(() -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewProducer(i);
             }
-        }).start();
+        });
 
         // consumers init thread
-        new Thread(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+        mExecutor.execute(() -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewConsumer();
             }
-        }).start();
+        });
+    }
+
+    private void startFixedWorkers() {
+        for (int i = 0; i < mConfig.getNumOfProducers(); i++) {
+            startNewProducerWorker(i);
+        }
+        for (int i = 0; i < mConfig.getNumOfConsumers(); i++) {
+            startNewConsumerWorker(i);
+        }
+    }
+
+    /**
+     * Producer worker with index i produces messages i, i + P, i + 2P, etc.
+     */
+    private void startNewProducerWorker(final int workerIndex) {
+        mExecutor.execute(() -> {
+            try {
+                for (int index = workerIndex;
+                     index < mConfig.getNumOfMessages();
+                     index += mConfig.getNumOfProducers()) {
+                    Thread.sleep(mConfig.getProducerDelayMs());
+                    for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                        mBlockingQueue.putInt(index);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        });
     }
 
+    private void startNewConsumerWorker(final int workerIndex) {
+        mExecutor.execute(() -> {
+            int numOfMessagesToReceive = getShareOfMessages(workerIndex, mConfig.getNumOfConsumers());
+            int numOfReceivedMessages = 0;
+            try {
+                for (int message = 0; message < numOfMessagesToReceive; message++) {
+                    for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                        mBlockingQueue.takeInt();
+                    }
+                    numOfReceivedMessages++;
+                }
+            } catch (InterruptedException e) {
+                // only the completely received messages are counted
+            }
+            synchronized (LOCK) {
+                mNumOfReceivedMessages += numOfReceivedMessages;
+            }
+            mConsumersFinishedLatch.countDown();
+        });
+    }
+
+    private int getShareOfMessages(int workerIndex, int numOfWorkers) {
+        int numOfMessages = mConfig.getNumOfMessages();
+        return numOfMessages / numOfWorkers + (workerIndex < numOfMessages % numOfWorkers ? 1 : 0);
+    }
 
     private void startNewProducer(final int index) {
-        new Thread(() -> {
+        mExecutor.execute(() -> {
             try {
-                Thread.sleep(DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS);
+                Thread.sleep(mConfig.getProducerDelayMs());
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    mBlockingQueue.putInt(index);
+                }
             } catch (InterruptedException e) {
                 return;
             }
-            mBlockingQueue.put(index);
-        }).start();
+        });
     }
 
     private void startNewConsumer() {
-        new Thread(() -> {
-            int message = mBlockingQueue.take();
+        mExecutor.execute(() -> {
+            int message = -1;
+            try {
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    message = mBlockingQueue.takeInt();
+                }
+            } catch (InterruptedException e) {
+                message = -1;
+            }
             synchronized (LOCK) {
                 if (message != -1) {
                     mNumOfReceivedMessages++;
                 }
-                mNumOfFinishedConsumers++;
-                LOCK.notifyAll();
             }
-        }).start();
+            mConsumersFinishedLatch.countDown();
+        });
     }
 
-    private void notifySuccess() {
-        mUiHandler.post(() -> {
-            Result result;
-            synchronized (LOCK) {
-                 result =
-                        new Result(
-                                System.currentTimeMillis() - mStartTimestamp,
-                                mNumOfReceivedMessages
-                        );
-            }
-            for (Listener listener : getListeners()) {
-                listener.onBenchmarkCompleted(result);
-            }
-        });
+    private void notifySuccess(Result result) {
+        mUiHandler.post(() -> notifyListeners(listener -> listener.onBenchmarkCompleted(result)));
     }
 
 
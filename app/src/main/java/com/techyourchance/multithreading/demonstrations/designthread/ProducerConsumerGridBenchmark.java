@@ -0,0 +1,35 @@
+package com.techyourchance.multithreading.demonstrations.designthread;
+
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkGridRunner;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs {@link ProducerConsumerBenchmarkUseCase} in {@link BenchmarkGridRunner}, with a new use
+ * case for each configuration of the grid. The kind of threads is decided by the executor, so the
+ * execution mode of the configurations is ignored.
+ */
+public class ProducerConsumerGridBenchmark
+        implements BenchmarkGridRunner.Benchmark<ProducerConsumerBenchmarkUseCase.Result> {
+
+    private final Executor mExecutor;
+
+    /**
+     * @param executor executor that starts a new thread for each task
+     */
+    public ProducerConsumerGridBenchmark(Executor executor) {
+        mExecutor = executor;
+    }
+
+    @Override
+    public ProducerConsumerBenchmarkUseCase.Result run(BenchmarkConfig config)
+            throws InterruptedException {
+        ProducerConsumerBenchmarkUseCase.Result result =
+                new ProducerConsumerBenchmarkUseCase(mExecutor, config).runBenchmark();
+        if (result == null) {
+            throw new InterruptedException("benchmark interrupted: " + config);
+        }
+        return result;
+    }
+}
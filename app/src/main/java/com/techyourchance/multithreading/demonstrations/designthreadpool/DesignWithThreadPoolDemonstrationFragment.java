@@ -10,6 +10,14 @@ import android.widget.TextView;
 
 import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig.WorkerMode;
+import com.techyourchance.multithreading.common.execution.CpuUtilizationMeter;
+import com.techyourchance.multithreading.common.execution.InstrumentedThreadPoolExecutor;
+import com.techyourchance.multithreading.common.execution.PriorityExecutor;
+import com.techyourchance.multithreading.common.execution.TaskPriority;
+import com.techyourchance.multithreading.common.tracing.TracingExecutor;
+
+import java.io.File;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -21,19 +29,32 @@ public class DesignWithThreadPoolDemonstrationFragment extends BaseFragment impl
         return new DesignWithThreadPoolDemonstrationFragment();
     }
 
+    private static final String TRACE_FILE_NAME = "benchmark-trace.json";
+
     private Button mBtnStart;
     private ProgressBar mProgressBar;
     private TextView mTxtReceivedMessagesCount;
     private TextView mTxtExecutionTime;
+    private TextView mTxtQueueStatistics;
 
     private ProducerConsumerBenchmarkUseCase mProducerConsumerBenchmarkUseCase;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        PriorityExecutor threadPool = getCompositionRoot().getThreadPool();
         mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase(
                 getCompositionRoot().getUiHandler(),
-                getCompositionRoot().getThreadPool()
+                new TracingExecutor(
+                        threadPool.withPriority(TaskPriority.BULK),
+                        getCompositionRoot().getTaskTracer(),
+                        "benchmark"
+                ),
+                threadPool.getConcurrencyLimit(TaskPriority.BULK),
+                // one task per message would fill the bounded pool with blocked producers
+                getCompositionRoot().getBenchmarkConfig().newBuilder()
+                        .setWorkerMode(WorkerMode.FIXED_WORKERS)
+                        .build()
         );
     }
 
@@ -46,11 +67,13 @@ public class DesignWithThreadPoolDemonstrationFragment extends BaseFragment impl
         mProgressBar = view.findViewById(R.id.progress);
         mTxtReceivedMessagesCount = view.findViewById(R.id.txt_received_messages_count);
         mTxtExecutionTime = view.findViewById(R.id.txt_execution_time);
+        mTxtQueueStatistics = view.findViewById(R.id.txt_queue_statistics);
 
         mBtnStart.setOnClickListener(v -> {
             mBtnStart.setEnabled(false);
             mTxtReceivedMessagesCount.setText("");
             mTxtExecutionTime.setText("");
+            mTxtQueueStatistics.setText("");
             mProgressBar.setVisibility(View.VISIBLE);
 
             mProducerConsumerBenchmarkUseCase.startBenchmarkAndNotify();
@@ -76,11 +99,42 @@ public class DesignWithThreadPoolDemonstrationFragment extends BaseFragment impl
         mProducerConsumerBenchmarkUseCase.unregisterListener(this);
     }
 
+    @Override
+    public void onReceivedMessagesProgress(int numOfReceivedMessages) {
+        mTxtReceivedMessagesCount.setText("Received messages: " + numOfReceivedMessages);
+    }
+
     @Override
     public void onBenchmarkCompleted(ProducerConsumerBenchmarkUseCase.Result result) {
         mProgressBar.setVisibility(View.INVISIBLE);
         mBtnStart.setEnabled(true);
-        mTxtReceivedMessagesCount.setText("Received messages: " + result.getNumOfReceivedMessages());
-        mTxtExecutionTime.setText("Execution time: " + result.getExecutionTime() + "ms");
+        mTxtReceivedMessagesCount.setText(
+                "Received messages: " + result.getNumOfReceivedMessages()
+                        + " (progress updates coalesced: "
+                        + mProducerConsumerBenchmarkUseCase.getNumOfCoalescedEvents() + ")"
+        );
+        String executionTime = "Execution time: " + result.getExecutionTime() + "ms";
+        if (result.getCpuUtilization() != CpuUtilizationMeter.UNKNOWN) {
+            executionTime += ", CPU utilization: " + Math.round(result.getCpuUtilization() * 100) + "%";
+        }
+        mTxtExecutionTime.setText(executionTime);
+        String statistics = "";
+        if (result.getQueueStatistics() != null) {
+            statistics += result.getQueueStatistics().toString();
+        }
+        InstrumentedThreadPoolExecutor threadPool =
+                getCompositionRoot().getExecutionService().getIoThreadPool();
+        if (threadPool.isMetricsEnabled()) {
+            statistics += "\n" + threadPool.getMetricsSnapshot().toString();
+        }
+        mTxtQueueStatistics.setText(statistics);
+        exportTrace();
+    }
+
+    private void exportTrace() {
+        getCompositionRoot().getTaskTracer().exportChromeTraceIfEnabled(
+                new File(requireContext().getCacheDir(), TRACE_FILE_NAME),
+                getCompositionRoot().getThreadPool().withPriority(TaskPriority.BULK)
+        );
     }
 }
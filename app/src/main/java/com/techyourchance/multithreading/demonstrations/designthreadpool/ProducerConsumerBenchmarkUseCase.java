@@ -2,137 +2,317 @@ package com.techyourchance.multithreading.demonstrations.designthreadpool;
 
 import android.os.Handler;
 
-import com.techyourchance.multithreading.DefaultConfiguration;
 import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig.WorkerMode;
+import com.techyourchance.multithreading.common.benchmark.QueueBenchmarkResult;
+import com.techyourchance.multithreading.common.blockingqueue.MyIntBlockingQueue;
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics;
+import com.techyourchance.multithreading.common.execution.CpuUtilizationMeter;
+import com.techyourchance.multithreading.common.execution.PriorityExecutor;
 
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
 public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerConsumerBenchmarkUseCase.Listener> {
 
     public static interface Listener {
+        void onReceivedMessagesProgress(int numOfReceivedMessages);
         void onBenchmarkCompleted(Result result);
     }
 
-    public static class Result {
-        private final long mExecutionTime;
-        private final int mNumOfReceivedMessages;
+    public static class Result extends QueueBenchmarkResult {
+        private final double mCpuUtilization;
 
         public Result(long executionTime, int numOfReceivedMessages) {
-            mExecutionTime = executionTime;
-            mNumOfReceivedMessages = numOfReceivedMessages;
+            this(executionTime, numOfReceivedMessages, null);
+        }
+
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      @Nullable QueueStatistics.Snapshot queueStatistics) {
+            this(executionTime, numOfReceivedMessages, queueStatistics, CpuUtilizationMeter.UNKNOWN);
         }
 
-        public long getExecutionTime() {
-            return mExecutionTime;
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      @Nullable QueueStatistics.Snapshot queueStatistics,
+                      double cpuUtilization) {
+            super(executionTime, numOfReceivedMessages, queueStatistics);
+            mCpuUtilization = cpuUtilization;
         }
 
-        public int getNumOfReceivedMessages() {
-            return mNumOfReceivedMessages;
+        /**
+         * @return fraction of the cores (i.e. of the carrier threads, when running on virtual
+         *         threads) that were busy during the run, or {@link CpuUtilizationMeter#UNKNOWN}
+         */
+        public double getCpuUtilization() {
+            return mCpuUtilization;
         }
     }
 
-    private static final int NUM_OF_MESSAGES = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES;
-    private static final int BLOCKING_QUEUE_CAPACITY = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE;
+    // consumers report progress per message; at most one update per frame reaches the UI
+    private static final long PROGRESS_INTERVAL_MS = 16;
+
+    private static final Object EVENT_PROGRESS = new Object();
+    private static final Object EVENT_COMPLETED = new Object();
 
     private final Object LOCK = new Object();
 
-    private final Handler mUiHandler;
+    private final BenchmarkConfig mConfig;
 
-    private final AtomicInteger mNumOfThreads = new AtomicInteger(0);
+    private final MyIntBlockingQueue mBlockingQueue;
 
-    private final MyBlockingQueue mBlockingQueue = new MyBlockingQueue(BLOCKING_QUEUE_CAPACITY);
+    private final Executor mExecutor;
+    private final int mMaxConcurrentTasks;
 
-    private final ThreadPoolExecutor mThreadPool;
+    private final CpuUtilizationMeter mCpuUtilizationMeter = new CpuUtilizationMeter();
 
-    private int mNumOfFinishedConsumers;
+    private CountDownLatch mConsumersFinishedLatch;
 
     private int mNumOfReceivedMessages;
 
-    private long mStartTimestamp;
+    private final AtomicInteger mNumOfReceivedMessagesProgress = new AtomicInteger(0);
+
 
-    public ProducerConsumerBenchmarkUseCase(Handler uiHandler, ThreadPoolExecutor threadPool) {
-        mUiHandler = uiHandler;
-        mThreadPool = threadPool;
+    /**
+     * @param maxConcurrentTasks max number of tasks that the executor runs at the same time
+     *                           (e.g. {@link PriorityExecutor#getConcurrencyLimit}); in
+     *                           {@link WorkerMode#FIXED_WORKERS} mode the driver and all the
+     *                           workers block at once, so they must not outnumber it
+     */
+    public ProducerConsumerBenchmarkUseCase(Handler uiHandler,
+                                            Executor executor,
+                                            int maxConcurrentTasks,
+                                            BenchmarkConfig config) {
+        mExecutor = executor;
+        mMaxConcurrentTasks = maxConcurrentTasks;
+        mConfig = config;
+        mBlockingQueue = new MyIntBlockingQueue(config.getBlockingQueueCapacity());
+        if (config.isCollectQueueStatistics()) {
+            mBlockingQueue.enableStatistics();
+        }
+        enableConflation(uiHandler, PROGRESS_INTERVAL_MS);
     }
 
+    /**
+     * @throws IllegalStateException if the config needs more concurrent tasks than the executor
+     *                               runs; such a run would deadlock without any error
+     */
     public void startBenchmarkAndNotify() {
+        checkWorkersFitExecutor();
+
+        // driver-reporter thread
+        mExecutor.execute(() -> {
+            Result result = runBenchmark();
+            if (result != null) {
+                notifySuccess(result);
+            }
+        });
+    }
+
+    /**
+     * Execute the warmup iterations followed by the measured one on the calling thread.
+     *
+     * @return result of the measured iteration, or null if the benchmark was interrupted
+     * @throws IllegalStateException see {@link #startBenchmarkAndNotify()}
+     */
+    @WorkerThread
+    public @Nullable Result runBenchmark() {
+        checkWorkersFitExecutor();
+        Result result = null;
+        for (int i = 0; i <= mConfig.getWarmupIterations(); i++) {
+            result = runIteration();
+            if (result == null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private void checkWorkersFitExecutor() {
+        if (mConfig.getWorkerMode() != WorkerMode.FIXED_WORKERS) {
+            return;
+        }
+        int numOfConcurrentTasks = 1 + mConfig.getNumOfProducers() + mConfig.getNumOfConsumers();
+        if (numOfConcurrentTasks > mMaxConcurrentTasks) {
+            throw new IllegalStateException(
+                    "driver, producers and consumers need " + numOfConcurrentTasks
+                            + " concurrent tasks, but the executor runs at most "
+                            + mMaxConcurrentTasks + "; config: " + mConfig
+            );
+        }
+    }
+
+    /**
+     * @return result of the iteration, or null if the iteration was interrupted
+     */
+    @WorkerThread
+    private @Nullable Result runIteration() {
 
         synchronized (LOCK) {
             mNumOfReceivedMessages = 0;
-            mNumOfFinishedConsumers = 0;
-            mStartTimestamp = System.currentTimeMillis();
-            mNumOfThreads.set(0);
         }
+        mNumOfReceivedMessagesProgress.set(0);
+        mBlockingQueue.resetStatistics();
+        resetNumOfCoalescedEvents();
 
-        // watcher-reporter thread
-        mThreadPool.execute(() -> {
-            synchronized (LOCK) {
-                while (mNumOfFinishedConsumers < NUM_OF_MESSAGES) {
-                    try {
-                        LOCK.wait();
-                    } catch (InterruptedException e) {
-                        return;
-                    }
-                }
-            }
-            notifySuccess();
-        });
+        boolean fixedWorkers = mConfig.getWorkerMode() == WorkerMode.FIXED_WORKERS;
+        mConsumersFinishedLatch = new CountDownLatch(
+                fixedWorkers ? mConfig.getNumOfConsumers() : mConfig.getNumOfMessages()
+        );
+
+        mCpuUtilizationMeter.start();
+        long startTimestamp = System.currentTimeMillis();
+
+        if (fixedWorkers) {
+            startFixedWorkers();
+        } else {
+            startTaskPerMessageWorkers();
+        }
 
+        // latch instead of LOCK.wait(), so that a virtual driver thread doesn't pin its carrier
+        try {
+            mConsumersFinishedLatch.await();
+        } catch (InterruptedException e) {
+            return null;
+        }
+
+        long executionTime = System.currentTimeMillis() - startTimestamp;
+        double cpuUtilization = mCpuUtilizationMeter.stop();
+
+        synchronized (LOCK) {
+            return new Result(
+                    executionTime,
+                    mNumOfReceivedMessages,
+                    mBlockingQueue.getStatisticsSnapshot(),
+                    cpuUtilization
+            );
+        }
+    }
+
+    private void startTaskPerMessageWorkers() {
         // producers init thread
-        mThreadPool.execute(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+        mExecutor.execute(() -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewProducer(i);
             }
         });
 
         // consumers init thread
-        mThreadPool.execute(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+        mExecutor.execute(() -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewConsumer();
             }
         });
     }
 
+    private void startFixedWorkers() {
+        for (int i = 0; i < mConfig.getNumOfProducers(); i++) {
+            startNewProducerWorker(i);
+        }
+        for (int i = 0; i < mConfig.getNumOfConsumers(); i++) {
+            startNewConsumerWorker(i);
+        }
+    }
+
+    /**
+     * Producer worker with index i produces messages i, i + P, i + 2P, etc.
+     */
+    private void startNewProducerWorker(final int workerIndex) {
+        mExecutor.execute(() -> {
+            try {
+                for (int index = workerIndex;
+                     index < mConfig.getNumOfMessages();
+                     index += mConfig.getNumOfProducers()) {
+                    Thread.sleep(mConfig.getProducerDelayMs());
+                    for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                        mBlockingQueue.putInt(index);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        });
+    }
+
+    private void startNewConsumerWorker(final int workerIndex) {
+        mExecutor.execute(() -> {
+            int numOfMessagesToReceive = getShareOfMessages(workerIndex, mConfig.getNumOfConsumers());
+            int numOfReceivedMessages = 0;
+            try {
+                for (int message = 0; message < numOfMessagesToReceive; message++) {
+                    for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                        mBlockingQueue.takeInt();
+                    }
+                    numOfReceivedMessages++;
+                    notifyProgress();
+                }
+            } catch (InterruptedException e) {
+                // only the completely received messages are counted
+            }
+            synchronized (LOCK) {
+                mNumOfReceivedMessages += numOfReceivedMessages;
+            }
+            mConsumersFinishedLatch.countDown();
+        });
+    }
+
+    private int getShareOfMessages(int workerIndex, int numOfWorkers) {
+        int numOfMessages = mConfig.getNumOfMessages();
+        return numOfMessages / numOfWorkers + (workerIndex < numOfMessages % numOfWorkers ? 1 : 0);
+    }
 
     private void startNewProducer(final int index) {
-        mThreadPool.execute(() -> {
+        mExecutor.execute(() -> {
             try {
-                Thread.sleep(DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS);
+                Thread.sleep(mConfig.getProducerDelayMs());
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    mBlockingQueue.putInt(index);
+                }
             } catch (InterruptedException e) {
                 return;
             }
-            mBlockingQueue.put(index);
         });
     }
 
     private void startNewConsumer() {
-        mThreadPool.execute(() -> {
-            int message = mBlockingQueue.take();
+        mExecutor.execute(() -> {
+            int message = -1;
+            try {
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    message = mBlockingQueue.takeInt();
+                }
+            } catch (InterruptedException e) {
+                message = -1;
+            }
             synchronized (LOCK) {
                 if (message != -1) {
                     mNumOfReceivedMessages++;
                 }
-                mNumOfFinishedConsumers++;
-                LOCK.notifyAll();
             }
+            if (message != -1) {
+                notifyProgress();
+            }
+            mConsumersFinishedLatch.countDown();
         });
     }
 
-    private void notifySuccess() {
-        mUiHandler.post(() -> {
-            Result result;
-            synchronized (LOCK) {
-                 result =
-                        new Result(
-                                System.currentTimeMillis() - mStartTimestamp,
-                                mNumOfReceivedMessages
-                        );
-            }
-            for (Listener listener : getListeners()) {
-                listener.onBenchmarkCompleted(result);
-            }
-        });
+    private void notifyProgress() {
+        int numOfReceivedMessages = mNumOfReceivedMessagesProgress.incrementAndGet();
+        postConflated(
+                EVENT_PROGRESS,
+                listener -> listener.onReceivedMessagesProgress(numOfReceivedMessages)
+        );
+    }
+
+    private void notifySuccess(Result result) {
+        // conflated too, so that it's delivered after the last pending progress update
+        postConflated(EVENT_COMPLETED, listener -> listener.onBenchmarkCompleted(result));
     }
 
 
@@ -0,0 +1,41 @@
+package com.techyourchance.multithreading.demonstrations.designthreadpool;
+
+import android.os.Handler;
+
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkGridRunner;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs {@link ProducerConsumerBenchmarkUseCase} in {@link BenchmarkGridRunner}, with a new use
+ * case for each configuration of the grid. Configurations whose workers don't fit the executor
+ * fail the run (see {@link ProducerConsumerBenchmarkUseCase#startBenchmarkAndNotify()}).
+ */
+public class ProducerConsumerGridBenchmark
+        implements BenchmarkGridRunner.Benchmark<ProducerConsumerBenchmarkUseCase.Result> {
+
+    private final Handler mUiHandler;
+    private final Executor mExecutor;
+    private final int mMaxConcurrentTasks;
+
+    public ProducerConsumerGridBenchmark(Handler uiHandler,
+                                         Executor executor,
+                                         int maxConcurrentTasks) {
+        mUiHandler = uiHandler;
+        mExecutor = executor;
+        mMaxConcurrentTasks = maxConcurrentTasks;
+    }
+
+    @Override
+    public ProducerConsumerBenchmarkUseCase.Result run(BenchmarkConfig config)
+            throws InterruptedException {
+        ProducerConsumerBenchmarkUseCase.Result result = new ProducerConsumerBenchmarkUseCase(
+                mUiHandler, mExecutor, mMaxConcurrentTasks, config
+        ).runBenchmark();
+        if (result == null) {
+            throw new InterruptedException("benchmark interrupted: " + config);
+        }
+        return result;
+    }
+}
@@ -10,6 +10,9 @@ import android.widget.TextView;
 
 import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
+import com.techyourchance.multithreading.common.execution.TaskPriority;
+
+import java.io.File;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -21,17 +24,23 @@ public class DesignWithThreadPosterDemonstrationFragment extends BaseFragment im
         return new DesignWithThreadPosterDemonstrationFragment();
     }
 
+    private static final String TRACE_FILE_NAME = "threadposter-trace.json";
+
     private Button mBtnStart;
     private ProgressBar mProgressBar;
     private TextView mTxtReceivedMessagesCount;
     private TextView mTxtExecutionTime;
+    private TextView mTxtQueueStatistics;
 
     private ProducerConsumerBenchmarkUseCase mProducerConsumerBenchmarkUseCase;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase();
+        mProducerConsumerBenchmarkUseCase = new ProducerConsumerBenchmarkUseCase(
+                getCompositionRoot().getBenchmarkConfig(),
+                getCompositionRoot().getTaskTracer()
+        );
     }
 
     @Nullable
@@ -43,11 +52,13 @@ public class DesignWithThreadPosterDemonstrationFragment extends BaseFragment im
         mProgressBar = view.findViewById(R.id.progress);
         mTxtReceivedMessagesCount = view.findViewById(R.id.txt_received_messages_count);
         mTxtExecutionTime = view.findViewById(R.id.txt_execution_time);
+        mTxtQueueStatistics = view.findViewById(R.id.txt_queue_statistics);
 
         mBtnStart.setOnClickListener(v -> {
             mBtnStart.setEnabled(false);
             mTxtReceivedMessagesCount.setText("");
             mTxtExecutionTime.setText("");
+            mTxtQueueStatistics.setText("");
             mProgressBar.setVisibility(View.VISIBLE);
 
             mProducerConsumerBenchmarkUseCase.startBenchmarkAndNotify();
@@ -79,5 +90,12 @@ public class DesignWithThreadPosterDemonstrationFragment extends BaseFragment im
         mBtnStart.setEnabled(true);
         mTxtReceivedMessagesCount.setText("Received messages: " + result.getNumOfReceivedMessages());
         mTxtExecutionTime.setText("Execution time: " + result.getExecutionTime() + "ms");
+        if (result.getQueueStatistics() != null) {
+            mTxtQueueStatistics.setText(result.getQueueStatistics().toString());
+        }
+        getCompositionRoot().getTaskTracer().exportChromeTraceIfEnabled(
+                new File(requireContext().getCacheDir(), TRACE_FILE_NAME),
+                getCompositionRoot().getThreadPool().withPriority(TaskPriority.BULK)
+        );
     }
 }
@@ -1,103 +1,142 @@
 package com.techyourchance.multithreading.demonstrations.designthreadposter;
 
-import com.techyourchance.multithreading.DefaultConfiguration;
 import com.techyourchance.multithreading.common.BaseObservable;
+import com.techyourchance.multithreading.common.benchmark.BenchmarkConfig;
+import com.techyourchance.multithreading.common.benchmark.QueueBenchmarkResult;
+import com.techyourchance.multithreading.common.blockingqueue.MyIntBlockingQueue;
+import com.techyourchance.multithreading.common.blockingqueue.QueueStatistics;
+import com.techyourchance.multithreading.common.tracing.TaskTracer;
+import com.techyourchance.multithreading.common.tracing.TracingBackgroundThreadPoster;
 import com.techyourchance.threadposter.BackgroundThreadPoster;
 import com.techyourchance.threadposter.UiThreadPoster;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
 public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerConsumerBenchmarkUseCase.Listener> {
 
     public static interface Listener {
         void onBenchmarkCompleted(Result result);
     }
 
-    public static class Result {
-        private final long mExecutionTime;
-        private final int mNumOfReceivedMessages;
+    public static class Result extends QueueBenchmarkResult {
 
         public Result(long executionTime, int numOfReceivedMessages) {
-            mExecutionTime = executionTime;
-            mNumOfReceivedMessages = numOfReceivedMessages;
-        }
-
-        public long getExecutionTime() {
-            return mExecutionTime;
+            this(executionTime, numOfReceivedMessages, null);
         }
 
-        public int getNumOfReceivedMessages() {
-            return mNumOfReceivedMessages;
+        public Result(long executionTime,
+                      int numOfReceivedMessages,
+                      @Nullable QueueStatistics.Snapshot queueStatistics) {
+            super(executionTime, numOfReceivedMessages, queueStatistics);
         }
     }
 
-    private static final int NUM_OF_MESSAGES = DefaultConfiguration.DEFAULT_NUM_OF_MESSAGES;
-    private static final int BLOCKING_QUEUE_CAPACITY = DefaultConfiguration.DEFAULT_BLOCKING_QUEUE_SIZE;
-
     private final Object LOCK = new Object();
 
     private final UiThreadPoster mUiThreadPoster = new UiThreadPoster();
-    private final BackgroundThreadPoster mBackgroundThreadPoster = new BackgroundThreadPoster();
+    private final TracingBackgroundThreadPoster mBackgroundThreadPoster;
 
-    private final MyBlockingQueue mBlockingQueue = new MyBlockingQueue(BLOCKING_QUEUE_CAPACITY);
+    private final BenchmarkConfig mConfig;
+
+    private final MyIntBlockingQueue mBlockingQueue;
 
     private int mNumOfFinishedConsumers;
 
     private int mNumOfReceivedMessages;
 
-    private long mStartTimestamp;
 
+    public ProducerConsumerBenchmarkUseCase(BenchmarkConfig config, TaskTracer taskTracer) {
+        mConfig = config;
+        mBackgroundThreadPoster =
+                new TracingBackgroundThreadPoster(new BackgroundThreadPoster(), taskTracer);
+        mBlockingQueue = new MyIntBlockingQueue(config.getBlockingQueueCapacity());
+        if (config.isCollectQueueStatistics()) {
+            mBlockingQueue.enableStatistics();
+        }
+    }
 
     public void startBenchmarkAndNotify() {
 
+        // driver-reporter thread
+        mBackgroundThreadPoster.post("driver", () -> {
+            Result result = null;
+            for (int i = 0; i <= mConfig.getWarmupIterations(); i++) {
+                result = runIteration();
+                if (result == null) {
+                    return;
+                }
+            }
+            notifySuccess(result);
+        });
+    }
+
+    /**
+     * @return result of the iteration, or null if the iteration was interrupted
+     */
+    @WorkerThread
+    private @Nullable Result runIteration() {
+
         synchronized (LOCK) {
             mNumOfReceivedMessages = 0;
             mNumOfFinishedConsumers = 0;
-            mStartTimestamp = System.currentTimeMillis();
         }
-
-        // watcher-reporter thread
-        mBackgroundThreadPoster.post(() -> {
-            synchronized (LOCK) {
-                while (mNumOfFinishedConsumers < NUM_OF_MESSAGES) {
-                    try {
-                        LOCK.wait();
-                    } catch (InterruptedException e) {
-                        return;
-                    }
-                }
-            }
-            notifySuccess();
-        });
+        mBlockingQueue.resetStatistics();
+        long startTimestamp = System.currentTimeMillis();
 
         // producers init thread
-        mBackgroundThreadPoster.post(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+        mBackgroundThreadPoster.post("producers init", () -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewProducer(i);
             }
         });
 
         // consumers init thread
-        mBackgroundThreadPoster.post(() -> {
-            for (int i = 0; i < NUM_OF_MESSAGES; i++) {
+        mBackgroundThreadPoster.post("consumers init", () -> {
+            for (int i = 0; i < mConfig.getNumOfMessages(); i++) {
                 startNewConsumer();
             }
         });
-    }
 
+        synchronized (LOCK) {
+            while (mNumOfFinishedConsumers < mConfig.getNumOfMessages()) {
+                try {
+                    LOCK.wait();
+                } catch (InterruptedException e) {
+                    return null;
+                }
+            }
+            return new Result(
+                    System.currentTimeMillis() - startTimestamp,
+                    mNumOfReceivedMessages,
+                    mBlockingQueue.getStatisticsSnapshot()
+            );
+        }
+    }
 
     private void startNewProducer(final int index) {
-        mBackgroundThreadPoster.post(() -> {
+        mBackgroundThreadPoster.post("producer", () -> {
             try {
-                Thread.sleep(DefaultConfiguration.DEFAULT_PRODUCER_DELAY_MS);
+                Thread.sleep(mConfig.getProducerDelayMs());
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    mBlockingQueue.putInt(index);
+                }
             } catch (InterruptedException e) {
                 return;
             }
-            mBlockingQueue.put(index);
         });
     }
 
     private void startNewConsumer() {
-        mBackgroundThreadPoster.post(() -> {
-            int message = mBlockingQueue.take();
+        mBackgroundThreadPoster.post("consumer", () -> {
+            int message = -1;
+            try {
+                for (int i = 0; i < mConfig.getPayloadSize(); i++) {
+                    message = mBlockingQueue.takeInt();
+                }
+            } catch (InterruptedException e) {
+                message = -1;
+            }
             synchronized (LOCK) {
                 if (message != -1) {
                     mNumOfReceivedMessages++;
@@ -108,19 +147,9 @@ public class ProducerConsumerBenchmarkUseCase extends BaseObservable<ProducerCon
         });
     }
 
-    private void notifySuccess() {
+    private void notifySuccess(Result result) {
         mUiThreadPoster.post(() -> {
-            Result result;
-            synchronized (LOCK) {
-                result =
-                        new Result(
-                                System.currentTimeMillis() - mStartTimestamp,
-                                mNumOfReceivedMessages
-                        );
-            }
-            for (Listener listener : getListeners()) {
-                listener.onBenchmarkCompleted(result);
-            }
+            notifyListeners(listener -> listener.onBenchmarkCompleted(result));
         });
     }
 
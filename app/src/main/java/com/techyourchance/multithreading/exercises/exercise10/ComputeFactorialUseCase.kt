@@ -165,27 +165,15 @@ class ComputeFactorialUseCase : BaseObservable<ComputeFactorialUseCase.Listener>
     }
 
     private fun notifySuccess(result: BigInteger) {
-        uiHandler.post {
-            for (listener in listeners) {
-                listener.onFactorialComputed(result)
-            }
-        }
+        uiHandler.post { notifyListeners { listener -> listener.onFactorialComputed(result) } }
     }
 
     private fun notifyAborted() {
-        uiHandler.post {
-            for (listener in listeners) {
-                listener.onFactorialComputationAborted()
-            }
-        }
+        uiHandler.post { notifyListeners { listener -> listener.onFactorialComputationAborted() } }
     }
 
     private fun notifyTimeout() {
-        uiHandler.post {
-            for (listener in listeners) {
-                listener.onFactorialComputationTimedOut()
-            }
-        }
+        uiHandler.post { notifyListeners { listener -> listener.onFactorialComputationTimedOut() } }
     }
 
 
@@ -17,6 +17,7 @@ import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
 
 import java.math.BigInteger;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -33,6 +34,8 @@ public class Exercise4Fragment extends BaseFragment {
 
     private Handler mUiHandler = new Handler(Looper.getMainLooper());
 
+    private Executor mExecutor;
+
     private EditText mEdtArgument;
     private EditText mEdtTimeout;
     private Button mBtnStartWork;
@@ -47,6 +50,12 @@ public class Exercise4Fragment extends BaseFragment {
 
     private boolean mAbortComputation;
 
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mExecutor = getCompositionRoot().getExecutionService();
+    }
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -106,7 +115,7 @@ public class Exercise4Fragment extends BaseFragment {
     }
 
     private void computeFactorial(final int factorialArgument, final int timeout) {
-        new Thread(new Runnable() {
+        mExecutor.execute(new Runnable() {
             @Override
             public void run() {
                 initComputationParams(factorialArgument, timeout);
@@ -114,7 +123,7 @@ public class Exercise4Fragment extends BaseFragment {
                 waitForThreadsResultsOrTimeoutOrAbort();
                 processComputationResults();
             }
-        }).start();
+        });
     }
 
     private void initComputationParams(int factorialArgument, int timeout) {
@@ -156,7 +165,7 @@ public class Exercise4Fragment extends BaseFragment {
 
             final int threadIndex = i;
 
-            new Thread(new Runnable() {
+            mExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     long rangeStart = mThreadsComputationRanges[threadIndex].start;
@@ -171,7 +180,7 @@ public class Exercise4Fragment extends BaseFragment {
                     mThreadsComputationResults[threadIndex] = product;
                     mNumOfFinishedThreads++;
                 }
-            }).start();
+            });
 
         }
     }
@@ -17,6 +17,7 @@ import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
 
 import java.math.BigInteger;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import androidx.annotation.NonNull;
@@ -36,6 +37,8 @@ public class Exercise6Fragment extends BaseFragment {
 
     private final Handler mUiHandler = new Handler(Looper.getMainLooper());
 
+    private Executor mExecutor;
+
     // UI thread
     private EditText mEdtArgument;
     private EditText mEdtTimeout;
@@ -51,6 +54,12 @@ public class Exercise6Fragment extends BaseFragment {
 
         private volatile boolean mAbortComputation; // safe
 
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        mExecutor = getCompositionRoot().getExecutionService();
+    }
+
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -107,12 +116,12 @@ public class Exercise6Fragment extends BaseFragment {
     }
 
     private void computeFactorial(final int factorialArgument, final int timeout) {
-        new Thread(() -> {
+        mExecutor.execute(() -> {
             initComputationParams(factorialArgument, timeout);
             startComputation();
             waitForThreadsResultsOrTimeoutOrAbort();
             processComputationResults();
-        }).start();
+        });
     }
 
     private void initComputationParams(int factorialArgument, int timeout) {
@@ -156,7 +165,7 @@ public class Exercise6Fragment extends BaseFragment {
 
             final int threadIndex = i;
 
-            new Thread(() -> {
+            mExecutor.execute(() -> {
                 long rangeStart = mThreadsComputationRanges[threadIndex].start;
                 long rangeEnd = mThreadsComputationRanges[threadIndex].end;
                 BigInteger product = new BigInteger("1");
@@ -173,7 +182,7 @@ public class Exercise6Fragment extends BaseFragment {
                     LOCK.notifyAll();
                 }
 
-            }).start();
+            });
 
         }
     }
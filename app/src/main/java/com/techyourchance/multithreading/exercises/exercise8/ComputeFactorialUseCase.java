@@ -161,27 +161,15 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
     }
 
     private void notifySuccess(final BigInteger result) {
-        mUiHandler.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputed(result);
-            }
-        });
+        mUiHandler.post(() -> notifyListeners(listener -> listener.onFactorialComputed(result)));
     }
 
     private void notifyAborted() {
-        mUiHandler.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputationAborted();
-            }
-        });
+        mUiHandler.post(() -> notifyListeners(Listener::onFactorialComputationAborted));
     }
 
     private void notifyTimeout() {
-        mUiHandler.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputationTimedOut();
-            }
-        });
+        mUiHandler.post(() -> notifyListeners(Listener::onFactorialComputationTimedOut));
     }
 
 
@@ -119,6 +119,9 @@ public class HomeFragment extends BaseFragment implements HomeArrayAdapter.Liste
             case EXERCISE_10:
                 mScreensNavigator.toExercise10Screen();
                 break;
+            case DESIGN_WITH_BEST_JAVA_IMPLEMENTATION_DEMONSTRATION:
+                mScreensNavigator.toDesignWithBestJavaImplementationDemonstration();
+                break;
         }
     }
 }
@@ -22,6 +22,7 @@ public enum ScreenReachableFromHome {
     EXERCISE_9("Exercise 9"),
     DESIGN_WITH_COROUTINES_DEMONSTRATION("Design Demo: Coroutines"),
     EXERCISE_10("Exercise 10"),
+    DESIGN_WITH_BEST_JAVA_IMPLEMENTATION_DEMONSTRATION("Design Demo: Best Java Implementation"),
     ;
 
     private String mName;
@@ -1,12 +1,9 @@
 package com.techyourchance.multithreading.solutions.exercise7;
 
-import android.os.Handler;
-import android.os.Looper;
-
 import com.techyourchance.multithreading.common.BaseObservable;
 
 import java.math.BigInteger;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.WorkerThread;
 
@@ -20,8 +17,7 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
 
     private final Object LOCK = new Object();
 
-    private final Handler mUiHandler;
-    private final ThreadPoolExecutor mThreadPoolExecutor;
+    private final Executor mExecutor;
 
     private int mNumberOfThreads;
     private ComputationRange[] mThreadsComputationRanges;
@@ -32,9 +28,12 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
 
     private boolean mAbortComputation;
 
-    public ComputeFactorialUseCase(Handler uiHandler, ThreadPoolExecutor threadPoolExecutor) {
-        mUiHandler = uiHandler;
-        mThreadPoolExecutor = threadPoolExecutor;
+    /**
+     * Listeners receive the results on the executors they register with, e.g. a UI thread
+     * executor, or {@link #DIRECT_EXECUTOR} for headless consumers.
+     */
+    public ComputeFactorialUseCase(Executor executor) {
+        mExecutor = executor;
     }
 
     @Override
@@ -47,7 +46,7 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
     }
 
     public void computeFactorialAndNotify(final int argument, final int timeout) {
-        mThreadPoolExecutor.execute(() -> {
+        mExecutor.execute(() -> {
             initComputationParams(argument, timeout);
             startComputation();
             waitForThreadsResultsOrTimeoutOrAbort();
@@ -95,7 +94,7 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
 
             final int threadIndex = i;
 
-            mThreadPoolExecutor.execute(() -> {
+            mExecutor.execute(() -> {
                 long rangeStart = mThreadsComputationRanges[threadIndex].start;
                 long rangeEnd = mThreadsComputationRanges[threadIndex].end;
                 BigInteger product = new BigInteger("1");
@@ -168,27 +167,15 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
     }
 
     private void notifySuccess(final BigInteger result) {
-        mUiHandler.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputed(result);
-            }
-        });
+        notifyListeners(listener -> listener.onFactorialComputed(result));
     }
 
     private void notifyAborted() {
-        mUiHandler.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputationAborted();
-            }
-        });
+        notifyListeners(Listener::onFactorialComputationAborted);
     }
 
     private void notifyTimeout() {
-        mUiHandler.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputationTimedOut();
-            }
-        });
+        notifyListeners(Listener::onFactorialComputationTimedOut);
     }
 
 
@@ -13,7 +13,11 @@ import android.widget.TextView;
 import com.techyourchance.multithreading.DefaultConfiguration;
 import com.techyourchance.multithreading.R;
 import com.techyourchance.multithreading.common.BaseFragment;
+import com.techyourchance.multithreading.common.execution.TaskPriority;
+import com.techyourchance.multithreading.common.tracing.TracingExecutor;
+import com.techyourchance.multithreading.common.tracing.TracingHandler;
 
+import java.io.File;
 import java.math.BigInteger;
 
 import androidx.annotation.NonNull;
@@ -26,6 +30,8 @@ public class SolutionExercise7Fragment extends BaseFragment implements ComputeFa
         return new SolutionExercise7Fragment();
     }
 
+    private static final String TRACE_FILE_NAME = "factorial-trace.json";
+
     private static int MAX_TIMEOUT_MS = DefaultConfiguration.DEFAULT_FACTORIAL_TIMEOUT_MS;
 
     private EditText mEdtArgument;
@@ -39,8 +45,11 @@ public class SolutionExercise7Fragment extends BaseFragment implements ComputeFa
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         mComputeFactorialUseCase = new ComputeFactorialUseCase(
-                getCompositionRoot().getUiHandler(),
-                getCompositionRoot().getThreadPool()
+                new TracingExecutor(
+                        getCompositionRoot().getThreadPool().withPriority(TaskPriority.INTERACTIVE),
+                        getCompositionRoot().getTaskTracer(),
+                        "factorial"
+                )
         );
     }
 
@@ -78,7 +87,15 @@ public class SolutionExercise7Fragment extends BaseFragment implements ComputeFa
     @Override
     public void onStart() {
         super.onStart();
-        mComputeFactorialUseCase.registerListener(this);
+        // traced, so that the timeline also shows how long the results wait for the UI thread
+        TracingHandler uiHandler = new TracingHandler(
+                getCompositionRoot().getUiHandler(),
+                getCompositionRoot().getTaskTracer()
+        );
+        mComputeFactorialUseCase.registerListener(
+                this,
+                task -> uiHandler.post("deliver result", task)
+        );
     }
 
     @Override
@@ -110,17 +127,27 @@ public class SolutionExercise7Fragment extends BaseFragment implements ComputeFa
     public void onFactorialComputed(BigInteger result) {
         mTxtResult.setText(result.toString());
         mBtnStartWork.setEnabled(true);
+        exportTrace();
     }
 
     @Override
     public void onFactorialComputationTimedOut() {
         mTxtResult.setText("Computation timed out");
         mBtnStartWork.setEnabled(true);
+        exportTrace();
     }
 
     @Override
     public void onFactorialComputationAborted() {
         mTxtResult.setText("Computation aborted");
         mBtnStartWork.setEnabled(true);
+        exportTrace();
+    }
+
+    private void exportTrace() {
+        getCompositionRoot().getTaskTracer().exportChromeTraceIfEnabled(
+                new File(requireContext().getCacheDir(), TRACE_FILE_NAME),
+                getCompositionRoot().getThreadPool().withPriority(TaskPriority.BULK)
+        );
     }
 }
@@ -167,26 +167,16 @@ public class ComputeFactorialUseCase extends BaseObservable<ComputeFactorialUseC
 
     private void notifySuccess(final BigInteger result) {
         mUiThreadPoster.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputed(result);
-            }
+            notifyListeners(listener -> listener.onFactorialComputed(result));
         });
     }
 
     private void notifyAborted() {
-        mUiThreadPoster.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputationAborted();
-            }
-        });
+        mUiThreadPoster.post(() -> notifyListeners(Listener::onFactorialComputationAborted));
     }
 
     private void notifyTimeout() {
-        mUiThreadPoster.post(() -> {
-            for (Listener listener : getListeners()) {
-                listener.onFactorialComputationTimedOut();
-            }
-        });
+        mUiThreadPoster.post(() -> notifyListeners(Listener::onFactorialComputationTimedOut));
     }
 
 
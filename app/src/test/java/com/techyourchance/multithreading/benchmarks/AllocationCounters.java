@@ -0,0 +1,31 @@
+package com.techyourchance.multithreading.benchmarks;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reads the per-thread allocation counters of HotSpot-based JVMs. The counters aren't part of
+ * the standard API (nor of Android), so they are looked up with reflection.
+ */
+final class AllocationCounters {
+
+    private AllocationCounters() {}
+
+    /**
+     * @return bytes allocated by the thread so far, or -1 if the JVM doesn't expose the counters
+     */
+    static long getAllocatedBytes(Thread thread) {
+        try {
+            Class<?> managementFactory = Class.forName("java.lang.management.ManagementFactory");
+            Object threadBean = managementFactory.getMethod("getThreadMXBean").invoke(null);
+            Class<?> sunThreadBean = Class.forName("com.sun.management.ThreadMXBean");
+            if (sunThreadBean.isInstance(threadBean)) {
+                Method getThreadAllocatedBytes =
+                        sunThreadBean.getMethod("getThreadAllocatedBytes", long.class);
+                return (Long) getThreadAllocatedBytes.invoke(threadBean, thread.getId());
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // fall through
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,224 @@
+package com.techyourchance.multithreading.benchmarks;
+
+import com.techyourchance.multithreading.common.atomic.PaddedAtomicLong;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the cost of false sharing: each thread increments only its own counter, but the
+ * counters are laid out in different ways:
+ * <ul>
+ *     <li>adjacent: consecutive slots of one array, so up to 8 counters share a cache line</li>
+ *     <li>padded-slots: slots of one array that are 128 bytes apart</li>
+ *     <li>padded-object: {@link PaddedAtomicLong}s, each on its own cache line</li>
+ *     <li>thread-local: a local variable, written to a shared slot once at the end</li>
+ * </ul>
+ * "adjacent" and "padded-slots" run exactly the same code and differ only in the layout, so the
+ * difference between them is the cost of false sharing; the other layouts access their counters
+ * differently and show absolute costs.
+ * <p>
+ * The number of threads is swept from 1 to the number of cores (or to the first argument).
+ * False sharing only shows with 2+ threads running on different cores at the same time.
+ */
+public class FalseSharingBenchmark {
+
+    private static final long INCREMENTS_PER_THREAD = 50_000_000L;
+    private static final int NUM_OF_ROUNDS = 3;
+
+    // 128 bytes, because some CPUs prefetch cache lines in adjacent pairs
+    private static final int PADDED_SLOTS_STRIDE = 16;
+
+    // never written during a run and never equal to a count; see newThreadLocalLayout()
+    private static volatile long sBlackholeSentinel = -1;
+
+    private interface CounterLayout {
+        String getName();
+
+        /**
+         * Increment the counter of the given thread the given number of times
+         */
+        void count(int threadIndex, long increments);
+
+        long sum();
+
+        void reset();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxNumOfThreads = args.length > 0
+                ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println(String.format(
+                "%-14s %8s %16s %16s", "layout", "threads", "best ms", "increments/s"
+        ));
+        for (int numOfThreads = 1; numOfThreads <= maxNumOfThreads; numOfThreads++) {
+            measure(newArrayLayout("adjacent", numOfThreads, 1), numOfThreads);
+            measure(newArrayLayout("padded-slots", numOfThreads, PADDED_SLOTS_STRIDE), numOfThreads);
+            measure(newPaddedLayout(numOfThreads), numOfThreads);
+            measure(newThreadLocalLayout(numOfThreads), numOfThreads);
+        }
+    }
+
+    /**
+     * The counters are written with ordered stores, which the JIT can't keep in a register, so
+     * each increment actually reaches the (shared or private) cache line.
+     *
+     * @param stride distance between the counters of adjacent threads, in array slots
+     */
+    private static CounterLayout newArrayLayout(String name, int numOfThreads, int stride) {
+        // the first counter is also offset by the stride, away from the array's header
+        AtomicLongArray counters = new AtomicLongArray((numOfThreads + 1) * stride);
+        return new CounterLayout() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public void count(int threadIndex, long increments) {
+                int index = (threadIndex + 1) * stride;
+                for (long i = 0; i < increments; i++) {
+                    counters.lazySet(index, counters.get(index) + 1);
+                }
+            }
+
+            @Override
+            public long sum() {
+                long sum = 0;
+                for (int i = 0; i < counters.length(); i++) {
+                    sum += counters.get(i);
+                }
+                return sum;
+            }
+
+            @Override
+            public void reset() {
+                for (int i = 0; i < counters.length(); i++) {
+                    counters.set(i, 0);
+                }
+            }
+        };
+    }
+
+    private static CounterLayout newPaddedLayout(int numOfThreads) {
+        PaddedAtomicLong[] counters = new PaddedAtomicLong[numOfThreads];
+        for (int i = 0; i < numOfThreads; i++) {
+            counters[i] = new PaddedAtomicLong();
+        }
+        return new CounterLayout() {
+            @Override
+            public String getName() {
+                return "padded-object";
+            }
+
+            @Override
+            public void count(int threadIndex, long increments) {
+                PaddedAtomicLong counter = counters[threadIndex];
+                for (long i = 0; i < increments; i++) {
+                    counter.lazySet(counter.get() + 1);
+                }
+            }
+
+            @Override
+            public long sum() {
+                long sum = 0;
+                for (PaddedAtomicLong counter : counters) {
+                    sum += counter.get();
+                }
+                return sum;
+            }
+
+            @Override
+            public void reset() {
+                for (PaddedAtomicLong counter : counters) {
+                    counter.set(0);
+                }
+            }
+        };
+    }
+
+    private static CounterLayout newThreadLocalLayout(int numOfThreads) {
+        AtomicLongArray results = new AtomicLongArray(numOfThreads);
+        return new CounterLayout() {
+            @Override
+            public String getName() {
+                return "thread-local";
+            }
+
+            @Override
+            public void count(int threadIndex, long increments) {
+                // the JIT keeps the count in a register, so the loop never writes memory; comparing
+                // each count with a volatile (like JMH's Blackhole) keeps the JIT from folding the
+                // loop into a single addition, and the sentinel's cache line is only ever read
+                long count = 0;
+                for (long i = 0; i < increments; i++) {
+                    count++;
+                    if (count == sBlackholeSentinel) {
+                        results.set(threadIndex, -1);
+                    }
+                }
+                // merged once per thread, so sharing the results' cache line costs nothing
+                results.set(threadIndex, count);
+            }
+
+            @Override
+            public long sum() {
+                long sum = 0;
+                for (int i = 0; i < results.length(); i++) {
+                    sum += results.get(i);
+                }
+                return sum;
+            }
+
+            @Override
+            public void reset() {
+                for (int i = 0; i < results.length(); i++) {
+                    results.set(i, 0);
+                }
+            }
+        };
+    }
+
+    private static void measure(CounterLayout layout, int numOfThreads) throws InterruptedException {
+        long totalIncrements = numOfThreads * INCREMENTS_PER_THREAD;
+        long bestElapsedNanos = Long.MAX_VALUE;
+        for (int round = 0; round < NUM_OF_ROUNDS; round++) {
+            layout.reset();
+            bestElapsedNanos = Math.min(bestElapsedNanos, runRound(layout, numOfThreads));
+            if (layout.sum() != totalIncrements) {
+                throw new IllegalStateException(
+                        layout.getName() + ": expected " + totalIncrements + ", got " + layout.sum()
+                );
+            }
+        }
+        System.out.println(String.format(
+                "%-14s %8d %16d %16d",
+                layout.getName(),
+                numOfThreads,
+                bestElapsedNanos / 1_000_000,
+                totalIncrements * 1_000_000_000L / bestElapsedNanos
+        ));
+    }
+
+    private static long runRound(CounterLayout layout, int numOfThreads) throws InterruptedException {
+        CountDownLatch startGate = new CountDownLatch(1);
+        CountDownLatch allThreadsFinished = new CountDownLatch(numOfThreads);
+        for (int i = 0; i < numOfThreads; i++) {
+            final int threadIndex = i;
+            new Thread(() -> {
+                try {
+                    startGate.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                layout.count(threadIndex, INCREMENTS_PER_THREAD);
+                allThreadsFinished.countDown();
+            }).start();
+        }
+        long startNanos = System.nanoTime();
+        startGate.countDown();
+        allThreadsFinished.await();
+        return System.nanoTime() - startNanos;
+    }
+}
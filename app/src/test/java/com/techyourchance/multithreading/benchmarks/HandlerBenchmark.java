@@ -0,0 +1,60 @@
+package com.techyourchance.multithreading.benchmarks;
+
+import com.techyourchance.multithreading.common.looper.CustomHandler;
+import com.techyourchance.multithreading.common.looper.CustomLooper;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput (posts per second, until the last posted task ran) of
+ * {@link CustomHandler} compared to a single-thread executor, with one posting thread.
+ */
+public class HandlerBenchmark {
+
+    private static final int NUM_OF_ROUNDS = 5;
+    private static final int POSTS_PER_ROUND = 1_000_000;
+
+    private interface Poster {
+        void post(Runnable runnable);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorService loopThread = Executors.newSingleThreadExecutor();
+        CustomLooper looper = new CustomLooper(loopThread);
+        CustomHandler handler = new CustomHandler(looper);
+
+        ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+
+        System.out.println(String.format("%-24s %6s %14s", "poster", "round", "posts/s"));
+        for (int round = 1; round <= NUM_OF_ROUNDS; round++) {
+            measure("CustomHandler", round, handler::post);
+            measure("single-thread executor", round, singleThreadExecutor::execute);
+        }
+
+        looper.quitSafely();
+        loopThread.shutdown();
+        singleThreadExecutor.shutdown();
+        loopThread.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private static void measure(String name, int round, Poster poster) throws InterruptedException {
+        CountDownLatch lastTaskRan = new CountDownLatch(1);
+        Runnable task = () -> { };
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < POSTS_PER_ROUND - 1; i++) {
+            poster.post(task);
+        }
+        poster.post(lastTaskRan::countDown);
+        lastTaskRan.await();
+        long elapsedNanos = System.nanoTime() - startNanos;
+        System.out.println(String.format(
+                "%-24s %6d %14d",
+                name,
+                round,
+                POSTS_PER_ROUND * TimeUnit.SECONDS.toNanos(1) / elapsedNanos
+        ));
+    }
+}
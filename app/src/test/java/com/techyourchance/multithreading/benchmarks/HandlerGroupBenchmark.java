@@ -0,0 +1,71 @@
+package com.techyourchance.multithreading.benchmarks;
+
+import com.techyourchance.multithreading.common.looper.CustomHandlerGroup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Measures the time it takes {@link CustomHandlerGroup}s of different sizes to run keyed tasks
+ * that block for a while (e.g. on IO), and verifies that the tasks of each key run in the order
+ * they were posted.
+ */
+public class HandlerGroupBenchmark {
+
+    private static final int[] NUMS_OF_LOOPERS = {1, 2, 4, 8};
+    private static final int NUM_OF_KEYS = 32;
+    private static final int TASKS_PER_KEY = 20;
+    private static final int TASK_DURATION_MS = 1;
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorService loopThreads = Executors.newCachedThreadPool();
+
+        for (int numOfLoopers : NUMS_OF_LOOPERS) {
+            CustomHandlerGroup handlerGroup = new CustomHandlerGroup(loopThreads, numOfLoopers);
+            AtomicIntegerArray lastSequenceNumbers = new AtomicIntegerArray(NUM_OF_KEYS);
+            AtomicIntegerArray numOfReorderedTasks = new AtomicIntegerArray(1);
+            CountDownLatch allTasksRan = new CountDownLatch(NUM_OF_KEYS * TASKS_PER_KEY);
+
+            long startNanos = System.nanoTime();
+            for (int sequenceNumber = 1; sequenceNumber <= TASKS_PER_KEY; sequenceNumber++) {
+                for (int key = 0; key < NUM_OF_KEYS; key++) {
+                    final int finalKey = key;
+                    final int finalSequenceNumber = sequenceNumber;
+                    handlerGroup.post(key, () -> {
+                        if (lastSequenceNumbers.getAndSet(finalKey, finalSequenceNumber)
+                                != finalSequenceNumber - 1) {
+                            numOfReorderedTasks.incrementAndGet(0);
+                        }
+                        sleep(TASK_DURATION_MS);
+                        allTasksRan.countDown();
+                    });
+                }
+            }
+            allTasksRan.await();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+            System.out.println(numOfLoopers + " looper(s): " + elapsedMs + "ms, "
+                    + "reordered tasks: " + numOfReorderedTasks.get(0));
+            for (CustomHandlerGroup.LooperStatistics statistics : handlerGroup.getStatistics()) {
+                System.out.println(statistics);
+            }
+            System.out.println();
+
+            handlerGroup.quitSafely();
+        }
+
+        loopThreads.shutdown();
+        loopThreads.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.techyourchance.multithreading.benchmarks;
+
+import com.techyourchance.multithreading.common.BaseObservable;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.techyourchance.multithreading.benchmarks.AllocationCounters.getAllocatedBytes;
+
+/**
+ * Measures the cost of notifying 1, 10 and 100 directly delivered listeners through
+ * {@link BaseObservable#notifyListeners}, i.e. the path the use cases take, compared to the former
+ * registry, which copied the listeners into a new set under a lock on every notification.
+ * Allocations are reported only on JVMs that expose per-thread allocation counters.
+ */
+public class ListenerNotificationBenchmark {
+
+    private static final int[] NUM_OF_LISTENERS = {1, 10, 100};
+    private static final int WARMUP_NOTIFICATIONS = 200_000;
+    private static final int MEASURED_NOTIFICATIONS = 1_000_000;
+
+    public static void main(String[] args) {
+        System.out.println(String.format(
+                "%-16s %10s %12s %16s", "registry", "listeners", "ns/notify", "bytes/notify"
+        ));
+        for (int numOfListeners : NUM_OF_LISTENERS) {
+            CopyOnWriteObservable copyOnWriteObservable = new CopyOnWriteObservable();
+            CopyOnNotifyObservable copyOnNotifyObservable = new CopyOnNotifyObservable();
+            for (int i = 0; i < numOfListeners; i++) {
+                copyOnWriteObservable.registerListener(new CountingListener());
+                copyOnNotifyObservable.registerListener(new CountingListener());
+            }
+            measure("copy-on-write", numOfListeners, copyOnWriteObservable::notifyEvent);
+            measure("copy-on-notify", numOfListeners, copyOnNotifyObservable::notifyEvent);
+        }
+    }
+
+    private static void measure(String registry, int numOfListeners, Runnable notification) {
+        for (int i = 0; i < WARMUP_NOTIFICATIONS; i++) {
+            notification.run();
+        }
+        long startAllocatedBytes = getAllocatedBytes(Thread.currentThread());
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < MEASURED_NOTIFICATIONS; i++) {
+            notification.run();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocatedBytes = getAllocatedBytes(Thread.currentThread()) - startAllocatedBytes;
+        System.out.println(String.format(
+                "%-16s %10d %12.1f %16s",
+                registry,
+                numOfListeners,
+                (double) elapsedNanos / MEASURED_NOTIFICATIONS,
+                startAllocatedBytes < 0 ? "n/a" : String.valueOf(allocatedBytes / MEASURED_NOTIFICATIONS)
+        ));
+    }
+
+    private interface Listener {
+        void onEvent();
+    }
+
+    private static class CountingListener implements Listener {
+        private int mNumOfEvents;
+
+        @Override
+        public void onEvent() {
+            mNumOfEvents++;
+        }
+    }
+
+    private static class CopyOnWriteObservable extends BaseObservable<Listener> {
+        private void notifyEvent() {
+            // non-capturing, so the lambda is a constant like in the use cases' no-argument events
+            notifyListeners(Listener::onEvent);
+        }
+    }
+
+    /**
+     * The registry as it was before it became copy-on-write
+     */
+    private static class CopyOnNotifyObservable {
+
+        private final Object MONITOR = new Object();
+
+        private final Set<Listener> mListeners = new HashSet<>();
+
+        private void registerListener(Listener listener) {
+            synchronized (MONITOR) {
+                mListeners.add(listener);
+            }
+        }
+
+        private Set<Listener> getListeners() {
+            synchronized (MONITOR) {
+                return Collections.unmodifiableSet(new HashSet<>(mListeners));
+            }
+        }
+
+        private void notifyEvent() {
+            for (Listener listener : getListeners()) {
+                listener.onEvent();
+            }
+        }
+    }
+}
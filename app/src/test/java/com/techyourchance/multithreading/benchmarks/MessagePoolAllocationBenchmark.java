@@ -0,0 +1,114 @@
+package com.techyourchance.multithreading.benchmarks;
+
+import com.techyourchance.multithreading.common.looper.CustomHandler;
+import com.techyourchance.multithreading.common.looper.CustomLooper;
+import com.techyourchance.multithreading.common.looper.CustomMessage;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.techyourchance.multithreading.benchmarks.AllocationCounters.getAllocatedBytes;
+
+/**
+ * Measures bytes allocated per message by the sending thread and by the looper thread, in steady
+ * state (after warmup, with fewer messages in flight than the pool holds).
+ * Compares pooled messages, posted (pre-allocated) Runnables and a single-thread executor.
+ * Fails if the pooled variants allocate per message on either thread. Allocations are measured
+ * only on JVMs that expose per-thread allocation counters.
+ */
+public class MessagePoolAllocationBenchmark {
+
+    private static final int BATCH_SIZE = 32; // smaller than the message pool
+    private static final int WARMUP_BATCHES = 20_000;
+    private static final int MEASURED_BATCHES = 100_000;
+
+    private static volatile long sNumOfHandledMessages;
+
+    private interface Sender {
+        void send();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Thread[] loopThread = new Thread[1];
+        ExecutorService loopExecutor = Executors.newSingleThreadExecutor(r -> {
+            loopThread[0] = new Thread(r, "looper");
+            return loopThread[0];
+        });
+        CustomLooper looper = new CustomLooper(loopExecutor);
+        CustomHandler handler = new CustomHandler(looper) {
+            @Override
+            public void handleMessage(CustomMessage message) {
+                sNumOfHandledMessages++;
+            }
+        };
+        Runnable task = () -> sNumOfHandledMessages++;
+
+        Thread[] executorThread = new Thread[1];
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            executorThread[0] = new Thread(r, "executor");
+            return executorThread[0];
+        });
+        executor.execute(() -> { }); // start the thread
+
+        System.out.println(String.format(
+                "%-20s %18s %18s", "sender", "sender bytes/msg", "loop bytes/msg"
+        ));
+        try {
+            measure(
+                    "pooled message",
+                    loopThread[0],
+                    () -> handler.sendMessage(handler.obtainMessage(1)),
+                    true
+            );
+            measure("posted runnable", loopThread[0], () -> handler.post(task), true);
+            measure("executor", executorThread[0], () -> executor.execute(task), false);
+        } finally {
+            // also on a failed check, otherwise the threads would keep the JVM running
+            looper.quitSafely();
+            loopExecutor.shutdown();
+            executor.shutdown();
+            loopExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * @param pooled if true, the messages come from the pool, so the steady state must not
+     *               allocate; checked only if the JVM exposes the allocation counters
+     */
+    private static void measure(String name, Thread consumerThread, Sender sender, boolean pooled) {
+        runBatches(WARMUP_BATCHES, sender);
+        long startSenderBytes = getAllocatedBytes(Thread.currentThread());
+        long startConsumerBytes = getAllocatedBytes(consumerThread);
+        runBatches(MEASURED_BATCHES, sender);
+        long senderBytes = getAllocatedBytes(Thread.currentThread()) - startSenderBytes;
+        long consumerBytes = getAllocatedBytes(consumerThread) - startConsumerBytes;
+        double numOfMessages = (double) MEASURED_BATCHES * BATCH_SIZE;
+        System.out.println(String.format(
+                "%-20s %18.2f %18.2f",
+                name,
+                startSenderBytes < 0 ? Double.NaN : senderBytes / numOfMessages,
+                startConsumerBytes < 0 ? Double.NaN : consumerBytes / numOfMessages
+        ));
+        // less than a byte per message: occasional JVM-internal allocations aren't per message
+        if (pooled && startSenderBytes >= 0 && senderBytes >= numOfMessages) {
+            throw new AssertionError(name + ": sender allocates in steady state");
+        }
+        if (pooled && startConsumerBytes >= 0 && consumerBytes >= numOfMessages) {
+            throw new AssertionError(name + ": looper allocates in steady state");
+        }
+    }
+
+    private static void runBatches(int numOfBatches, Sender sender) {
+        for (int batch = 0; batch < numOfBatches; batch++) {
+            long target = sNumOfHandledMessages + BATCH_SIZE;
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                sender.send();
+            }
+            // spin instead of blocking, so that waiting doesn't allocate
+            while (sNumOfHandledMessages < target) {
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Micro-benchmarks of the building blocks of the app. They aren't unit tests: each one is a main
+ * method meant to be run on a JVM (right-click -> Run).
+ */
+package com.techyourchance.multithreading.benchmarks;
@@ -0,0 +1,80 @@
+package com.techyourchance.multithreading.common.benchmark;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BenchmarkGridRunnerTest {
+
+    private static final long EXECUTION_TIME = 10;
+
+    private final List<BenchmarkConfig> mExecutedConfigs = new ArrayList<>();
+
+    @Test
+    public void run_twoByTwoGrid_rowPerCombinationInOrder() throws Exception {
+        BenchmarkGridRunner<QueueBenchmarkResult> gridRunner = new BenchmarkGridRunner<>(
+                this::runStubBenchmark, BenchmarkConfig.defaultConfig()
+        ).sweepNumOfProducers(1, 2).sweepNumOfConsumers(3, 4);
+
+        BenchmarkTable table = gridRunner.run();
+
+        int[][] expectedProducersAndConsumers = {{1, 3}, {1, 4}, {2, 3}, {2, 4}};
+        assertEquals(expectedProducersAndConsumers.length, table.getRows().size());
+        assertEquals(mExecutedConfigs.size(), table.getRows().size());
+        for (int i = 0; i < expectedProducersAndConsumers.length; i++) {
+            BenchmarkTable.Row row = table.getRows().get(i);
+            assertEquals(expectedProducersAndConsumers[i][0], row.getConfig().getNumOfProducers());
+            assertEquals(expectedProducersAndConsumers[i][1], row.getConfig().getNumOfConsumers());
+            assertEquals(mExecutedConfigs.get(i), row.getConfig());
+            // the stub receives as many messages as there are consumers
+            assertEquals(
+                    expectedProducersAndConsumers[i][1],
+                    row.getResult().getNumOfReceivedMessages()
+            );
+            assertEquals(
+                    expectedProducersAndConsumers[i][1] * 1000L / EXECUTION_TIME,
+                    row.getMessagesPerSecond()
+            );
+        }
+        // header and one line per row
+        assertEquals(expectedProducersAndConsumers.length + 1, table.toCsv().split("\n").length);
+    }
+
+    @Test
+    public void run_sweptParameterOnly_otherParametersFromBaseConfig() throws Exception {
+        BenchmarkConfig baseConfig = BenchmarkConfig.defaultConfig().newBuilder()
+                .setNumOfMessages(123)
+                .build();
+
+        BenchmarkTable table = new BenchmarkGridRunner<>(this::runStubBenchmark, baseConfig)
+                .sweepPayloadSize(1, 2)
+                .run();
+
+        assertEquals(2, table.getRows().size());
+        for (BenchmarkTable.Row row : table.getRows()) {
+            assertEquals(123, row.getConfig().getNumOfMessages());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void run_benchmarkReturnsNull_throws() throws Exception {
+        BenchmarkGridRunner<QueueBenchmarkResult> gridRunner =
+                new BenchmarkGridRunner<>(config -> null, BenchmarkConfig.defaultConfig());
+
+        gridRunner.run();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    private QueueBenchmarkResult runStubBenchmark(BenchmarkConfig config) {
+        mExecutedConfigs.add(config);
+        return new QueueBenchmarkResult(EXECUTION_TIME, config.getNumOfConsumers(), null);
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,257 @@
+package com.techyourchance.multithreading.common.dependencyinjection;
+
+import com.techyourchance.multithreading.common.execution.ExecutionService;
+import com.techyourchance.multithreading.common.execution.InstrumentedThreadPoolExecutor;
+import com.techyourchance.multithreading.common.execution.ThreadPoolConfig;
+import com.techyourchance.multithreading.common.execution.ThreadPoolFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ApplicationCompositionRootTest {
+
+    private static final int NUM_OF_THREADS = 32;
+    private static final int NUM_OF_ROUNDS = 50;
+
+    /**
+     * Counts the pools it creates, so that tests can tell that racing getters created a single
+     * service, rather than several services of which all but one were thrown away
+     */
+    private static class CountingThreadPoolFactory extends ThreadPoolFactory {
+
+        private final AtomicInteger mNumOfIoThreadPools = new AtomicInteger(0);
+        private final AtomicInteger mNumOfCpuThreadPools = new AtomicInteger(0);
+
+        CountingThreadPoolFactory() {
+            super(ThreadPoolConfig.defaultConfig());
+        }
+
+        @Override
+        public InstrumentedThreadPoolExecutor newIoThreadPool() {
+            mNumOfIoThreadPools.incrementAndGet();
+            return super.newIoThreadPool();
+        }
+
+        @Override
+        public InstrumentedThreadPoolExecutor newCpuThreadPool() {
+            mNumOfCpuThreadPools.incrementAndGet();
+            return super.newCpuThreadPool();
+        }
+    }
+
+    private ExecutorService mRacingThreads;
+    private final List<ApplicationCompositionRoot> mCompositionRoots = new ArrayList<>();
+
+    private CountingThreadPoolFactory mThreadPoolFactory;
+
+    @Before
+    public void setup() {
+        mRacingThreads = Executors.newFixedThreadPool(NUM_OF_THREADS);
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        mRacingThreads.shutdownNow();
+        mRacingThreads.awaitTermination(1, TimeUnit.SECONDS);
+        for (ApplicationCompositionRoot compositionRoot : mCompositionRoots) {
+            compositionRoot.getExecutionService().shutdownNow();
+        }
+    }
+
+    @Test
+    public void getExecutionService_concurrentCalls_poolsCreatedOnce() throws Exception {
+        for (int round = 0; round < NUM_OF_ROUNDS; round++) {
+            ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+
+            race(compositionRoot::getExecutionService);
+
+            assertEquals(1, mThreadPoolFactory.mNumOfIoThreadPools.get());
+            assertEquals(1, mThreadPoolFactory.mNumOfCpuThreadPools.get());
+        }
+    }
+
+    @Test
+    public void getExecutionService_concurrentCalls_singleInstance() throws Exception {
+        for (int round = 0; round < NUM_OF_ROUNDS; round++) {
+            ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+
+            List<Object> results = race(compositionRoot::getExecutionService);
+
+            assertAllSame(results);
+        }
+    }
+
+    @Test
+    public void getThreadPool_concurrentCalls_singleInstanceOwnedBySingleService() throws Exception {
+        for (int round = 0; round < NUM_OF_ROUNDS; round++) {
+            ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+
+            List<Object> results = race(compositionRoot::getThreadPool);
+
+            assertAllSame(results);
+            assertSame(compositionRoot.getExecutionService().getPriorityExecutor(), results.get(0));
+        }
+    }
+
+    @Test
+    public void getCpuThreadPool_concurrentCalls_singleInstanceOwnedBySingleService() throws Exception {
+        for (int round = 0; round < NUM_OF_ROUNDS; round++) {
+            ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+
+            List<Object> results = race(compositionRoot::getCpuThreadPool);
+
+            assertAllSame(results);
+            assertSame(compositionRoot.getExecutionService().getCpuThreadPool(), results.get(0));
+        }
+    }
+
+    @Test
+    public void gettersMixed_concurrentCalls_allFromSingleService() throws Exception {
+        for (int round = 0; round < NUM_OF_ROUNDS; round++) {
+            ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+
+            // each thread calls a different getter first, so that any of them can create the service
+            List<Object> results = race(() -> {
+                long threadId = Thread.currentThread().getId();
+                if (threadId % 3 == 0) {
+                    compositionRoot.getThreadPool();
+                } else if (threadId % 3 == 1) {
+                    compositionRoot.getCpuThreadPool();
+                }
+                return compositionRoot.getExecutionService();
+            });
+
+            assertAllSame(results);
+            ExecutionService executionService = (ExecutionService) results.get(0);
+            assertSame(executionService.getPriorityExecutor(), compositionRoot.getThreadPool());
+            assertSame(executionService.getCpuThreadPool(), compositionRoot.getCpuThreadPool());
+            assertEquals(1, mThreadPoolFactory.mNumOfIoThreadPools.get());
+            assertEquals(1, mThreadPoolFactory.mNumOfCpuThreadPools.get());
+        }
+    }
+
+    @Test
+    public void releaseExecutionService_lastUserWithShutdown_serviceShutDownAndNotReplaced() {
+        ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+        compositionRoot.acquireExecutionService();
+        ExecutionService executionService = compositionRoot.getExecutionService();
+
+        compositionRoot.releaseExecutionService(true, 0, TimeUnit.MILLISECONDS);
+
+        assertTrue(executionService.isShutdown());
+        assertSame(executionService, compositionRoot.getExecutionService());
+    }
+
+    @Test
+    public void releaseExecutionService_otherUserRemains_serviceNotShutDown() {
+        ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+        compositionRoot.acquireExecutionService();
+        compositionRoot.acquireExecutionService();
+        ExecutionService executionService = compositionRoot.getExecutionService();
+
+        compositionRoot.releaseExecutionService(true, 0, TimeUnit.MILLISECONDS);
+
+        assertFalse(executionService.isShutdown());
+        assertSame(executionService, compositionRoot.getExecutionService());
+    }
+
+    @Test
+    public void releaseExecutionService_withoutShutdown_serviceReusedByNextUser() {
+        ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+        compositionRoot.acquireExecutionService();
+        ExecutionService executionService = compositionRoot.getExecutionService();
+
+        compositionRoot.releaseExecutionService(false, 0, TimeUnit.MILLISECONDS);
+        compositionRoot.acquireExecutionService();
+
+        assertFalse(executionService.isShutdown());
+        assertSame(executionService, compositionRoot.getExecutionService());
+    }
+
+    @Test
+    public void acquireExecutionService_afterShutdown_newService() {
+        ApplicationCompositionRoot compositionRoot = newCompositionRoot();
+        compositionRoot.acquireExecutionService();
+        ExecutionService executionService = compositionRoot.getExecutionService();
+        compositionRoot.releaseExecutionService(true, 0, TimeUnit.MILLISECONDS);
+
+        compositionRoot.acquireExecutionService();
+
+        ExecutionService newExecutionService = compositionRoot.getExecutionService();
+        assertNotSame(executionService, newExecutionService);
+        assertFalse(newExecutionService.isShutdown());
+        assertEquals(2, mThreadPoolFactory.mNumOfIoThreadPools.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseExecutionService_notAcquired_throws() {
+        newCompositionRoot().releaseExecutionService(true, 0, TimeUnit.MILLISECONDS);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    /**
+     * @return new composition root whose pools are counted by a new {@link #mThreadPoolFactory}
+     */
+    private ApplicationCompositionRoot newCompositionRoot() {
+        mThreadPoolFactory = new CountingThreadPoolFactory();
+        ApplicationCompositionRoot compositionRoot =
+                new ApplicationCompositionRoot(mThreadPoolFactory);
+        mCompositionRoots.add(compositionRoot);
+        return compositionRoot;
+    }
+
+    /**
+     * Call the getter from all the racing threads at once
+     */
+    private List<Object> race(Callable<Object> getter) throws Exception {
+        CountDownLatch allThreadsReady = new CountDownLatch(NUM_OF_THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < NUM_OF_THREADS; i++) {
+            futures.add(mRacingThreads.submit(() -> {
+                allThreadsReady.countDown();
+                startGate.await();
+                return getter.call();
+            }));
+        }
+        allThreadsReady.await();
+        startGate.countDown();
+
+        List<Object> results = new ArrayList<>();
+        for (Future<Object> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private static void assertAllSame(List<Object> results) {
+        assertEquals(NUM_OF_THREADS, results.size());
+        assertNotNull(results.get(0));
+        for (Object result : results) {
+            assertSame(results.get(0), result);
+        }
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
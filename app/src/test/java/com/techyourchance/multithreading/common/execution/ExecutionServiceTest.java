@@ -0,0 +1,96 @@
+package com.techyourchance.multithreading.common.execution;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutionServiceTest {
+
+    private static final int IO_POOL_SIZE = 4;
+    // many times the BULK and NORMAL concurrency limits, so that most of them wait in the queues
+    private static final int NUM_OF_TASKS_PER_PRIORITY = 10 * IO_POOL_SIZE;
+    private static final long TASK_DURATION_MS = 2;
+    private static final long TIMEOUT_MS = 5000;
+
+    private ExecutionService mExecutionService;
+
+    private final AtomicInteger mNumOfCompletedTasks = new AtomicInteger(0);
+
+    @Before
+    public void setup() {
+        ThreadPoolConfig config = new ThreadPoolConfig.Builder()
+                .setIoPoolSize(IO_POOL_SIZE)
+                .build();
+        mExecutionService = new ExecutionService(new ThreadPoolFactory(config));
+    }
+
+    @After
+    public void teardown() {
+        mExecutionService.shutdownNow();
+    }
+
+    @Test
+    public void shutdown_tasksQueuedOverConcurrencyLimits_allRun() throws Exception {
+        submitTasks();
+
+        mExecutionService.shutdown(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        assertTrue(mExecutionService.getPriorityExecutor().awaitTermination(
+                TIMEOUT_MS, TimeUnit.MILLISECONDS
+        ));
+        assertTrue(mExecutionService.getIoThreadPool().awaitTermination(
+                TIMEOUT_MS, TimeUnit.MILLISECONDS
+        ));
+        assertEquals(2 * NUM_OF_TASKS_PER_PRIORITY, mNumOfCompletedTasks.get());
+    }
+
+    @Test
+    public void shutdownAndAwaitTermination_tasksQueuedOverConcurrencyLimits_allRun()
+            throws Exception {
+        submitTasks();
+
+        boolean drained = mExecutionService.shutdownAndAwaitTermination(
+                TIMEOUT_MS, TimeUnit.MILLISECONDS
+        );
+
+        assertTrue(drained);
+        assertEquals(2 * NUM_OF_TASKS_PER_PRIORITY, mNumOfCompletedTasks.get());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void execute_afterShutdown_throws() {
+        mExecutionService.shutdown(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        mExecutionService.execute(this::runTask);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    private void submitTasks() {
+        PriorityExecutor priorityExecutor = mExecutionService.getPriorityExecutor();
+        for (int i = 0; i < NUM_OF_TASKS_PER_PRIORITY; i++) {
+            priorityExecutor.execute(this::runTask, TaskPriority.BULK);
+            priorityExecutor.execute(this::runTask, TaskPriority.NORMAL);
+        }
+    }
+
+    private void runTask() {
+        try {
+            Thread.sleep(TASK_DURATION_MS);
+        } catch (InterruptedException e) {
+            return;
+        }
+        mNumOfCompletedTasks.incrementAndGet();
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,148 @@
+package com.techyourchance.multithreading.common.execution;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PriorityExecutorTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int NUM_OF_TASKS = 20;
+    private static final long TIMEOUT_MS = 5000;
+
+    private ThreadPoolExecutor mThreadPool;
+    private PriorityExecutor mPriorityExecutor;
+
+    private final AtomicInteger mNumOfCompletedTasks = new AtomicInteger(0);
+    private final CountDownLatch mBlockedTasksReleased = new CountDownLatch(1);
+
+    @Before
+    public void setup() {
+        mThreadPool = new ThreadPoolExecutor(
+                POOL_SIZE, POOL_SIZE, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()
+        );
+        mPriorityExecutor = new PriorityExecutor(
+                mThreadPool, POOL_SIZE, ThreadPoolConfig.defaultConfig()
+        );
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        mBlockedTasksReleased.countDown();
+        mThreadPool.shutdownNow();
+        mThreadPool.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shutdown_queuedTasksStillRun() throws Exception {
+        for (int i = 0; i < NUM_OF_TASKS; i++) {
+            mPriorityExecutor.execute(newCountingTask(), TaskPriority.BULK);
+        }
+
+        mPriorityExecutor.shutdown();
+
+        assertTrue(mPriorityExecutor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(NUM_OF_TASKS, mNumOfCompletedTasks.get());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void execute_afterShutdown_throws() {
+        mPriorityExecutor.shutdown();
+
+        mPriorityExecutor.execute(newCountingTask());
+    }
+
+    @Test
+    public void shutdownNow_queuedTasksReturnedAndNotRun() throws Exception {
+        blockAllThreads();
+        List<Runnable> queuedTasks = Arrays.asList(newCountingTask(), newCountingTask());
+        for (Runnable task : queuedTasks) {
+            mPriorityExecutor.execute(task);
+        }
+
+        List<Runnable> returnedTasks = mPriorityExecutor.shutdownNow();
+        mBlockedTasksReleased.countDown();
+
+        assertEquals(queuedTasks, returnedTasks);
+        assertTrue(mPriorityExecutor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(0, mNumOfCompletedTasks.get());
+    }
+
+    @Test
+    public void threadPoolShutDownUnderneath_queuedTasksKeptForShutdownNow() throws Exception {
+        blockAllThreads();
+        List<Runnable> queuedTasks = Arrays.asList(newCountingTask(), newCountingTask());
+        for (Runnable task : queuedTasks) {
+            mPriorityExecutor.execute(task);
+        }
+
+        mThreadPool.shutdown();
+        mBlockedTasksReleased.countDown();
+        awaitShutdown();
+
+        try {
+            mPriorityExecutor.execute(newCountingTask());
+            fail("task accepted after the pool was shut down");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(queuedTasks, mPriorityExecutor.shutdownNow());
+        assertTrue(mPriorityExecutor.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(0, mPriorityExecutor.getNumOfRunningTasks(TaskPriority.NORMAL));
+        assertEquals(0, mNumOfCompletedTasks.get());
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    private Runnable newCountingTask() {
+        return mNumOfCompletedTasks::incrementAndGet;
+    }
+
+    private void blockAllThreads() throws InterruptedException {
+        CountDownLatch allThreadsBlocked = new CountDownLatch(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            mPriorityExecutor.execute(() -> {
+                allThreadsBlocked.countDown();
+                try {
+                    mBlockedTasksReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(allThreadsBlocked.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Wait until the executor shuts down on its own, i.e. until a pool rejection is observed
+     */
+    private void awaitShutdown() throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (!mPriorityExecutor.isShutdown()) {
+            if (System.nanoTime() > deadlineNanos) {
+                fail("executor didn't shut down");
+            }
+            Thread.sleep(1);
+        }
+        assertFalse(mPriorityExecutor.isTerminated());
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,141 @@
+package com.techyourchance.multithreading.common.looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CustomHandlerGroupTest {
+
+    private static final int NUM_OF_LOOPERS = 4;
+    private static final long TIMEOUT_MS = 5000;
+
+    private static final String KEY = "key";
+
+    private ExecutorService mLooperThreads;
+    private CustomHandlerGroup mCustomHandlerGroup;
+
+    @Before
+    public void setup() {
+        mLooperThreads = Executors.newFixedThreadPool(NUM_OF_LOOPERS);
+        mCustomHandlerGroup = new CustomHandlerGroup(mLooperThreads, NUM_OF_LOOPERS);
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        mCustomHandlerGroup.quit();
+        mLooperThreads.shutdownNow();
+        mLooperThreads.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void post_sameKey_tasksRunInPostOrder() throws Exception {
+        int numOfKeys = NUM_OF_LOOPERS * 2;
+        int numOfTasksPerKey = 100;
+        List<List<Integer>> executedTasks = new ArrayList<>();
+        for (int i = 0; i < numOfKeys; i++) {
+            executedTasks.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        // keys are interleaved, and unkeyed tasks change the queue depths in between
+        for (int task = 0; task < numOfTasksPerKey; task++) {
+            for (int key = 0; key < numOfKeys; key++) {
+                int finalTask = task;
+                List<Integer> keyTasks = executedTasks.get(key);
+                mCustomHandlerGroup.post(key, () -> {
+                    keyTasks.add(finalTask);
+                    Thread.yield();
+                });
+            }
+            mCustomHandlerGroup.post(Thread::yield);
+        }
+        awaitAllTasksFinished();
+
+        for (List<Integer> keyTasks : executedTasks) {
+            assertEquals(numOfTasksPerKey, keyTasks.size());
+            for (int task = 0; task < numOfTasksPerKey; task++) {
+                assertEquals(task, (int) keyTasks.get(task));
+            }
+        }
+    }
+
+    @Test
+    public void post_lastTaskOfKeyFinished_keyReleased() throws Exception {
+        CountDownLatch firstTaskBlocked = new CountDownLatch(1);
+        mCustomHandlerGroup.post(KEY, () -> await(firstTaskBlocked));
+        mCustomHandlerGroup.post(KEY, () -> { });
+        assertNotEquals(-1, mCustomHandlerGroup.getLooperIndexOf(KEY));
+
+        firstTaskBlocked.countDown();
+        awaitAllTasksFinished();
+
+        assertEquals(-1, mCustomHandlerGroup.getLooperIndexOf(KEY));
+        assertNoKeysAndEmptyQueues();
+    }
+
+    @Test
+    public void quit_pendingTasksDropped_keysAndQueueDepthsReleased() throws Exception {
+        CountDownLatch runningTaskBlocked = new CountDownLatch(1);
+        CountDownLatch runningTaskStarted = new CountDownLatch(1);
+        mCustomHandlerGroup.post(KEY, () -> {
+            runningTaskStarted.countDown();
+            await(runningTaskBlocked);
+        });
+        for (int i = 0; i < 10; i++) {
+            mCustomHandlerGroup.post(KEY, () -> { });
+            mCustomHandlerGroup.post(i, () -> { });
+        }
+        assertTrue(runningTaskStarted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        mCustomHandlerGroup.quit();
+
+        assertEquals(-1, mCustomHandlerGroup.getLooperIndexOf(KEY));
+        assertNoKeysAndEmptyQueues();
+        // the task that was running when the group quit finishes without corrupting the state
+        runningTaskBlocked.countDown();
+        mLooperThreads.shutdown();
+        assertTrue(mLooperThreads.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertNoKeysAndEmptyQueues();
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    /**
+     * Quit the group safely and wait until all its loopers ran all their tasks
+     */
+    private void awaitAllTasksFinished() throws InterruptedException {
+        mCustomHandlerGroup.quitSafely();
+        mLooperThreads.shutdown();
+        assertTrue(mLooperThreads.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    private void assertNoKeysAndEmptyQueues() {
+        for (CustomHandlerGroup.LooperStatistics statistics : mCustomHandlerGroup.getStatistics()) {
+            assertEquals(0, statistics.getNumOfKeys());
+            assertEquals(0, statistics.getQueueDepth());
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,305 @@
+package com.techyourchance.multithreading.common.looper;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Runs the same scenarios through {@link CustomHandler} and {@code android.os.Handler} and
+ * expects the same outcome from both.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class CustomHandlerTest {
+
+    private static final long DELAY_MS = 50;
+    private static final long TIMEOUT_MS = 5000;
+
+    private static final Object TOKEN = new Object();
+
+    /**
+     * The operations of a scenario, implemented by both handlers
+     */
+    private interface ScenarioHandler {
+        boolean post(String task);
+        boolean postDelayed(String task, long delayMillis);
+        boolean postDelayed(String task, Object token, long delayMillis);
+        boolean postAtFrontOfQueue(String task);
+        boolean sendMessage(int what);
+        void removeMessages(int what);
+        void removeCallbacksAndMessages(Object token);
+    }
+
+    private final List<String> mCustomEvents = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> mAndroidEvents = Collections.synchronizedList(new ArrayList<>());
+
+    private ExecutorService mLooperThread;
+    private CustomLooper mCustomLooper;
+    private CustomHandler mCustomHandler;
+
+    private CountDownLatch mCustomLooperBlocked;
+
+    @Before
+    public void setup() {
+        mLooperThread = Executors.newSingleThreadExecutor();
+        mCustomLooper = new CustomLooper(mLooperThread);
+        mCustomHandler = new CustomHandler(mCustomLooper) {
+            @Override
+            public void handleMessage(CustomMessage message) {
+                mCustomEvents.add("message " + message.getWhat());
+            }
+        };
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        mCustomLooper.quit();
+        mLooperThread.shutdownNow();
+        mLooperThread.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void postsAndMessages_sameOrderAsAndroidHandler() throws Exception {
+        Handler androidHandler = newAndroidHandler(Looper.getMainLooper());
+
+        blockCustomLooper();
+        runOrderingScenario(asScenarioHandler(mCustomHandler));
+        unblockCustomLooper();
+        awaitCustomLooperIdleAfter(2 * DELAY_MS);
+
+        runOrderingScenario(asScenarioHandler(androidHandler));
+        // idleFor() alone stops at a task with due time 0, i.e. the one posted at the front
+        shadowOf(Looper.getMainLooper()).idle();
+        shadowOf(Looper.getMainLooper()).idleFor(2 * DELAY_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(
+                Arrays.asList("front", "first", "message 1", "second", "delayed", "delayed later"),
+                mAndroidEvents
+        );
+        assertEquals(mAndroidEvents, mCustomEvents);
+    }
+
+    @Test
+    public void quitSafely_dueTasksRunAndLaterDropped_likeAndroidHandler() throws Exception {
+        HandlerThread handlerThread = new HandlerThread("CustomHandlerTest");
+        handlerThread.start();
+        Handler androidHandler = newAndroidHandler(handlerThread.getLooper());
+
+        blockCustomLooper();
+        runQuitSafelyScenario(asScenarioHandler(mCustomHandler));
+        mCustomLooper.quitSafely();
+        unblockCustomLooper();
+        mLooperThread.shutdown();
+        assertTrue(mLooperThread.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        runQuitSafelyScenario(asScenarioHandler(androidHandler));
+        handlerThread.quitSafely();
+        handlerThread.join(TIMEOUT_MS);
+
+        assertEquals(Arrays.asList("due", "message 1"), mAndroidEvents);
+        assertEquals(mAndroidEvents, mCustomEvents);
+    }
+
+    @Test
+    public void quit_postDropped_likeAndroidHandler() {
+        HandlerThread handlerThread = new HandlerThread("CustomHandlerTest");
+        handlerThread.start();
+        Handler androidHandler = newAndroidHandler(handlerThread.getLooper());
+
+        handlerThread.quit();
+        mCustomLooper.quit();
+
+        assertFalse(asScenarioHandler(androidHandler).post("after quit"));
+        assertFalse(asScenarioHandler(mCustomHandler).post("after quit"));
+        assertFalse(asScenarioHandler(mCustomHandler).sendMessage(1));
+    }
+
+    @Test
+    public void taskThrows_looperQuitsAndPendingTasksDropped() throws Exception {
+        blockCustomLooper();
+        mCustomHandler.post(() -> {
+            throw new RuntimeException("expected by the test");
+        });
+        asScenarioHandler(mCustomHandler).post("pending");
+        asScenarioHandler(mCustomHandler).postDelayed("delayed", DELAY_MS);
+        unblockCustomLooper();
+        mLooperThread.shutdown();
+        assertTrue(mLooperThread.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        assertFalse(asScenarioHandler(mCustomHandler).post("after throw"));
+        assertEquals(Collections.emptyList(), mCustomEvents);
+    }
+
+    @Test
+    public void looperThreadInterrupted_looperQuitsAndPendingTasksDropped() throws Exception {
+        asScenarioHandler(mCustomHandler).postDelayed("delayed", TIMEOUT_MS);
+
+        mLooperThread.shutdownNow();
+        assertTrue(mLooperThread.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+
+        assertFalse(asScenarioHandler(mCustomHandler).post("after interrupt"));
+        assertEquals(Collections.emptyList(), mCustomEvents);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    private static void runOrderingScenario(ScenarioHandler handler) {
+        handler.postDelayed("delayed", DELAY_MS);
+        handler.post("first");
+        handler.sendMessage(1);
+        handler.sendMessage(2);
+        handler.post("second");
+        handler.postAtFrontOfQueue("front");
+        handler.removeMessages(2);
+        handler.postDelayed("removed", TOKEN, DELAY_MS / 2);
+        handler.removeCallbacksAndMessages(TOKEN);
+        handler.postDelayed("delayed later", DELAY_MS);
+    }
+
+    private static void runQuitSafelyScenario(ScenarioHandler handler) {
+        handler.post("due");
+        handler.postDelayed("later", DELAY_MS);
+        handler.sendMessage(1);
+    }
+
+    /**
+     * Make the custom looper wait until {@link #unblockCustomLooper()}, so that the scenario is
+     * fully posted before any of it runs, like on the paused Robolectric looper
+     */
+    private void blockCustomLooper() {
+        mCustomLooperBlocked = new CountDownLatch(1);
+        CountDownLatch blocked = mCustomLooperBlocked;
+        mCustomHandler.post(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private void unblockCustomLooper() {
+        mCustomLooperBlocked.countDown();
+    }
+
+    private void awaitCustomLooperIdleAfter(long delayMillis) throws InterruptedException {
+        CountDownLatch idle = new CountDownLatch(1);
+        mCustomHandler.postDelayed(idle::countDown, delayMillis);
+        assertTrue(idle.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    private Handler newAndroidHandler(Looper looper) {
+        return new Handler(looper) {
+            @Override
+            public void handleMessage(Message message) {
+                mAndroidEvents.add("message " + message.what);
+            }
+        };
+    }
+
+    private ScenarioHandler asScenarioHandler(CustomHandler handler) {
+        return new ScenarioHandler() {
+            @Override
+            public boolean post(String task) {
+                return handler.post(() -> mCustomEvents.add(task));
+            }
+
+            @Override
+            public boolean postDelayed(String task, long delayMillis) {
+                return handler.postDelayed(() -> mCustomEvents.add(task), delayMillis);
+            }
+
+            @Override
+            public boolean postDelayed(String task, Object token, long delayMillis) {
+                return handler.postDelayed(() -> mCustomEvents.add(task), token, delayMillis);
+            }
+
+            @Override
+            public boolean postAtFrontOfQueue(String task) {
+                return handler.postAtFrontOfQueue(() -> mCustomEvents.add(task));
+            }
+
+            @Override
+            public boolean sendMessage(int what) {
+                return handler.sendMessage(handler.obtainMessage(what));
+            }
+
+            @Override
+            public void removeMessages(int what) {
+                handler.removeMessages(what);
+            }
+
+            @Override
+            public void removeCallbacksAndMessages(Object token) {
+                handler.removeCallbacksAndMessages(token);
+            }
+        };
+    }
+
+    private ScenarioHandler asScenarioHandler(Handler handler) {
+        return new ScenarioHandler() {
+            @Override
+            public boolean post(String task) {
+                return handler.post(() -> mAndroidEvents.add(task));
+            }
+
+            @Override
+            public boolean postDelayed(String task, long delayMillis) {
+                return handler.postDelayed(() -> mAndroidEvents.add(task), delayMillis);
+            }
+
+            @Override
+            public boolean postDelayed(String task, Object token, long delayMillis) {
+                return handler.postDelayed(() -> mAndroidEvents.add(task), token, delayMillis);
+            }
+
+            @Override
+            public boolean postAtFrontOfQueue(String task) {
+                return handler.postAtFrontOfQueue(() -> mAndroidEvents.add(task));
+            }
+
+            @Override
+            public boolean sendMessage(int what) {
+                return handler.sendMessage(handler.obtainMessage(what));
+            }
+
+            @Override
+            public void removeMessages(int what) {
+                handler.removeMessages(what);
+            }
+
+            @Override
+            public void removeCallbacksAndMessages(Object token) {
+                handler.removeCallbacksAndMessages(token);
+            }
+        };
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,110 @@
+package com.techyourchance.multithreading.common.looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CustomMessageTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private ExecutorService mLooperThread;
+    private CustomLooper mCustomLooper;
+    private CustomHandler mCustomHandler;
+
+    @Before
+    public void setup() {
+        mLooperThread = Executors.newSingleThreadExecutor();
+        mCustomLooper = new CustomLooper(mLooperThread);
+        mCustomHandler = new CustomHandler(mCustomLooper);
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        mCustomLooper.quit();
+        mLooperThread.shutdownNow();
+        mLooperThread.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recycle_twice_throws() {
+        CustomMessage message = CustomMessage.obtain();
+        message.recycle();
+
+        message.recycle();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sendMessage_recycledMessage_throws() {
+        CustomMessage message = CustomMessage.obtain();
+        message.recycle();
+
+        mCustomHandler.sendMessage(message);
+    }
+
+    @Test
+    public void sendMessage_afterDispatch_messageRecycledAndRejected() throws Exception {
+        CustomMessage message = mCustomHandler.obtainMessage(1);
+        mCustomHandler.sendMessage(message);
+        awaitCustomLooperIdle();
+
+        try {
+            mCustomHandler.sendMessage(message);
+            fail("recycled message was accepted");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void obtain_afterRecycles_distinctUsableMessages() {
+        CustomMessage[] messages = new CustomMessage[10];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = CustomMessage.obtain();
+        }
+        for (CustomMessage message : messages) {
+            message.recycle();
+        }
+        try {
+            messages[0].recycle();
+            fail("double recycle was accepted");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // a corrupted pool would hand out the same message more than once
+        Set<CustomMessage> obtained = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < messages.length; i++) {
+            CustomMessage message = CustomMessage.obtain();
+            assertTrue(obtained.add(message));
+            assertEquals(0, message.getWhat());
+        }
+        for (CustomMessage message : obtained) {
+            message.recycle();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    private void awaitCustomLooperIdle() throws InterruptedException {
+        CountDownLatch idle = new CountDownLatch(1);
+        mCustomHandler.post(idle::countDown);
+        assertTrue(idle.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,93 @@
+package com.techyourchance.multithreading.common.ringbuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchEventProcessorTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private final List<Long> mEvents = Collections.synchronizedList(new ArrayList<>());
+
+    private ExecutorService mProcessorThread;
+    private RingBuffer<long[]> mRingBuffer;
+    private BatchEventProcessor<long[]> mBatchEventProcessor;
+
+    @Before
+    public void setup() {
+        mProcessorThread = Executors.newSingleThreadExecutor();
+        mRingBuffer = new RingBuffer<>(() -> new long[1], 8);
+        mBatchEventProcessor = new BatchEventProcessor<>(
+                mRingBuffer,
+                mRingBuffer.newBarrier(),
+                (event, sequence, endOfBatch) -> mEvents.add(event[0])
+        );
+        mRingBuffer.setGatingSequences(mBatchEventProcessor.getSequence());
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        mBatchEventProcessor.halt();
+        mProcessorThread.shutdownNow();
+        mProcessorThread.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void run_haltedBeforeRun_returns() throws Exception {
+        mBatchEventProcessor.halt();
+
+        Future<?> run = mProcessorThread.submit(mBatchEventProcessor);
+
+        run.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void run_publishedEvents_handledInOrderUntilHalted() throws Exception {
+        Future<?> run = mProcessorThread.submit(mBatchEventProcessor);
+
+        for (long i = 0; i < 20; i++) {
+            publish(i);
+        }
+        awaitProcessed(19);
+        mBatchEventProcessor.halt();
+
+        run.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertEquals(20, mEvents.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (long) mEvents.get(i));
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    private void publish(long value) {
+        long sequence = mRingBuffer.next();
+        mRingBuffer.get(sequence)[0] = value;
+        mRingBuffer.publish(sequence);
+    }
+
+    private void awaitProcessed(long sequence) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (mBatchEventProcessor.getSequence().get() < sequence) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("sequence " + sequence + " not processed");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
@@ -0,0 +1,102 @@
+package com.techyourchance.multithreading.common.tracing;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class TracingHandlerTest {
+
+    private static final long DELAY_MS = 50;
+
+    private final List<String> mEvents = new ArrayList<>();
+
+    private TaskTracer mTaskTracer;
+    private TracingHandler mTracingHandler;
+
+    @Before
+    public void setup() {
+        mTaskTracer = new TaskTracer(16);
+        mTaskTracer.setEnabled(true);
+        mTracingHandler = new TracingHandler(new Handler(Looper.getMainLooper()), mTaskTracer);
+    }
+
+    @Test
+    public void post_tasksRunAndTraced() {
+        mTracingHandler.post("first", () -> mEvents.add("first"));
+        mTracingHandler.postDelayed("second", () -> mEvents.add("second"), DELAY_MS);
+
+        runMainLooper();
+
+        assertEquals(Arrays.asList("first", "second"), mEvents);
+        assertEquals(2, mTaskTracer.getSpans().size());
+    }
+
+    @Test
+    public void removeCallbacks_originalTask_allPendingPostsRemoved() {
+        Runnable removedTask = () -> mEvents.add("removed");
+        mTracingHandler.post("removed", removedTask);
+        mTracingHandler.postDelayed("removed", removedTask, DELAY_MS);
+        mTracingHandler.post("kept", () -> mEvents.add("kept"));
+
+        mTracingHandler.removeCallbacks(removedTask);
+        runMainLooper();
+
+        assertEquals(Collections.singletonList("kept"), mEvents);
+        assertEquals(1, mTaskTracer.getSpans().size());
+    }
+
+    @Test
+    public void removeCallbacks_taskPostedWhileTracerDisabled_removed() {
+        mTaskTracer.setEnabled(false);
+        Runnable removedTask = () -> mEvents.add("removed");
+        mTracingHandler.post("removed", removedTask);
+
+        mTracingHandler.removeCallbacks(removedTask);
+        runMainLooper();
+
+        assertEquals(Collections.emptyList(), mEvents);
+    }
+
+    @Test
+    public void removeCallbacks_afterTaskRan_laterPostUnaffected() {
+        Runnable task = () -> mEvents.add("task");
+        mTracingHandler.post("task", task);
+        runMainLooper();
+
+        mTracingHandler.removeCallbacks(task);
+        mTracingHandler.post("task", task);
+        runMainLooper();
+
+        assertEquals(Arrays.asList("task", "task"), mEvents);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // region helper methods
+
+    private static void runMainLooper() {
+        // the due tasks first, then the delayed ones
+        shadowOf(Looper.getMainLooper()).idle();
+        shadowOf(Looper.getMainLooper()).idleFor(2 * DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // endregion helper methods
+    // ---------------------------------------------------------------------------------------------
+}
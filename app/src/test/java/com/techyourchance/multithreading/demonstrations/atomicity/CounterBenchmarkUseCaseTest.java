@@ -0,0 +1,78 @@
+package com.techyourchance.multithreading.demonstrations.atomicity;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CounterBenchmarkUseCaseTest {
+
+    private static final long TIMEOUT_MS = 5000;
+
+    private static final Executor THREAD_PER_TASK_EXECUTOR = task -> new Thread(task).start();
+
+    private final CountDownLatch mFinished = new CountDownLatch(1);
+    private final AtomicBoolean mCompleted = new AtomicBoolean(false);
+    private final AtomicBoolean mAborted = new AtomicBoolean(false);
+
+    private CounterBenchmarkUseCase.Listener mListener;
+
+    @Before
+    public void setup() {
+        mListener = new CounterBenchmarkUseCase.Listener() {
+            @Override
+            public void onCounterBenchmarkProgress(CounterBenchmarkUseCase.Result result) {}
+
+            @Override
+            public void onCounterBenchmarkCompleted(List<CounterBenchmarkUseCase.Result> results) {
+                mCompleted.set(true);
+                mFinished.countDown();
+            }
+
+            @Override
+            public void onCounterBenchmarkAborted() {
+                mAborted.set(true);
+                mFinished.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void runBenchmarkAndNotify_completes() throws Exception {
+        CounterBenchmarkUseCase counterBenchmarkUseCase =
+                new CounterBenchmarkUseCase(THREAD_PER_TASK_EXECUTOR, THREAD_PER_TASK_EXECUTOR);
+        counterBenchmarkUseCase.registerListener(mListener);
+
+        counterBenchmarkUseCase.runBenchmarkAndNotify(2, 1000);
+
+        assertTrue(mFinished.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(mCompleted.get());
+        assertFalse(mAborted.get());
+    }
+
+    @Test
+    public void runBenchmarkAndNotify_counterThreadInterrupted_abortedInsteadOfBlocking()
+            throws Exception {
+        // the counter threads are interrupted before they reach the start gate
+        Executor interruptedThreadsExecutor = task -> new Thread(() -> {
+            Thread.currentThread().interrupt();
+            task.run();
+        }).start();
+        CounterBenchmarkUseCase counterBenchmarkUseCase =
+                new CounterBenchmarkUseCase(THREAD_PER_TASK_EXECUTOR, interruptedThreadsExecutor);
+        counterBenchmarkUseCase.registerListener(mListener);
+
+        counterBenchmarkUseCase.runBenchmarkAndNotify(2, 1000);
+
+        assertTrue(mFinished.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(mAborted.get());
+        assertFalse(mCompleted.get());
+    }
+}